@@ -0,0 +1,121 @@
+package com.deahtstroke.rivenbot.benchmark;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.dto.destiny.ActivitiesResponse;
+import com.deahtstroke.rivenbot.dto.destiny.Activity;
+import com.deahtstroke.rivenbot.dto.destiny.ActivityDetails;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.service.BungieAPIService;
+import com.deahtstroke.rivenbot.service.UserRaidDetailsService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.support.WebClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Wall-clock time to retrieve the whole raid history of a character from a local stub of Bungie's
+ * activity history endpoint. Every page is answered after a fixed latency, so the numbers reflect
+ * the amount of sequential round trips the paging strategy needs. The Bungie rate limiter is not
+ * part of the measurement.
+ * <br>
+ * Run with {@code ./gradlew jmh}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ActivityHistoryPagingBenchmark {
+
+  private static final int PAGE_SIZE = 250;
+
+  @Param({"1", "10", "40"})
+  int historyPages;
+
+  @Param({"50"})
+  long latencyMillis;
+
+  private DisposableServer bungieStub;
+  private UserRaidDetailsService userRaidDetailsService;
+
+  @Setup(Level.Trial)
+  public void setup() throws JsonProcessingException {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    byte[] fullPage = objectMapper.writeValueAsBytes(page(PAGE_SIZE));
+    byte[] lastPage = objectMapper.writeValueAsBytes(page(PAGE_SIZE / 2));
+    byte[] emptyPage = objectMapper.writeValueAsBytes(new BungieResponse<>(null));
+    Duration latency = Duration.ofMillis(latencyMillis);
+
+    bungieStub = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .handle((request, response) -> {
+          int page = Integer.parseInt(new QueryStringDecoder(request.uri())
+              .parameters().get("page").get(0));
+          byte[] body = page < historyPages - 1 ? fullPage :
+              page == historyPages - 1 ? lastPage : emptyPage;
+          return response
+              .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+              .sendByteArray(Mono.delay(latency).thenReturn(body));
+        })
+        .bindNow();
+
+    WebClient webClient = WebClient.builder()
+        .baseUrl("http://localhost:" + bungieStub.port())
+        .build();
+    BungieClient bungieClient = HttpServiceProxyFactory.builder()
+        .exchangeAdapter(WebClientAdapter.create(webClient))
+        .build()
+        .createClient(BungieClient.class);
+    BungieAPIService bungieAPIService = new BungieAPIService(bungieClient, null);
+    userRaidDetailsService = new UserRaidDetailsService(null, null, null, null, bungieAPIService,
+        null, null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    bungieStub.disposeNow();
+  }
+
+  @Benchmark
+  public Long getActivitiesAll() {
+    return userRaidDetailsService.getActivitiesAll(3, "4611686018467284386", "2305843009261519028")
+        .count()
+        .block();
+  }
+
+  private static BungieResponse<ActivitiesResponse> page(int size) {
+    List<Activity> activities = new ArrayList<>(size);
+    Instant now = Instant.now();
+    for (int i = 0; i < size; i++) {
+      activities.add(new Activity(now.minus(Duration.ofHours(i)),
+          new ActivityDetails(1441982566L, 10_000_000_000L + i, 4), Map.of()));
+    }
+    return new BungieResponse<>(new ActivitiesResponse(activities));
+  }
+}
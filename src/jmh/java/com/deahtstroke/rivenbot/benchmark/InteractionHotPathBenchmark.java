@@ -0,0 +1,93 @@
+package com.deahtstroke.rivenbot.benchmark;
+
+import com.deahtstroke.rivenbot.RivenBotApplication;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import com.deahtstroke.rivenbot.dto.discord.Interaction;
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import com.deahtstroke.rivenbot.enums.SlashCommand;
+import com.deahtstroke.rivenbot.mapper.PGCRMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Per-interaction cost of the CPU-bound steps of answering an interaction, besides verifying its
+ * signature, see {@link SignatureVerificationBenchmark}: reading the interaction, resolving its
+ * slash-command, mapping the Post Game Carnage Reports of new raids and rendering the raid stats
+ * embed. Payloads are the ones in {@code src/test/resources/__files} and the ObjectMapper is the
+ * one the application configures in {@link RivenBotApplication#objectMapper()}.
+ * <br>
+ * Run with {@code ./gradlew jmh}, adding {@code 'gc'} to the profilers of the jmh extension also
+ * reports the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InteractionHotPathBenchmark {
+
+  private static final String INTERACTION = "__files/discord/raid-stats-interaction.json";
+  private static final String PGCR_RESPONSE = "__files/bungie/pgcr-response.json";
+  private static final Long PGCR_INSTANCE_ID = 14183829512L;
+
+  private ObjectMapper objectMapper;
+  private PGCRMapper pgcrMapper;
+  private byte[] interaction;
+  private PostGameCarnageReport postGameCarnageReport;
+  private RaidStatistics raidStatistics;
+
+  @Setup
+  public void setup() throws IOException {
+    objectMapper = new RivenBotApplication().objectMapper();
+    pgcrMapper = Mappers.getMapper(PGCRMapper.class);
+    interaction = new ClassPathResource(INTERACTION).getContentAsByteArray();
+    BungieResponse<PostGameCarnageReport> pgcr = objectMapper.readValue(
+        new ClassPathResource(PGCR_RESPONSE).getContentAsByteArray(), new TypeReference<>() {
+        });
+    postGameCarnageReport = pgcr.getResponse();
+    raidStatistics = new RaidStatistics(null, "Deaht#8080", "King's Fall", 12_482, 1_347, 2_891,
+        18, 74, 41, 9, 65, true);
+  }
+
+  @Benchmark
+  public Interaction deserializeInteraction() throws IOException {
+    return objectMapper.readValue(interaction, Interaction.class);
+  }
+
+  @Benchmark
+  public SlashCommand findSlashCommand(Command command) {
+    return SlashCommand.findByName(command.commandName);
+  }
+
+  @Benchmark
+  public PGCRDetails mapPostGameCarnageReport() {
+    return pgcrMapper.dtoToEntity(postGameCarnageReport, PGCR_INSTANCE_ID);
+  }
+
+  @Benchmark
+  public String renderRaidStatistics() {
+    return raidStatistics.toString();
+  }
+
+  /**
+   * The slash-command that is looked up, the first and the last declared ones
+   */
+  @State(Scope.Benchmark)
+  public static class Command {
+
+    @Param({"weekly_dungeon", "raid_map"})
+    String commandName;
+  }
+}
@@ -5,15 +5,17 @@ import com.deahtstroke.rivenbot.handler.InteractionHandler;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Scope;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
@@ -21,6 +23,7 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 
 @Slf4j
 @EnableCaching
+@EnableScheduling
 @SpringBootApplication
 @EnableAspectJAutoProxy
 public class RivenBotApplication {
@@ -53,20 +56,23 @@ public class RivenBotApplication {
     return objectMapper;
   }
 
-  @Bean
-  CacheManager inMemoryCacheManager() {
-    return new ConcurrentMapCacheManager();
-  }
-
   /**
    * Prepares a WebClient.Builder bean that has standard status handlers in case of 4xx client
-   * request errors and 5xx server errors
+   * request errors and 5xx server errors. Builders are mutable, so like Spring Boot's own builder
+   * every injection point gets a new one and clients don't pick up each other's settings.
+   * <br>
+   * This builder replaces Spring Boot's one, so the calls it makes are observed here: each call is
+   * a client span of the work that made it, e.g., the interaction being answered, and carries the
+   * trace to the called API.
    *
+   * @param observationRegistry The observation registry
    * @return {@link WebClient.Builder}
    */
   @Bean
-  public WebClient.Builder webClient() {
-    return WebClient.builder();
+  @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+  public WebClient.Builder webClient(ObservationRegistry observationRegistry) {
+    return WebClient.builder()
+        .observationRegistry(observationRegistry);
   }
 
   @Bean
@@ -10,6 +10,7 @@ import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
 import com.deahtstroke.rivenbot.dto.destiny.SearchResult;
 import com.deahtstroke.rivenbot.dto.destiny.UserGlobalSearchBody;
 import com.deahtstroke.rivenbot.dto.destiny.characters.CharactersResponse;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.DestinyManifest;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
 import com.deahtstroke.rivenbot.dto.destiny.milestone.MilestoneEntry;
 import com.deahtstroke.rivenbot.enums.ManifestEntity;
@@ -38,6 +39,15 @@ public interface BungieClient {
   Mono<BungieResponse<MembershipResponse>> getMembershipInfoById(
       @PathVariable String membershipId, @PathVariable Integer membershipType);
 
+  /**
+   * Gets the current version of the Manifest along with the paths to the content of every
+   * manifest entity
+   *
+   * @return {@link Mono} of {@link DestinyManifest}
+   */
+  @GetExchange("/Destiny2/Manifest/")
+  Mono<BungieResponse<DestinyManifest>> getManifest();
+
   /**
    * Ges a manifest entity from the Manifest API asynchronously
    *
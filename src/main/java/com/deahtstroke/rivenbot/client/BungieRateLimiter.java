@@ -0,0 +1,138 @@
+package com.deahtstroke.rivenbot.client;
+
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Global rate limiter that sits in front of every call made to Bungie.net. The amount of permits
+ * is adjusted using AIMD (additive increase, multiplicative decrease): every full period of
+ * successful calls raises the limit by a fixed step, while a throttle response from Bungie cuts it
+ * by a factor and pauses all calls for the amount of seconds Bungie asked for. Calls that were in
+ * flight together tend to be throttled together, so the limit is cut at most once per refresh
+ * period.
+ */
+@Slf4j
+@Component
+public class BungieRateLimiter {
+
+  private static final String RATE_LIMITER_NAME = "bungie-rate-limiter";
+
+  private final BungieConfiguration.RateLimit properties;
+  private final RateLimiter rateLimiter;
+  private final AtomicInteger currentLimit;
+  private final AtomicInteger successesSinceLastIncrease;
+  private final AtomicLong pausedUntil;
+  private final AtomicLong lastDecreaseAt;
+  private final Counter throttledCounter;
+
+  public BungieRateLimiter(BungieConfiguration bungieConfiguration, MeterRegistry meterRegistry) {
+    this.properties = bungieConfiguration.getRateLimit();
+    this.currentLimit = new AtomicInteger(properties.getInitialLimitForPeriod());
+    this.successesSinceLastIncrease = new AtomicInteger(0);
+    this.pausedUntil = new AtomicLong(0);
+    this.lastDecreaseAt = new AtomicLong(0);
+    this.rateLimiter = RateLimiter.of(RATE_LIMITER_NAME, RateLimiterConfig.custom()
+        .limitForPeriod(properties.getInitialLimitForPeriod())
+        .limitRefreshPeriod(properties.getLimitRefreshPeriod())
+        .timeoutDuration(properties.getTimeout())
+        .build());
+
+    Gauge.builder("bungie.ratelimiter.limit", currentLimit, AtomicInteger::get)
+        .description("Permits handed out per refresh period for calls to Bungie.net")
+        .register(meterRegistry);
+    Gauge.builder("bungie.ratelimiter.rate", this, BungieRateLimiter::permitsPerSecond)
+        .description("Current permit rate per second for calls to Bungie.net")
+        .baseUnit("permits")
+        .register(meterRegistry);
+    this.throttledCounter = Counter.builder("bungie.ratelimiter.throttled")
+        .description("Amount of throttle responses received from Bungie.net")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Decorates a call to Bungie so that it waits for any throttle pause to end and then for a permit
+   * before subscribing to the actual call
+   *
+   * @param call The call to make to Bungie.net
+   * @param <T>  The type of the response
+   * @return The rate-limited call
+   */
+  public <T> Mono<T> limit(Mono<T> call) {
+    Mono<T> permitted = call.transformDeferred(RateLimiterOperator.of(rateLimiter));
+    return Mono.defer(() -> {
+      long pauseMillis = pausedUntil.get() - System.currentTimeMillis();
+      return pauseMillis > 0 ?
+          Mono.delay(Duration.ofMillis(pauseMillis)).then(permitted) :
+          permitted;
+    });
+  }
+
+  /**
+   * Record a successful call, once a full period worth of calls succeeded the limit is increased
+   */
+  public void onSuccess() {
+    int limit = currentLimit.get();
+    if (successesSinceLastIncrease.incrementAndGet() >= limit
+        && limit < properties.getMaxLimitForPeriod()) {
+      successesSinceLastIncrease.set(0);
+      changeLimit(limit, Math.min(properties.getMaxLimitForPeriod(),
+          limit + properties.getAdditiveIncrease()));
+    }
+  }
+
+  /**
+   * Record a throttle response from Bungie, every call is paused until Bungie's throttle window
+   * passes and the limit is decreased, unless it was already decreased in the current refresh
+   * period
+   *
+   * @param throttleSeconds The seconds Bungie asked clients to wait, can be null
+   */
+  public void onThrottle(Long throttleSeconds) {
+    throttledCounter.increment();
+    successesSinceLastIncrease.set(0);
+
+    Duration pause = Objects.nonNull(throttleSeconds) && throttleSeconds > 0 ?
+        Duration.ofSeconds(throttleSeconds) : properties.getDefaultThrottlePause();
+    long now = System.currentTimeMillis();
+    pausedUntil.accumulateAndGet(now + pause.toMillis(), Math::max);
+
+    long lastDecrease = lastDecreaseAt.get();
+    boolean decreasedThisPeriod =
+        now - lastDecrease < properties.getLimitRefreshPeriod().toMillis();
+    if (!decreasedThisPeriod && lastDecreaseAt.compareAndSet(lastDecrease, now)) {
+      int limit = currentLimit.get();
+      int decreased = Math.max(properties.getMinLimitForPeriod(),
+          (int) Math.floor(limit * properties.getMultiplicativeDecrease()));
+      changeLimit(limit, decreased);
+    }
+    log.warn("Bungie throttled the application, pausing calls for [{}] and lowering the limit to [{}]",
+        pause, currentLimit.get());
+  }
+
+  /**
+   * The current rate of permits per second that calls to Bungie are held to
+   *
+   * @return permits per second
+   */
+  public double permitsPerSecond() {
+    return currentLimit.get() / (properties.getLimitRefreshPeriod().toMillis() / 1000.0);
+  }
+
+  private void changeLimit(int expected, int newLimit) {
+    if (expected != newLimit && currentLimit.compareAndSet(expected, newLimit)) {
+      rateLimiter.changeLimitForPeriod(newLimit);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.deahtstroke.rivenbot.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces identical calls that are in-flight at the same time. Concurrent callers that ask for
+ * the same method with the same arguments share one upstream call, once it terminates the next
+ * caller triggers a fresh one. Errors are never shared past the callers that were already waiting
+ * on them. Coalesced hits and misses are counted per client and method.
+ */
+public class CallCoalescer {
+
+  private final Map<CallKey, Mono<?>> inFlightCalls;
+  private final MeterRegistry meterRegistry;
+  private final String clientName;
+
+  public CallCoalescer(MeterRegistry meterRegistry, String clientName) {
+    this.meterRegistry = meterRegistry;
+    this.clientName = clientName;
+    this.inFlightCalls = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the in-flight call for the given method and arguments if there is one, else starts a
+   * new call that other callers can attach to until it terminates
+   *
+   * @param method The name of the client method
+   * @param call   Supplier of the actual call to Bungie
+   * @param args   The arguments of the call
+   * @param <T>    The type of the response
+   * @return A Mono that is shared by every concurrent caller with the same method and arguments
+   * @noinspection unchecked
+   */
+  public <T> Mono<T> coalesce(String method, Supplier<Mono<T>> call, Object... args) {
+    CallKey key = new CallKey(method, Arrays.asList(args));
+    return Mono.defer(() -> {
+      AtomicBoolean leader = new AtomicBoolean(false);
+      Mono<?> shared = inFlightCalls.computeIfAbsent(key, k -> {
+        leader.set(true);
+        return call.get()
+            .doFinally(signal -> inFlightCalls.remove(k))
+            .cache();
+      });
+      String outcome = leader.get() ? "miss" : "hit";
+      coalescedCounter(method, outcome).increment();
+      return (Mono<T>) shared;
+    });
+  }
+
+  private Counter coalescedCounter(String method, String outcome) {
+    return Counter.builder("bungie.client.coalesced")
+        .description("Calls to Bungie that either started a new call (miss) or attached to one "
+                     + "already in-flight (hit)")
+        .tag("client", clientName)
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private record CallKey(String method, List<Object> args) {
+
+  }
+}
@@ -0,0 +1,89 @@
+package com.deahtstroke.rivenbot.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * What happened on the wire during a single call made through an instrumented client. The
+ * instrumented client puts it in the Reactor context of the call and the exchange filter of the
+ * WebClient fills it in for every exchange, including the ones that are retried.
+ */
+public class ClientCallMetrics {
+
+  /**
+   * Tag value used when a call has no status or error code to report
+   */
+  public static final String NONE = "NONE";
+
+  private static final String CONTEXT_KEY = ClientCallMetrics.class.getName();
+
+  private final AtomicInteger exchanges = new AtomicInteger(0);
+  private final AtomicLong responseBytes = new AtomicLong(0);
+  private volatile String status = NONE;
+  private volatile String errorCode = NONE;
+
+  /**
+   * Context that carries the metrics of a call to the exchanges it makes
+   *
+   * @param metrics The metrics of the call
+   * @return {@link Context}
+   */
+  public static Context with(ClientCallMetrics metrics) {
+    return Context.of(CONTEXT_KEY, metrics);
+  }
+
+  /**
+   * The metrics of the call an exchange belongs to
+   *
+   * @param context The context of the exchange
+   * @return The metrics of the call, null if the exchange wasn't made by an instrumented client
+   */
+  public static ClientCallMetrics from(ContextView context) {
+    return context.getOrDefault(CONTEXT_KEY, null);
+  }
+
+  /**
+   * Record that an exchange was sent
+   */
+  public void exchangeStarted() {
+    exchanges.incrementAndGet();
+  }
+
+  /**
+   * Record the response of the latest exchange
+   *
+   * @param statusCode The status code of the response
+   * @param errorCode  The error code in the body of the response, null if there is none
+   */
+  public void exchanged(int statusCode, String errorCode) {
+    this.status = String.valueOf(statusCode);
+    this.errorCode = errorCode != null ? errorCode : NONE;
+  }
+
+  /**
+   * Record bytes received in a response body
+   *
+   * @param bytes The amount of bytes received
+   */
+  public void received(long bytes) {
+    responseBytes.addAndGet(bytes);
+  }
+
+  public int getExchanges() {
+    return exchanges.get();
+  }
+
+  public long getResponseBytes() {
+    return responseBytes.get();
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public String getErrorCode() {
+    return errorCode;
+  }
+}
@@ -0,0 +1,114 @@
+package com.deahtstroke.rivenbot.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records metrics for every call made through an HTTP interface client, e.g., {@link BungieClient}
+ * or {@link DiscordClient}. Clients are wrapped in a proxy that times each call from subscription
+ * until it terminates and tags it with the name of the client and of the interface method, never
+ * with its arguments, so that the amount of series stays bounded.
+ * <br>
+ * The status code, error code, response size and retries of a call are only known to the WebClient
+ * that makes it, the client's WebClient must have the
+ * {@link com.deahtstroke.rivenbot.filter.ClientMetricsFilterFunction} for them to be reported.
+ * Service level objectives of the latency histogram are configured through
+ * {@code management.metrics.distribution.slo.client.calls}.
+ */
+@Component
+public class ClientInstrumentation {
+
+  private static final String CANCELLED = "CANCELLED";
+  private static final String IO_ERROR = "IO_ERROR";
+
+  private final MeterRegistry meterRegistry;
+
+  public ClientInstrumentation(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Wrap a client so that every call that returns a Mono is measured
+   *
+   * @param type       The interface of the client
+   * @param client     The client to instrument
+   * @param clientName Name the metrics of the client are tagged with, e.g., bungie
+   * @param <T>        The type of the client
+   * @return The instrumented client
+   */
+  public <T> T instrument(Class<T> type, T client, String clientName) {
+    Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        (instance, method, args) -> invoke(client, clientName, method, args));
+    return type.cast(proxy);
+  }
+
+  private Object invoke(Object client, String clientName, Method method, Object[] args)
+      throws Throwable {
+    Object result;
+    try {
+      result = method.invoke(client, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+    if (!(result instanceof Mono<?> call)) {
+      return result;
+    }
+    return measure(clientName, method.getName(), call);
+  }
+
+  /**
+   * Measure a call that is made straight through a WebClient instead of an HTTP interface client,
+   * e.g., to stream its response body
+   *
+   * @param clientName Name the metrics of the call are tagged with, e.g., bungie-stats
+   * @param method     Name of the call the metrics are tagged with
+   * @param call       The call to measure
+   * @param <T>        The type of the response
+   * @return The measured call
+   */
+  public <T> Mono<T> measure(String clientName, String method, Mono<T> call) {
+    return Mono.defer(() -> {
+      ClientCallMetrics metrics = new ClientCallMetrics();
+      long start = System.nanoTime();
+      return call
+          .doFinally(signal -> record(clientName, method, metrics, signal, start))
+          .contextWrite(ClientCallMetrics.with(metrics));
+    });
+  }
+
+  private void record(String clientName, String method, ClientCallMetrics metrics,
+      SignalType signal, long start) {
+    String status = metrics.getStatus();
+    if (signal == SignalType.CANCEL) {
+      status = CANCELLED;
+    } else if (signal == SignalType.ON_ERROR && ClientCallMetrics.NONE.equals(status)) {
+      // The call failed before any response came back, e.g., a timeout or a refused connection
+      status = IO_ERROR;
+    }
+    Timer.builder("client.calls")
+        .description("Time taken by calls to external APIs, retries included")
+        .tags("client", clientName, "method", method, "status", status,
+            "errorCode", metrics.getErrorCode())
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("client.response.size")
+        .description("Size of the response bodies received by calls to external APIs")
+        .baseUnit("bytes")
+        .tags("client", clientName, "method", method)
+        .register(meterRegistry)
+        .record(metrics.getResponseBytes());
+    DistributionSummary.builder("client.retries")
+        .description("Amount of times calls to external APIs were retried")
+        .tags("client", clientName, "method", method)
+        .register(meterRegistry)
+        .record(Math.max(0, metrics.getExchanges() - 1));
+  }
+}
@@ -0,0 +1,107 @@
+package com.deahtstroke.rivenbot.client;
+
+import com.deahtstroke.rivenbot.dto.destiny.ActivitiesResponse;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.ExactUserSearchRequest;
+import com.deahtstroke.rivenbot.dto.destiny.ExactUserSearchResponse;
+import com.deahtstroke.rivenbot.dto.destiny.MemberGroupResponse;
+import com.deahtstroke.rivenbot.dto.destiny.MembershipResponse;
+import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import com.deahtstroke.rivenbot.dto.destiny.SearchResult;
+import com.deahtstroke.rivenbot.dto.destiny.UserGlobalSearchBody;
+import com.deahtstroke.rivenbot.dto.destiny.characters.CharactersResponse;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.DestinyManifest;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.dto.destiny.milestone.MilestoneEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorator for a {@link BungieClient} that coalesces identical GET calls that are in-flight at the
+ * same time through a {@link CallCoalescer}. Concurrent callers that ask for the same method with
+ * the same arguments share one upstream call.
+ * <br>
+ * POST calls are passed through as-is.
+ */
+public class CoalescingBungieClient implements BungieClient {
+
+  private final BungieClient delegate;
+  private final CallCoalescer callCoalescer;
+
+  public CoalescingBungieClient(BungieClient delegate, MeterRegistry meterRegistry,
+      String clientName) {
+    this.delegate = delegate;
+    this.callCoalescer = new CallCoalescer(meterRegistry, clientName);
+  }
+
+  @Override
+  public Mono<BungieResponse<MembershipResponse>> getMembershipInfoById(String membershipId,
+      Integer membershipType) {
+    return callCoalescer.coalesce("getMembershipInfoById",
+        () -> delegate.getMembershipInfoById(membershipId, membershipType),
+        membershipId, membershipType);
+  }
+
+  @Override
+  public Mono<BungieResponse<DestinyManifest>> getManifest() {
+    return callCoalescer.coalesce("getManifest", delegate::getManifest);
+  }
+
+  @Override
+  public Mono<BungieResponse<ManifestResponseFields>> getManifestEntity(String entityType,
+      Long hashIdentifier) {
+    return callCoalescer.coalesce("getManifestEntity",
+        () -> delegate.getManifestEntity(entityType, hashIdentifier),
+        entityType, hashIdentifier);
+  }
+
+  @Override
+  public Mono<BungieResponse<Map<String, MilestoneEntry>>> getPublicMilestones() {
+    return callCoalescer.coalesce("getPublicMilestones", delegate::getPublicMilestones);
+  }
+
+  @Override
+  public Mono<BungieResponse<CharactersResponse>> getUserCharacters(Integer membershipType,
+      String destinyMembershipId) {
+    return callCoalescer.coalesce("getUserCharacters",
+        () -> delegate.getUserCharacters(membershipType, destinyMembershipId),
+        membershipType, destinyMembershipId);
+  }
+
+  @Override
+  public Mono<BungieResponse<SearchResult>> searchByGlobalName(UserGlobalSearchBody searchBody,
+      Integer page) {
+    return delegate.searchByGlobalName(searchBody, page);
+  }
+
+  @Override
+  public Mono<BungieResponse<MemberGroupResponse>> getGroupsForMember(Integer membershipType,
+      String membershipId, Integer filter, Integer groupType) {
+    return callCoalescer.coalesce("getGroupsForMember",
+        () -> delegate.getGroupsForMember(membershipType, membershipId, filter, groupType),
+        membershipType, membershipId, filter, groupType);
+  }
+
+  @Override
+  public Mono<BungieResponse<ActivitiesResponse>> getActivityHistory(Integer membershipType,
+      String destinyMembershipId, String characterId, Integer count, Integer mode, Integer page) {
+    return callCoalescer.coalesce("getActivityHistory",
+        () -> delegate.getActivityHistory(membershipType, destinyMembershipId, characterId, count,
+            mode, page),
+        membershipType, destinyMembershipId, characterId, count, mode, page);
+  }
+
+  @Override
+  public Mono<BungieResponse<PostGameCarnageReport>> getPostGameCarnageReport(Long activityId) {
+    return callCoalescer.coalesce("getPostGameCarnageReport",
+        () -> delegate.getPostGameCarnageReport(activityId), activityId);
+  }
+
+  @Override
+  public Mono<BungieResponse<List<ExactUserSearchResponse>>> searchUserByExactNameAndCode(
+      ExactUserSearchRequest request) {
+    return delegate.searchUserByExactNameAndCode(request);
+  }
+}
@@ -0,0 +1,332 @@
+package com.deahtstroke.rivenbot.client;
+
+import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Follows the rate limits that Discord reports on every response. Discord groups routes into
+ * buckets, and each bucket allows a number of calls until it resets. Calls to a bucket that is
+ * used up are held until it resets, and a global rate limit holds every call. Held calls are let
+ * through in the order they were made, a call never overtakes one that was already waiting on the
+ * same bucket.
+ * <br>
+ * Routes are mapped to their bucket once Discord names it through the {@code X-RateLimit-Bucket}
+ * header. Buckets are split by the major parameters of the route, e.g., the webhook ID and token,
+ * so every interaction response has a bucket of its own. Before the first response a route is its
+ * own bucket, and calls go out as soon as they are made.
+ */
+@Slf4j
+@Component
+public class DiscordRateLimiter {
+
+  private static final String BUCKET_HEADER = "X-RateLimit-Bucket";
+  private static final String LIMIT_HEADER = "X-RateLimit-Limit";
+  private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  private static final String RESET_AFTER_HEADER = "X-RateLimit-Reset-After";
+  private static final String GLOBAL_HEADER = "X-RateLimit-Global";
+  private static final String SCOPE_HEADER = "X-RateLimit-Scope";
+  private static final String GLOBAL_SCOPE = "global";
+  private static final String BUCKET_SCOPE = "user";
+  private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+  private static final Pattern MAJOR_PARAMETERS = Pattern.compile(
+      "/(?:webhooks/\\d+/[^/]+|channels/\\d+|guilds/\\d+)");
+
+  private final Cache<String, String> bucketsByRoute;
+  private final Cache<String, Bucket> buckets;
+  private final AtomicLong globalPausedUntil;
+  private final Timer waitTimer;
+  private final MeterRegistry meterRegistry;
+
+  public DiscordRateLimiter(DiscordConfiguration discordConfiguration,
+      MeterRegistry meterRegistry) {
+    DiscordConfiguration.RateLimit properties = discordConfiguration.getRateLimit();
+    this.bucketsByRoute = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxBuckets())
+        .expireAfterAccess(properties.getBucketExpiry())
+        .build();
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxBuckets())
+        .expireAfterAccess(properties.getBucketExpiry())
+        .build();
+    this.globalPausedUntil = new AtomicLong(0);
+    this.meterRegistry = meterRegistry;
+
+    Gauge.builder("discord.ratelimit.buckets", buckets, Cache::estimatedSize)
+        .description("Amount of Discord rate limit buckets being tracked")
+        .register(meterRegistry);
+    Gauge.builder("discord.ratelimit.exhausted", this, DiscordRateLimiter::exhaustedBuckets)
+        .description("Amount of Discord rate limit buckets with no calls left until they reset")
+        .register(meterRegistry);
+    this.waitTimer = Timer.builder("discord.ratelimit.wait")
+        .description("Time calls to Discord were held back by its rate limits")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Decorates a call to Discord so that it is only subscribed to once the bucket of its route and
+   * the global rate limit allow it
+   *
+   * @param route The method and path of the call, e.g., PATCH /webhooks/1/token/messages/@original
+   * @param call  The call to make to Discord
+   * @param <T>   The type of the response
+   * @return The rate-limited call
+   */
+  public <T> Mono<T> limit(String route, Mono<T> call) {
+    return Mono.defer(() -> {
+      long queuedAt = now();
+      return awaitGlobalPause()
+          .then(Mono.defer(() -> bucket(route).acquire()))
+          .doOnSuccess(ignored -> waitTimer.record(now() - queuedAt, TimeUnit.MILLISECONDS));
+    }).then(call);
+  }
+
+  /**
+   * Record the state of the bucket of a route as reported by the headers of a response
+   *
+   * @param route   The method and path of the call
+   * @param headers The headers of the response
+   */
+  public void onResponse(String route, HttpHeaders headers) {
+    String bucketName = headers.getFirst(BUCKET_HEADER);
+    if (StringUtils.hasText(bucketName)) {
+      bucketsByRoute.put(route, bucketName + majorParameters(route));
+    }
+    Long remaining = parseLong(headers.getFirst(REMAINING_HEADER));
+    Duration resetAfter = parseSeconds(headers.getFirst(RESET_AFTER_HEADER));
+    if (remaining != null && resetAfter != null) {
+      bucket(route).update(parseLong(headers.getFirst(LIMIT_HEADER)), remaining,
+          resetAfter.toMillis(), now());
+    }
+  }
+
+  /**
+   * Record a rate limited response from Discord. Depending on its scope, either the bucket of the
+   * route or every call is held for as long as Discord asked for.
+   *
+   * @param route   The method and path of the call
+   * @param headers The headers of the rate limited response
+   * @return The time Discord asked to wait before trying again
+   */
+  public Duration onRateLimited(String route, HttpHeaders headers) {
+    Duration retryAfter = parseSeconds(headers.getFirst(HttpHeaders.RETRY_AFTER));
+    if (retryAfter == null) {
+      retryAfter = parseSeconds(headers.getFirst(RESET_AFTER_HEADER));
+    }
+    if (retryAfter == null) {
+      retryAfter = DEFAULT_RETRY_AFTER;
+    }
+    long resumeAt = now() + retryAfter.toMillis();
+    boolean global = Boolean.parseBoolean(headers.getFirst(GLOBAL_HEADER))
+        || GLOBAL_SCOPE.equalsIgnoreCase(headers.getFirst(SCOPE_HEADER));
+    if (global) {
+      globalPausedUntil.accumulateAndGet(resumeAt, Math::max);
+    } else {
+      onResponse(route, headers);
+      bucket(route).exhaust(resumeAt);
+    }
+
+    String scope = global ? GLOBAL_SCOPE : headers.getFirst(SCOPE_HEADER);
+    Counter.builder("discord.ratelimit.throttled")
+        .description("Amount of rate limited responses received from Discord")
+        .tag("scope", StringUtils.hasText(scope) ? scope : BUCKET_SCOPE)
+        .register(meterRegistry)
+        .increment();
+    // The route is left out on purpose, webhook routes carry the interaction token
+    log.warn("Discord rate limited a call with scope [{}], retrying after [{}]", scope,
+        retryAfter);
+    return retryAfter;
+  }
+
+  private Mono<Void> awaitGlobalPause() {
+    long globalPauseMillis = globalPausedUntil.get() - now();
+    if (globalPauseMillis <= 0) {
+      return Mono.empty();
+    }
+    return Mono.delay(Duration.ofMillis(globalPauseMillis))
+        .then(Mono.defer(this::awaitGlobalPause));
+  }
+
+  private Bucket bucket(String route) {
+    String bucketKey = bucketsByRoute.getIfPresent(route);
+    return buckets.get(bucketKey != null ? bucketKey : route, key -> new Bucket());
+  }
+
+  private double exhaustedBuckets() {
+    long now = now();
+    return buckets.asMap().values().stream()
+        .filter(bucket -> bucket.isExhausted(now))
+        .count();
+  }
+
+  /**
+   * Current time of the scheduler that delays the held calls, so that waits can be tested in
+   * virtual time
+   */
+  private static long now() {
+    return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+  }
+
+  private static String majorParameters(String route) {
+    Matcher matcher = MAJOR_PARAMETERS.matcher(route);
+    return matcher.find() ? matcher.group() : "";
+  }
+
+  private static Long parseLong(String value) {
+    try {
+      return StringUtils.hasText(value) ? Long.valueOf(value.trim()) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Duration parseSeconds(String value) {
+    try {
+      return StringUtils.hasText(value) ?
+          Duration.ofMillis((long) Math.ceil(Double.parseDouble(value.trim()) * 1000)) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Calls left in a bucket until it resets. A bucket that Discord hasn't reported on yet lets
+   * every call through, once it resets it is assumed to allow its last known limit again. Calls
+   * that find the bucket used up, or other calls already waiting on it, are queued and released
+   * in order whenever the bucket resets.
+   */
+  private static final class Bucket {
+
+    private final Deque<MonoSink<Void>> waiters = new ArrayDeque<>();
+    private Disposable scheduledRelease;
+    private long limit = -1;
+    private long remaining = -1;
+    private long resetAt = 0;
+    private long resetAfter = 0;
+
+    /**
+     * Take a call from the bucket, waiting behind the calls that are already queued
+     *
+     * @return Mono that completes once the call can go out
+     */
+    Mono<Void> acquire() {
+      return Mono.create(sink -> {
+        if (!enqueue(sink)) {
+          sink.success();
+        }
+      });
+    }
+
+    /**
+     * Queue a call unless it can take from the bucket right away
+     *
+     * @param sink The sink that lets the call through
+     * @return True if the call was queued, false if it can go out
+     */
+    private synchronized boolean enqueue(MonoSink<Void> sink) {
+      if (waiters.isEmpty()) {
+        long waitMillis = tryAcquire(now());
+        if (waitMillis <= 0) {
+          return false;
+        }
+        scheduleRelease(waitMillis);
+      }
+      waiters.addLast(sink);
+      sink.onCancel(() -> cancel(sink));
+      return true;
+    }
+
+    private void release() {
+      List<MonoSink<Void>> released = new ArrayList<>();
+      synchronized (this) {
+        scheduledRelease = null;
+        long now = now();
+        long waitMillis = 0;
+        while (!waiters.isEmpty() && (waitMillis = tryAcquire(now)) <= 0) {
+          released.add(waiters.pollFirst());
+        }
+        if (!waiters.isEmpty()) {
+          scheduleRelease(waitMillis);
+        }
+      }
+      released.forEach(MonoSink::success);
+    }
+
+    private synchronized void cancel(MonoSink<Void> sink) {
+      waiters.remove(sink);
+      if (waiters.isEmpty() && scheduledRelease != null) {
+        scheduledRelease.dispose();
+        scheduledRelease = null;
+      }
+    }
+
+    private void scheduleRelease(long waitMillis) {
+      if (scheduledRelease == null) {
+        scheduledRelease = Schedulers.parallel()
+            .schedule(this::release, waitMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    /**
+     * Take a call from the bucket
+     *
+     * @param now The current time in milliseconds
+     * @return 0 if the call can go out, otherwise the milliseconds until the bucket resets
+     */
+    private synchronized long tryAcquire(long now) {
+      if (resetAt <= now) {
+        remaining = limit;
+        resetAt = now + resetAfter;
+      }
+      if (remaining < 0) {
+        return 0;
+      }
+      if (remaining > 0) {
+        remaining--;
+        return 0;
+      }
+      return Math.max(1, resetAt - now);
+    }
+
+    synchronized void update(Long limit, long remaining, long resetAfter, long now) {
+      if (limit != null) {
+        this.limit = limit;
+      }
+      // Calls that went out after Discord answered this one already took from the bucket
+      boolean sameWindow = this.resetAt > now && this.remaining >= 0;
+      this.remaining = sameWindow ? Math.min(this.remaining, remaining) : remaining;
+      this.resetAt = now + resetAfter;
+      this.resetAfter = resetAfter;
+    }
+
+    synchronized void exhaust(long resetAt) {
+      this.remaining = 0;
+      this.resetAt = Math.max(this.resetAt, resetAt);
+    }
+
+    synchronized boolean isExhausted(long now) {
+      return remaining == 0 && resetAt > now;
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package com.deahtstroke.rivenbot.codec;
+
+import com.deahtstroke.rivenbot.dto.destiny.Basic;
+import com.deahtstroke.rivenbot.dto.destiny.DestinyUserInfo;
+import com.deahtstroke.rivenbot.dto.destiny.PGCREntry;
+import com.deahtstroke.rivenbot.dto.destiny.PlayerPGCREntry;
+import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import com.deahtstroke.rivenbot.dto.destiny.ValueEntry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streaming parser for Post Game Carnage Report responses. The body is fed chunk by chunk to
+ * Jackson's non-blocking parser and only the fields that end up in a
+ * {@link com.deahtstroke.rivenbot.entity.PGCRDetails} are extracted: the period, whether the
+ * activity was started from the beginning, and the identity, kills and deaths of every entry.
+ * <br>
+ * Every chunk is released as soon as it's parsed. Once the entries have been parsed the rest of
+ * the body is read and discarded without being parsed, the body is never cancelled, so the
+ * connection is returned to the pool instead of being closed.
+ */
+@Component
+public class PostGameCarnageReportParser {
+
+  /**
+   * Maximum amount of bytes read from a single report before giving up
+   */
+  private static final int MAX_REPORT_BYTES = 1024 * 1024;
+
+  private static final String RESPONSE = "Response";
+  private static final String ENTRIES = "entries";
+  private static final String PLAYER = "player";
+  private static final String DESTINY_USER_INFO = "destinyUserInfo";
+  private static final String VALUES = "values";
+  private static final String BASIC = "basic";
+  private static final String VALUE = "value";
+  private static final String KILLS = "kills";
+  private static final String DEATHS = "deaths";
+
+  private final JsonFactory jsonFactory;
+
+  public PostGameCarnageReportParser(ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  /**
+   * Parse a Post Game Carnage Report response body
+   *
+   * @param body The chunks of the response body
+   * @return {@link PostGameCarnageReport} or empty if the response has no report
+   */
+  public Mono<PostGameCarnageReport> parse(Flux<DataBuffer> body) {
+    return Mono.defer(() -> {
+      ParsingState state;
+      try {
+        state = new ParsingState(jsonFactory.createNonBlockingByteBufferParser());
+      } catch (IOException e) {
+        return Mono.error(e);
+      }
+      return body
+          .<Boolean>handle((dataBuffer, sink) -> {
+            try {
+              state.feed(dataBuffer);
+            } catch (IOException e) {
+              sink.error(e);
+            } finally {
+              DataBufferUtils.release(dataBuffer);
+            }
+          })
+          .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+          .then(Mono.fromCallable(state::finish))
+          .doFinally(signal -> state.close());
+    });
+  }
+
+  /**
+   * Whether the context of the current token is exactly the given path of field names, starting
+   * from the innermost field. A null element in the path stands for an array.
+   */
+  private static boolean matches(JsonStreamContext context, String... path) {
+    JsonStreamContext current = context;
+    for (String name : path) {
+      if (Objects.isNull(current)) {
+        return false;
+      }
+      if (Objects.isNull(name)) {
+        if (!current.inArray()) {
+          return false;
+        }
+      } else if (!current.inObject() || !name.equals(current.getCurrentName())) {
+        return false;
+      }
+      current = current.getParent();
+    }
+    return Objects.nonNull(current) && current.inRoot();
+  }
+
+  private static class ParsingState {
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    private PostGameCarnageReport report;
+    private PGCREntry currentEntry;
+    private boolean done;
+    private int bytesRead;
+
+    ParsingState(JsonParser parser) {
+      this.parser = parser;
+      this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed a chunk to the parser and consume every token available, chunks that come after
+     * everything that's needed was parsed are skipped
+     *
+     * @return true once everything that's needed was parsed
+     */
+    boolean feed(DataBuffer dataBuffer) throws IOException {
+      if (done) {
+        return true;
+      }
+      bytesRead += dataBuffer.readableByteCount();
+      if (bytesRead > MAX_REPORT_BYTES) {
+        throw new DataBufferLimitException(
+            "Post Game Carnage Report exceeded the limit of [%s] bytes".formatted(
+                MAX_REPORT_BYTES));
+      }
+      try (DataBuffer.ByteBufferIterator byteBuffers = dataBuffer.readableByteBuffers()) {
+        while (byteBuffers.hasNext()) {
+          feeder.feedInput(byteBuffers.next());
+          if (consumeTokens()) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    PostGameCarnageReport finish() throws IOException {
+      if (!done) {
+        feeder.endOfInput();
+        consumeTokens();
+      }
+      return report;
+    }
+
+    void close() {
+      try {
+        parser.close();
+      } catch (IOException ignored) {
+        // Nothing is left to read, closing only releases Jackson's internal buffers
+      }
+    }
+
+    private boolean consumeTokens() throws IOException {
+      JsonToken token;
+      while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+        if (Objects.isNull(token)) {
+          done = true;
+        } else {
+          handle(token);
+        }
+      }
+      return done;
+    }
+
+    private void handle(JsonToken token) throws IOException {
+      JsonStreamContext context = parser.getParsingContext();
+      switch (token) {
+        case START_OBJECT -> {
+          if (matches(context.getParent(), RESPONSE)) {
+            report = new PostGameCarnageReport(null, null, new ArrayList<>());
+          } else if (Objects.nonNull(report) && matches(context.getParent(), null, ENTRIES,
+              RESPONSE)) {
+            currentEntry = new PGCREntry(null,
+                new PlayerPGCREntry(new DestinyUserInfo(), null, null), new HashMap<>());
+            report.getEntries().add(currentEntry);
+          }
+        }
+        case END_ARRAY -> {
+          // Entries come after the fields of the report itself, the rest is not needed
+          if (matches(context, ENTRIES, RESPONSE) && Objects.nonNull(report.getPeriod())
+              && Objects.nonNull(report.getActivityWasStartedFromBeginning())) {
+            done = true;
+          }
+        }
+        case END_OBJECT -> {
+          if (matches(context, RESPONSE)) {
+            done = true;
+          }
+        }
+        case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE ->
+            handleValue(context);
+        default -> {
+          // Field names and nulls carry nothing to extract
+        }
+      }
+    }
+
+    private void handleValue(JsonStreamContext context) throws IOException {
+      if (Objects.isNull(report)) {
+        return;
+      }
+      if (matches(context, "period", RESPONSE)) {
+        report.setPeriod(Instant.parse(parser.getText()));
+      } else if (matches(context, "activityWasStartedFromBeginning", RESPONSE)) {
+        report.setActivityWasStartedFromBeginning(parser.getValueAsBoolean());
+      } else if (Objects.nonNull(currentEntry)) {
+        handleEntryValue(context);
+      }
+    }
+
+    private void handleEntryValue(JsonStreamContext context) throws IOException {
+      DestinyUserInfo userInfo = currentEntry.getPlayer().getDestinyUserInfo();
+      String field = context.getCurrentName();
+      if (matches(context, field, DESTINY_USER_INFO, PLAYER, null, ENTRIES, RESPONSE)) {
+        switch (field) {
+          case "bungieGlobalDisplayName" -> userInfo.setBungieGlobalDisplayName(parser.getText());
+          case "bungieGlobalDisplayNameCode" ->
+              userInfo.setBungieGlobalDisplayNameCode(parser.getValueAsInt());
+          case "iconPath" -> userInfo.setIconPath(parser.getText());
+          case "membershipType" -> userInfo.setMembershipType(parser.getValueAsInt());
+          case "membershipId" -> userInfo.setMembershipId(parser.getValueAsLong());
+          default -> {
+            // Not used by the Post Game Carnage Report details
+          }
+        }
+      } else if (matches(context, VALUE, BASIC, KILLS, VALUES, null, ENTRIES, RESPONSE)) {
+        currentEntry.getValues().put(KILLS,
+            new ValueEntry(KILLS, new Basic(parser.getValueAsDouble(), null)));
+      } else if (matches(context, VALUE, BASIC, DEATHS, VALUES, null, ENTRIES, RESPONSE)) {
+        currentEntry.getValues().put(DEATHS,
+            new ValueEntry(DEATHS, new Basic(parser.getValueAsDouble(), null)));
+      }
+    }
+  }
+}
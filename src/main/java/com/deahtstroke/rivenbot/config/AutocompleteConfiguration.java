@@ -0,0 +1,51 @@
+package com.deahtstroke.rivenbot.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "autocomplete")
+public class AutocompleteConfiguration {
+
+  /**
+   * Maximum amount of players kept in the local name index, the players seen the least are evicted
+   * past this size
+   */
+  private Long maxIndexedPlayers = 50_000L;
+
+  /**
+   * If the name index should be seeded with the participants of the latest stored Post Game
+   * Carnage Reports when the application starts
+   */
+  private Boolean loadOnStartup = true;
+
+  /**
+   * Amount of the latest stored Post Game Carnage Reports that seed the name index on startup
+   */
+  private Integer startupReports = 2_000;
+
+  /**
+   * Time budget for results coming from Bungie, whatever was found by then is returned. Discord
+   * drops autocomplete responses that take longer than 3 seconds
+   */
+  private Duration deadline = Duration.ofMillis(2_000);
+
+  /**
+   * Time budget for looking up the clan of a single search result, results whose clan is not
+   * found in time are returned without it
+   */
+  private Duration clanLookupTimeout = Duration.ofMillis(800);
+
+  /**
+   * Time the choices for a prefix are reused since they were computed
+   */
+  private Duration resultTtl = Duration.ofSeconds(30);
+
+  /**
+   * Maximum amount of prefixes whose choices are cached
+   */
+  private Long maxCachedResults = 1_000L;
+}
@@ -1,6 +1,14 @@
 package com.deahtstroke.rivenbot.config;
 
 import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.client.ClientInstrumentation;
+import com.deahtstroke.rivenbot.client.CoalescingBungieClient;
+import com.deahtstroke.rivenbot.enums.ManifestEntity;
+import com.deahtstroke.rivenbot.filter.BungieThrottleFilterFunction;
+import com.deahtstroke.rivenbot.filter.ClientMetricsFilterFunction;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +20,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.support.WebClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Data
 @Configuration
@@ -63,49 +72,265 @@ public class BungieConfiguration {
    */
   private String callbackUrl;
 
+  /**
+   * Settings for the connection pool shared by all Bungie clients
+   */
+  private ConnectionPool connectionPool = new ConnectionPool();
+
+  /**
+   * Settings for the adaptive rate limiter that governs every call made to Bungie
+   */
+  private RateLimit rateLimit = new RateLimit();
+
+  /**
+   * Settings for the local copy of the Destiny Manifest
+   */
+  private Manifest manifest = new Manifest();
+
+  /**
+   * Settings for the precomputed weekly activities
+   */
+  private WeeklyActivities weeklyActivities = new WeeklyActivities();
+
+  /**
+   * Connection pool shared by every client that talks to Bungie.net, connections are kept alive
+   * and reused so that long history syncs don't pay a new TCP+TLS handshake on every call. Pool
+   * gauges are registered in Micrometer under the name of the pool.
+   *
+   * @return {@link ConnectionProvider}
+   */
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider bungieConnectionProvider() {
+    return ConnectionProvider.builder(connectionPool.getName())
+        .maxConnections(connectionPool.getMaxConnections())
+        .maxIdleTime(connectionPool.getMaxIdleTime())
+        .maxLifeTime(connectionPool.getMaxLifeTime())
+        .pendingAcquireMaxCount(connectionPool.getPendingAcquireMaxCount())
+        .pendingAcquireTimeout(connectionPool.getPendingAcquireTimeout())
+        .evictInBackground(connectionPool.getEvictInBackground())
+        .metrics(true)
+        .build();
+  }
+
   /**
    * Default bungie client used to make general API calls to Bungie.net
    *
-   * @param builder The default WebClient.Builder defined in the main application
+   * @param builder                  The default WebClient.Builder defined in the main
+   *                                 application
+   * @param bungieConnectionProvider The connection pool shared by all Bungie clients
+   * @param throttleFilterFunction   The filter that rate limits calls to Bungie
+   * @param metricsFilterFunction    The filter that reports the exchanges of each call
+   * @param clientInstrumentation    Instrumentation that records the metrics of each call
+   * @param meterRegistry            Registry for the coalesced calls metrics
    * @return {@link BungieClient}
    */
   @Bean("defaultBungieClient")
-  public BungieClient bungieCharacterClient(WebClient.Builder builder) {
-    HttpClient httpClient = HttpClient.create()
-        .keepAlive(false);
+  public BungieClient bungieCharacterClient(WebClient.Builder builder,
+      ConnectionProvider bungieConnectionProvider,
+      BungieThrottleFilterFunction throttleFilterFunction,
+      ClientMetricsFilterFunction metricsFilterFunction,
+      ClientInstrumentation clientInstrumentation, MeterRegistry meterRegistry) {
     var webClient = builder
         .baseUrl(this.baseUrl)
-        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .clientConnector(bungieConnector(bungieConnectionProvider))
+        .filter(throttleFilterFunction)
+        .filter(metricsFilterFunction)
         .defaultHeader(API_KEY_HEADER_NAME, this.key)
         .codecs(clientCodecConfigurer -> clientCodecConfigurer.defaultCodecs()
             .maxInMemorySize(1024 * 512))
         .build();
-    return HttpServiceProxyFactory.builder()
+    BungieClient client = HttpServiceProxyFactory.builder()
         .exchangeAdapter(WebClientAdapter.create(webClient))
         .build()
         .createClient(BungieClient.class);
+    return new CoalescingBungieClient(
+        clientInstrumentation.instrument(BungieClient.class, client, "bungie"),
+        meterRegistry, "default");
   }
 
   /**
-   * Bungie client used to make API calls to the stats.bungie.net domain
+   * WebClient used to make API calls to the stats.bungie.net domain, this is where Post Game
+   * Carnage Reports are served from. Reports are streamed straight from the WebClient, so their
+   * calls are measured by the {@link com.deahtstroke.rivenbot.service.PostGameCarnageService}
    *
-   * @param builder The default WebClient.Builder defined in the main application
-   * @return {@link BungieClient}
+   * @param builder                  The default WebClient.Builder defined in the main
+   *                                 application
+   * @param bungieConnectionProvider The connection pool shared by all Bungie clients
+   * @param throttleFilterFunction   The filter that rate limits calls to Bungie
+   * @param metricsFilterFunction    The filter that reports the exchanges of each call
+   * @return {@link WebClient}
    */
-  @Bean(name = "pgcrBungieClient")
-  public BungieClient pgcrBungieClient(WebClient.Builder builder) {
-    // Don't keep alive connections with Bungie.net
-    var webClient = builder
+  @Bean(name = "pgcrWebClient")
+  public WebClient pgcrWebClient(WebClient.Builder builder,
+      ConnectionProvider bungieConnectionProvider,
+      BungieThrottleFilterFunction throttleFilterFunction,
+      ClientMetricsFilterFunction metricsFilterFunction) {
+    return builder
         .baseUrl(this.statsBaseUrl)
+        .clientConnector(bungieConnector(bungieConnectionProvider))
+        .filter(throttleFilterFunction)
+        .filter(metricsFilterFunction)
         .defaultHeader(API_KEY_HEADER_NAME, this.key)
         .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
         .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
         .codecs(clientCodecConfigurer -> clientCodecConfigurer.defaultCodecs()
             .maxInMemorySize(1024 * 1024 * 10))
         .build();
-    return HttpServiceProxyFactory.builder()
-        .exchangeAdapter(WebClientAdapter.create(webClient))
-        .build()
-        .createClient(BungieClient.class);
+  }
+
+  /**
+   * WebClient used to download the content of the Destiny Manifest, the content is served as
+   * static files from Bungie's CDN so it's not rate limited like the rest of the API
+   *
+   * @param builder                  The default WebClient.Builder defined in the main
+   *                                 application
+   * @param bungieConnectionProvider The connection pool shared by all Bungie clients
+   * @return {@link WebClient}
+   */
+  @Bean(name = "manifestWebClient")
+  public WebClient manifestWebClient(WebClient.Builder builder,
+      ConnectionProvider bungieConnectionProvider) {
+    return builder
+        .baseUrl(this.manifest.getContentBaseUrl())
+        .clientConnector(bungieConnector(bungieConnectionProvider))
+        .build();
+  }
+
+  private ReactorClientHttpConnector bungieConnector(ConnectionProvider connectionProvider) {
+    HttpClient httpClient = HttpClient.create(connectionProvider)
+        .keepAlive(true);
+    return new ReactorClientHttpConnector(httpClient);
+  }
+
+  @Data
+  public static class ConnectionPool {
+
+    /**
+     * Name of the pool, also used as the name of the pool metrics
+     */
+    private String name = "bungie";
+
+    /**
+     * Maximum amount of connections open at the same time
+     */
+    private Integer maxConnections = 50;
+
+    /**
+     * Time after which an idle connection is evicted from the pool
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * Time after which a connection is closed regardless of it being idle or not
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * Maximum amount of requests waiting for a connection before they start being rejected
+     */
+    private Integer pendingAcquireMaxCount = 500;
+
+    /**
+     * Maximum time a request waits for a connection before failing
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    /**
+     * Interval in which expired connections are evicted in the background
+     */
+    private Duration evictInBackground = Duration.ofSeconds(30);
+  }
+
+  @Data
+  public static class RateLimit {
+
+    /**
+     * Permits per refresh period handed out when the application starts
+     */
+    private Integer initialLimitForPeriod = 20;
+
+    /**
+     * The limit never goes below this amount of permits per refresh period
+     */
+    private Integer minLimitForPeriod = 2;
+
+    /**
+     * The limit never goes above this amount of permits per refresh period
+     */
+    private Integer maxLimitForPeriod = 60;
+
+    /**
+     * The period in which permits are refreshed
+     */
+    private Duration limitRefreshPeriod = Duration.ofSeconds(1);
+
+    /**
+     * Amount of permits added after a full period of successful calls
+     */
+    private Integer additiveIncrease = 1;
+
+    /**
+     * Factor the limit is multiplied by whenever Bungie throttles the application
+     */
+    private Double multiplicativeDecrease = 0.5;
+
+    /**
+     * Pause applied to every call when Bungie throttles without saying for how long
+     */
+    private Duration defaultThrottlePause = Duration.ofSeconds(1);
+
+    /**
+     * Maximum time a call waits for a permit before failing
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+  }
+
+  @Data
+  public static class Manifest {
+
+    /**
+     * Whether the manifest should be downloaded when the application starts
+     */
+    private Boolean loadOnStartup = true;
+
+    /**
+     * Whether Bungie should be periodically checked for new versions of the manifest
+     */
+    private Boolean watchVersion = true;
+
+    /**
+     * Interval in which Bungie is checked for new versions of the manifest
+     */
+    private Duration versionCheckInterval = Duration.ofHours(1);
+
+    /**
+     * Directory where the manifest stores are written to
+     */
+    private String directory = "manifest";
+
+    /**
+     * Locale of the manifest content to download
+     */
+    private String locale = "en";
+
+    /**
+     * Base url the manifest content paths are relative to
+     */
+    private String contentBaseUrl = "https://www.bungie.net";
+
+    /**
+     * Manifest entities that are served locally, the rest are retrieved from Bungie
+     */
+    private List<ManifestEntity> entities = List.of(ManifestEntity.ACTIVITY_DEFINITION,
+        ManifestEntity.ACTIVITY_TYPE_DEFINITION, ManifestEntity.MILESTONE_DEFINITION);
+  }
+
+  @Data
+  public static class WeeklyActivities {
+
+    /**
+     * Whether the weekly raid and dungeon should be precomputed when the application starts
+     */
+    private Boolean precomputeOnStartup = true;
   }
 }
@@ -0,0 +1,87 @@
+package com.deahtstroke.rivenbot.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheConfiguration {
+
+  /**
+   * Settings applied to caches that don't have their own entry in {@link #caches}
+   */
+  private CacheSpec defaults = new CacheSpec();
+
+  /**
+   * Settings for every cache, keyed by the name of the cache
+   */
+  private Map<String, CacheSpec> caches = new HashMap<>();
+
+  /**
+   * Settings of the Redis cache of raid stats responses
+   */
+  private RaidStatsCacheSpec raidStats = new RaidStatsCacheSpec();
+
+  /**
+   * In-memory cache manager backed by Caffeine. Caches run in async mode so that methods returning
+   * a Mono cache the emitted value instead of the Mono itself, errors and empty results are never
+   * cached. Every cache is bounded in size and time and records stats that are published as cache
+   * metrics by actuator.
+   *
+   * @return {@link CacheManager}
+   */
+  @Bean
+  public CacheManager inMemoryCacheManager() {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    cacheManager.setAsyncCacheMode(true);
+    cacheManager.setAllowNullValues(false);
+    cacheManager.setCaffeine(caffeine(defaults));
+    caches.forEach((name, spec) ->
+        cacheManager.registerCustomCache(name, caffeine(spec).buildAsync()));
+    return cacheManager;
+  }
+
+  private Caffeine<Object, Object> caffeine(CacheSpec spec) {
+    return Caffeine.newBuilder()
+        .maximumSize(spec.getMaxSize())
+        .expireAfterWrite(spec.getTtl())
+        .recordStats();
+  }
+
+  @Data
+  public static class CacheSpec {
+
+    /**
+     * Maximum amount of entries in the cache, least valuable entries are evicted past this size
+     */
+    private Long maxSize = 1_000L;
+
+    /**
+     * Time after which an entry expires since it was written
+     */
+    private Duration ttl = Duration.ofHours(1);
+  }
+
+  @Data
+  public static class RaidStatsCacheSpec {
+
+    /**
+     * Age after which a cached response is still served but refreshed in the background
+     */
+    private Duration softTtl = Duration.ofMinutes(15);
+
+    /**
+     * Time after which a cached response is removed from Redis since it was written
+     */
+    private Duration ttl = Duration.ofDays(7);
+  }
+}
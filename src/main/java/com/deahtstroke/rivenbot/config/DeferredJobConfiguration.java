@@ -0,0 +1,33 @@
+package com.deahtstroke.rivenbot.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "jobs.deferred")
+public class DeferredJobConfiguration {
+
+  /**
+   * Maximum amount of deferred interaction jobs that run at the same time
+   */
+  private Integer maxConcurrency = 4;
+
+  /**
+   * Maximum amount of jobs waiting for a free slot, interactions beyond it are turned down
+   */
+  private Integer queueCapacity = 64;
+
+  /**
+   * Time a job has to finish since it was submitted, waiting in the queue included. Interaction
+   * tokens are valid for 15 minutes, after that a job can't edit its response anymore
+   */
+  private Duration timeout = Duration.ofMinutes(14);
+
+  /**
+   * Time the application waits on shutdown for the users of cancelled jobs to be told about it
+   */
+  private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -1,6 +1,10 @@
 package com.deahtstroke.rivenbot.config;
 
+import com.deahtstroke.rivenbot.client.ClientInstrumentation;
 import com.deahtstroke.rivenbot.client.DiscordClient;
+import com.deahtstroke.rivenbot.filter.ClientMetricsFilterFunction;
+import com.deahtstroke.rivenbot.filter.DiscordRateLimitFilterFunction;
+import java.time.Duration;
 import java.util.List;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -65,14 +69,61 @@ public class DiscordConfiguration {
    */
   private Long applicationId;
 
+  /**
+   * How often the deferred response of a long-running command is edited with its progress. Discord
+   * rate limits edits of the same webhook message, so this should stay above a second or two
+   */
+  private Duration progressInterval = Duration.ofSeconds(3);
+
+  /**
+   * Settings for following the rate limits Discord reports on its responses
+   */
+  private RateLimit rateLimit = new RateLimit();
+
+  /**
+   * Client for Discord's API, every call is paced by the rate limit buckets Discord reports
+   *
+   * @param defaultBuilder          The default WebClient.Builder defined in the main application
+   * @param rateLimitFilterFunction The filter that follows Discord's rate limits
+   * @param metricsFilterFunction   The filter that reports the exchanges of each call
+   * @param clientInstrumentation   Instrumentation that records the metrics of each call
+   * @return {@link DiscordClient}
+   */
   @Bean
-  public DiscordClient discordClient(WebClient.Builder defaultBuilder) {
+  public DiscordClient discordClient(WebClient.Builder defaultBuilder,
+      DiscordRateLimitFilterFunction rateLimitFilterFunction,
+      ClientMetricsFilterFunction metricsFilterFunction,
+      ClientInstrumentation clientInstrumentation) {
     var webClient = defaultBuilder
         .baseUrl(this.baseUrl)
+        .filter(rateLimitFilterFunction)
+        .filter(metricsFilterFunction)
         .build();
-    return HttpServiceProxyFactory.builder()
+    DiscordClient client = HttpServiceProxyFactory.builder()
         .exchangeAdapter(WebClientAdapter.create(webClient))
         .build()
         .createClient(DiscordClient.class);
+    return clientInstrumentation.instrument(DiscordClient.class, client, "discord");
+  }
+
+  @Data
+  public static class RateLimit {
+
+    /**
+     * Times a call that Discord rate limited is retried, each retry waits for as long as Discord
+     * asked for
+     */
+    private Integer maxRetries = 3;
+
+    /**
+     * Time the state of a bucket is kept since it was last used. Interaction webhooks, which get
+     * a bucket each, are only valid for 15 minutes
+     */
+    private Duration bucketExpiry = Duration.ofMinutes(15);
+
+    /**
+     * Maximum amount of buckets tracked at once
+     */
+    private Long maxBuckets = 10_000L;
   }
 }
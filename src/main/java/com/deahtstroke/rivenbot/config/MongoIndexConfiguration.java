@@ -0,0 +1,17 @@
+package com.deahtstroke.rivenbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "mongo.indexes")
+public class MongoIndexConfiguration {
+
+  /**
+   * If the indexes declared on the entities should be created when the application starts, this
+   * doesn't depend on the migrations being enabled
+   */
+  private Boolean ensureOnStartup = true;
+}
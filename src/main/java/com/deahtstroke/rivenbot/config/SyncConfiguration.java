@@ -0,0 +1,34 @@
+package com.deahtstroke.rivenbot.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sync")
+public class SyncConfiguration {
+
+  /**
+   * Time a replica holds the sync lease of a user without renewing it. The lease is renewed while
+   * the sync runs, so this only bounds how long a crashed replica blocks the user
+   */
+  private Duration leaseTtl = Duration.ofMinutes(2);
+
+  /**
+   * How often replicas waiting on another replica's sync check whether it finished
+   */
+  private Duration pollInterval = Duration.ofSeconds(1);
+
+  /**
+   * Time a replica waits on another replica's sync before giving up on it, this way requests
+   * don't wait forever on a sync whose owner hangs while it keeps renewing its lease
+   */
+  private Duration maxWait = Duration.ofMinutes(5);
+
+  /**
+   * Time a finished sync is shared with later requests before a new sync is started
+   */
+  private Duration completedTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,29 @@
+package com.deahtstroke.rivenbot.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+@Configuration
+public class TracingConfiguration {
+
+  /**
+   * Observe every command sent to Mongo. The reactive driver doesn't run commands on the thread
+   * that issued them, the context provider hands the observation in the Reactor Context of the
+   * caller to the command listener so that commands become spans of the work that issued them,
+   * e.g., the interaction being answered.
+   *
+   * @param observationRegistry The observation registry
+   * @return {@link MongoClientSettingsBuilderCustomizer}
+   */
+  @Bean
+  public MongoClientSettingsBuilderCustomizer mongoObservationCustomizer(
+      ObservationRegistry observationRegistry) {
+    return builder -> builder
+        .contextProvider(ContextProviderFactory.create(observationRegistry))
+        .addCommandListener(new MongoObservationCommandListener(observationRegistry));
+  }
+}
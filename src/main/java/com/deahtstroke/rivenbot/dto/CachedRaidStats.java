@@ -0,0 +1,52 @@
+package com.deahtstroke.rivenbot.dto;
+
+import com.deahtstroke.rivenbot.dto.discord.EmbeddedField;
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CachedRaidStats {
+
+  /**
+   * The unique Bungie name of the user, e.g., Deaht#8080
+   */
+  private String uniqueName;
+
+  /**
+   * The membershipType of the Destiny 2 user
+   */
+  private Integer membershipType;
+
+  /**
+   * The membershipId of the Destiny 2 user
+   */
+  private String membershipId;
+
+  /**
+   * Url of the Bungie.net profile picture of the user
+   */
+  private String iconUrl;
+
+  /**
+   * The statistics of every raid the user has played
+   */
+  private List<RaidStatistics> statistics;
+
+  /**
+   * The rendered embed fields for the statistics, one per raid
+   */
+  private List<EmbeddedField> fields;
+
+  /**
+   * When the statistics were computed
+   */
+  private Instant computedAt;
+}
@@ -0,0 +1,23 @@
+package com.deahtstroke.rivenbot.dto.destiny.manifest;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DestinyManifest {
+
+  /**
+   * Version of the manifest, changes every time Bungie publishes new content
+   */
+  private String version;
+
+  /**
+   * Relative paths to the JSON content of every manifest entity, keyed by locale and then by entity
+   * name
+   */
+  private Map<String, Map<String, String>> jsonWorldComponentContentPaths;
+}
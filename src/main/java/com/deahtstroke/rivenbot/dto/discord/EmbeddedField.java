@@ -1,10 +1,14 @@
 package com.deahtstroke.rivenbot.dto.discord;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class EmbeddedField {
 
   private String name;
@@ -0,0 +1,24 @@
+package com.deahtstroke.rivenbot.entity;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CharacterSyncCursor {
+
+  /**
+   * The instance ID of the newest raid activity that was synced for the character
+   */
+  private Long instanceId;
+
+  /**
+   * The period of the newest raid activity that was synced for the character
+   */
+  private Instant period;
+}
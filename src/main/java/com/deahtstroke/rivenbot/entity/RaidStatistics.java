@@ -1,23 +1,36 @@
 package com.deahtstroke.rivenbot.entity;
 
-import java.util.Set;
+import java.util.Objects;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@Document(collection = "raid_statistics")
+@CompoundIndex(name = "user_raid", def = "{'userIdentifier': 1, 'raidName': 1}", unique = true)
 public class RaidStatistics {
 
-  private static final Set<String> RAIDS_WITH_MASTER_MODE = Set.of(
-      "Vault of Glass", "Vow of the Disciple", "King's Fall", "Root of Nightmares", "Crota's End"
-  );
+  /**
+   * Generated identifier of the document, statistics are looked up by user and raid name
+   */
+  @Id
+  private String id;
+
+  /**
+   * The identifier of the user these statistics belong to, e.g., Deaht#8080
+   */
+  private String userIdentifier;
 
   /**
-   * The _Id of the MongoDB aggregation should be the name of the raid
+   * The name of the raid
    */
-  private String _id;
+  private String raidName;
 
   /**
    * Total amount of kills done for a raid
@@ -59,6 +72,13 @@ public class RaidStatistics {
    */
   private Integer normalClears;
 
+  /**
+   * Whether this raid can be played in master difficulty, this is not stored and is resolved from
+   * the raid catalog
+   */
+  @Transient
+  private Boolean hasMasterMode;
+
   /**
    * This toString uses a StringBuilder to manipulate the actual output to send through Discord
    * chat
@@ -67,8 +87,10 @@ public class RaidStatistics {
    */
   public String toString() {
     StringBuilder fastestRaidDuration = new StringBuilder();
-    int hours = (fastestTime / 3600) % 24;
-    int minutes = (fastestTime / 60) % 60;
+    // Raids that were never fully cleared have no fastest time
+    int fastestSeconds = Objects.requireNonNullElse(fastestTime, 0);
+    int hours = (fastestSeconds / 3600) % 24;
+    int minutes = (fastestSeconds / 60) % 60;
     if (hours > 0) {
       fastestRaidDuration.append(hours).append("hr(s)").append(" ");
     }
@@ -88,11 +110,11 @@ public class RaidStatistics {
         .append("\n");
     raidTemplate.append(":trophy: ").append("Full Clears: ").append(this.fullClears)
         .append("\n");
-    if (RAIDS_WITH_MASTER_MODE.contains(this._id) && normalClears != 0) {
+    if (Boolean.TRUE.equals(this.hasMasterMode) && normalClears != 0) {
       raidTemplate.append(":regional_indicator_n: ").append("Normal Clears: ")
           .append(this.normalClears).append("\n");
     }
-    if (RAIDS_WITH_MASTER_MODE.contains(this._id) && masterClears != 0) {
+    if (Boolean.TRUE.equals(this.hasMasterMode) && masterClears != 0) {
       raidTemplate.append(":regional_indicator_m: ").append("Master Clears: ")
           .append(this.masterClears).append("\n");
     }
@@ -2,7 +2,7 @@ package com.deahtstroke.rivenbot.entity;
 
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.Collection;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -33,7 +33,16 @@ public class UserDetails implements Serializable {
   private Instant lastRequestDateTime;
 
   /**
-   * Collection of user raid data
+   * The newest raid activity synced for each character of this user, keyed by characterId. Users
+   * synced before cursors existed have none and fall back to the last request time
    */
-  private Collection<UserRaidDetails> userRaidDetails;
+  private Map<String, CharacterSyncCursor> syncCursors;
+
+  /**
+   * Whether the materialized raid statistics of this user match its stored raids. Users whose
+   * raids were stored before statistics were materialized, migrated from embedded raids, or whose
+   * last sync stopped before its raids were added to the statistics, have their statistics rebuilt
+   * by their next sync
+   */
+  private Boolean statisticsUpToDate;
 }
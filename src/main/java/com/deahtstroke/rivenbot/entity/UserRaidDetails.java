@@ -6,13 +6,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Document(collection = "user_raid_details")
+@CompoundIndex(name = "user_instance", def = "{'userIdentifier': 1, 'instanceId': 1}",
+    unique = true)
 public class UserRaidDetails implements Serializable {
 
+  /**
+   * Generated identifier of the document, raid entries are looked up by user and instanceId
+   */
+  @Id
+  private String id;
+
+  /**
+   * The identifier of the user this raid entry belongs to, e.g., Deaht#8080
+   */
+  private String userIdentifier;
+
   /**
    * The name of the raid
    */
@@ -0,0 +1,65 @@
+package com.deahtstroke.rivenbot.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.core.io.buffer.DataBuffer;
+
+/**
+ * The last bytes of a response body, kept without consuming the buffers that go through it. Bungie
+ * closes every response with its {@code ErrorCode} and {@code ThrottleSeconds} fields, so they can
+ * be read from the tail of a body that is streamed to the caller untouched.
+ */
+class BodyTail {
+
+  static final int SIZE = 512;
+  static final Pattern ERROR_CODE = Pattern.compile("\"ErrorCode\"\\s*:\\s*(\\d+)");
+  static final Pattern THROTTLE_SECONDS = Pattern.compile("\"ThrottleSeconds\"\\s*:\\s*(\\d+)");
+
+  private final byte[] bytes;
+  private int next;
+  private boolean full;
+
+  BodyTail() {
+    this.bytes = new byte[SIZE];
+  }
+
+  void append(DataBuffer buffer) {
+    int readable = buffer.readableByteCount();
+    int start = buffer.readPosition();
+    for (int i = Math.max(0, readable - bytes.length); i < readable; i++) {
+      bytes[next] = buffer.getByte(start + i);
+      next = (next + 1) % bytes.length;
+      full = full || next == 0;
+    }
+  }
+
+  String asString() {
+    if (!full) {
+      return new String(bytes, 0, next, StandardCharsets.UTF_8);
+    }
+    byte[] ordered = new byte[bytes.length];
+    System.arraycopy(bytes, next, ordered, 0, bytes.length - next);
+    System.arraycopy(bytes, 0, ordered, bytes.length - next, next);
+    return new String(ordered, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The number of the last field in the tail that matches a pattern
+   *
+   * @param pattern Pattern of the field, the number being its first group
+   * @return The number, null if no field matched
+   */
+  Long lastNumber(Pattern pattern) {
+    Matcher matcher = pattern.matcher(asString());
+    Long last = null;
+    while (matcher.find()) {
+      try {
+        last = Long.valueOf(matcher.group(1));
+      } catch (NumberFormatException e) {
+        last = null;
+      }
+    }
+    return last;
+  }
+}
@@ -0,0 +1,127 @@
+package com.deahtstroke.rivenbot.filter;
+
+import com.deahtstroke.rivenbot.client.BungieRateLimiter;
+import com.deahtstroke.rivenbot.dto.destiny.BungieErrorDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Objects;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Filter applied to every WebClient that calls Bungie.net. Each exchange goes through the global
+ * {@link BungieRateLimiter} and the response is inspected for Bungie's throttle error codes so the
+ * rate limiter can adapt to what Bungie currently allows.
+ * <br>
+ * Bungie also reports throttling in successful responses, through the {@code ErrorCode} and
+ * {@code ThrottleSeconds} fields that close every response. Successful bodies are streamed to the
+ * caller untouched, only their last bytes are kept and inspected once the body was read.
+ */
+@Slf4j
+@Component
+public class BungieThrottleFilterFunction implements ExchangeFilterFunction {
+
+  /**
+   * Bungie PlatformErrorCodes that mean the application is being throttled: ThrottleLimitExceeded,
+   * ThrottleLimitExceededMinutes, ThrottleLimitExceededMomentarily, ThrottleLimitExceededSeconds and
+   * the per endpoint/application/user throttle codes
+   */
+  private static final Set<Integer> THROTTLE_ERROR_CODES = Set.of(31, 35, 36, 37, 51, 52, 53, 54,
+      55);
+
+  private final BungieRateLimiter bungieRateLimiter;
+  private final ObjectMapper objectMapper;
+
+  public BungieThrottleFilterFunction(BungieRateLimiter bungieRateLimiter,
+      ObjectMapper objectMapper) {
+    this.bungieRateLimiter = bungieRateLimiter;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    return bungieRateLimiter.limit(next.exchange(request))
+        .flatMap(response -> {
+          if (response.statusCode().is2xxSuccessful()) {
+            return Mono.just(inspectSuccessfulResponse(response));
+          }
+          return inspectErrorResponse(response);
+        });
+  }
+
+  private ClientResponse inspectSuccessfulResponse(ClientResponse response) {
+    return response.mutate()
+        .body(body -> {
+          BodyTail tail = new BodyTail();
+          return body.doOnNext(tail::append)
+              .doFinally(signal -> {
+                // Bodies that were not read until the end have no throttle fields to look at
+                if (signal == SignalType.ON_COMPLETE) {
+                  inspectSuccessfulBody(tail);
+                } else {
+                  bungieRateLimiter.onSuccess();
+                }
+              });
+        })
+        .build();
+  }
+
+  private void inspectSuccessfulBody(BodyTail bodyTail) {
+    Long throttleSeconds = bodyTail.lastNumber(BodyTail.THROTTLE_SECONDS);
+    Long errorCode = bodyTail.lastNumber(BodyTail.ERROR_CODE);
+    boolean throttled = Objects.nonNull(errorCode) &&
+                        THROTTLE_ERROR_CODES.contains(errorCode.intValue());
+    if (throttled || (Objects.nonNull(throttleSeconds) && throttleSeconds > 0)) {
+      bungieRateLimiter.onThrottle(throttleSeconds);
+    } else {
+      bungieRateLimiter.onSuccess();
+    }
+  }
+
+  private Mono<ClientResponse> inspectErrorResponse(ClientResponse response) {
+    return response.bodyToMono(String.class)
+        .defaultIfEmpty("")
+        .map(body -> {
+          BungieErrorDto error = parseError(body);
+          boolean tooManyRequests = response.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+          if (tooManyRequests || isThrottleError(error)) {
+            bungieRateLimiter.onThrottle(
+                Objects.nonNull(error) ? error.getThrottleSeconds() : null);
+          }
+          // The body was already consumed, so it is handed back to the rest of the chain
+          return response.mutate().body(body).build();
+        });
+  }
+
+  private BungieErrorDto parseError(String body) {
+    if (!StringUtils.hasText(body)) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(body, BungieErrorDto.class);
+    } catch (JsonProcessingException e) {
+      log.debug("Bungie error response was not valid Json: [{}]", body);
+      return null;
+    }
+  }
+
+  private boolean isThrottleError(BungieErrorDto error) {
+    if (Objects.isNull(error) || !StringUtils.hasText(error.getErrorCode())) {
+      return false;
+    }
+    try {
+      return THROTTLE_ERROR_CODES.contains(Integer.valueOf(error.getErrorCode().trim()));
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
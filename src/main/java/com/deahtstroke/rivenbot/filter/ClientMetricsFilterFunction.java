@@ -0,0 +1,96 @@
+package com.deahtstroke.rivenbot.filter;
+
+import com.deahtstroke.rivenbot.client.ClientCallMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filter that reports every exchange of a call made through an instrumented client to the
+ * {@link ClientCallMetrics} of the call: the status code, the size of the response body and the
+ * error code in the body, Bungie's {@code ErrorCode} or Discord's {@code code}. Bungie also reports
+ * throttling and maintenance in successful responses, so their {@code ErrorCode} is read from the
+ * tail of the body as it streams to the caller. It should be the last filter of the WebClient so that retries made by the filters
+ * before it are counted. Exchanges made outside an instrumented client are passed through as-is.
+ */
+@Slf4j
+@Component
+public class ClientMetricsFilterFunction implements ExchangeFilterFunction {
+
+  private static final String BUNGIE_ERROR_CODE = "ErrorCode";
+  private static final String DISCORD_ERROR_CODE = "code";
+
+  private final ObjectMapper objectMapper;
+
+  public ClientMetricsFilterFunction(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    return Mono.deferContextual(context -> {
+      ClientCallMetrics metrics = ClientCallMetrics.from(context);
+      if (metrics == null) {
+        return next.exchange(request);
+      }
+      metrics.exchangeStarted();
+      return next.exchange(request)
+          .flatMap(response -> record(metrics, response));
+    });
+  }
+
+  private Mono<ClientResponse> record(ClientCallMetrics metrics, ClientResponse response) {
+    int statusCode = response.statusCode().value();
+    if (response.statusCode().is2xxSuccessful()) {
+      metrics.exchanged(statusCode, null);
+      return Mono.just(response.mutate()
+          .body(body -> {
+            BodyTail tail = new BodyTail();
+            return body.doOnNext(buffer -> {
+                  metrics.received(buffer.readableByteCount());
+                  tail.append(buffer);
+                })
+                .doOnComplete(() -> metrics.exchanged(statusCode, errorCode(tail)));
+          })
+          .build());
+    }
+    return response.bodyToMono(String.class)
+        .defaultIfEmpty("")
+        .map(body -> {
+          metrics.exchanged(statusCode, errorCode(body));
+          metrics.received(body.getBytes(StandardCharsets.UTF_8).length);
+          // The body was already consumed, so it is handed back to the rest of the chain
+          return response.mutate().body(body).build();
+        });
+  }
+
+  private static String errorCode(BodyTail tail) {
+    Long errorCode = tail.lastNumber(BodyTail.ERROR_CODE);
+    return Objects.nonNull(errorCode) ? String.valueOf(errorCode) : null;
+  }
+
+  private String errorCode(String body) {
+    if (!StringUtils.hasText(body)) {
+      return null;
+    }
+    try {
+      JsonNode error = objectMapper.readTree(body);
+      JsonNode errorCode = error.has(BUNGIE_ERROR_CODE) ?
+          error.get(BUNGIE_ERROR_CODE) : error.get(DISCORD_ERROR_CODE);
+      return errorCode != null && errorCode.isValueNode() ? errorCode.asText() : null;
+    } catch (JsonProcessingException e) {
+      log.debug("Error response was not valid Json: [{}]", body);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.deahtstroke.rivenbot.filter;
+
+import com.deahtstroke.rivenbot.client.DiscordRateLimiter;
+import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filter applied to the WebClient that calls Discord. Each exchange waits for its rate limit
+ * bucket through the {@link DiscordRateLimiter}, which learns the state of the buckets from the
+ * headers of every response. Calls that Discord rate limits anyway are retried once Discord's
+ * {@code Retry-After} passes, up to the configured amount of retries.
+ */
+@Component
+public class DiscordRateLimitFilterFunction implements ExchangeFilterFunction {
+
+  private final DiscordRateLimiter discordRateLimiter;
+  private final DiscordConfiguration.RateLimit properties;
+
+  public DiscordRateLimitFilterFunction(DiscordRateLimiter discordRateLimiter,
+      DiscordConfiguration discordConfiguration) {
+    this.discordRateLimiter = discordRateLimiter;
+    this.properties = discordConfiguration.getRateLimit();
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    String route = request.method().name() + " " + request.url().getRawPath();
+    return exchange(route, request, next, 0);
+  }
+
+  private Mono<ClientResponse> exchange(String route, ClientRequest request,
+      ExchangeFunction next, int retries) {
+    return discordRateLimiter.limit(route, Mono.defer(() -> next.exchange(request)))
+        .flatMap(response -> {
+          HttpHeaders headers = response.headers().asHttpHeaders();
+          if (!response.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+            discordRateLimiter.onResponse(route, headers);
+            return Mono.just(response);
+          }
+          discordRateLimiter.onRateLimited(route, headers);
+          if (retries >= properties.getMaxRetries()) {
+            return Mono.just(response);
+          }
+          // The rate limiter holds the retry until Discord's Retry-After passes
+          return response.releaseBody()
+              .then(exchange(route, request, next, retries + 1));
+        });
+  }
+}
@@ -1,7 +1,12 @@
 package com.deahtstroke.rivenbot.filter;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.deahtstroke.rivenbot.config.DiscordConfiguration;
 import com.deahtstroke.rivenbot.util.CryptoUtils;
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
@@ -21,6 +26,12 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Verifies the Ed25519 signature Discord attaches to every interaction. The body is read once,
+ * straight into a buffer that already holds the timestamp in front of it, and the signature is
+ * verified over that buffer. The body part of the same buffer is handed to the handler, and the
+ * public key of the bot is only decoded again when the configured key changes.
+ */
 @Component
 @Slf4j
 public class SignatureFilterFunction implements
@@ -30,29 +41,36 @@ public class SignatureFilterFunction implements
   private static final String TIMESTAMP_HEADER_NAME = "X-Signature-Timestamp";
 
   private final DiscordConfiguration discordConfiguration;
+  private final AtomicReference<DecodedKey> decodedKey;
 
   public SignatureFilterFunction(DiscordConfiguration discordConfiguration) {
     this.discordConfiguration = discordConfiguration;
+    this.decodedKey = new AtomicReference<>();
   }
 
   @Override
   public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+    String timestamp = request.headers().firstHeader(TIMESTAMP_HEADER_NAME);
+    String signature = request.headers().firstHeader(SIGNATURE_HEADER_NAME);
+
+    Assert.notNull(signature, "Signature header is null");
+    Assert.notNull(timestamp, "Signature timestamp is null");
+
+    byte[] timestampBytes = timestamp.getBytes(UTF_8);
     return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()))
         .map(dataBuffer -> {
-          byte[] bytes = new byte[dataBuffer.readableByteCount()];
-          dataBuffer.read(bytes);
-          DataBufferUtils.release(dataBuffer);
-          return bytes;
+          try {
+            int bodyLength = dataBuffer.readableByteCount();
+            byte[] signedMessage = new byte[timestampBytes.length + bodyLength];
+            System.arraycopy(timestampBytes, 0, signedMessage, 0, timestampBytes.length);
+            dataBuffer.read(signedMessage, timestampBytes.length, bodyLength);
+            return signedMessage;
+          } finally {
+            DataBufferUtils.release(dataBuffer);
+          }
         })
-        .flatMap(bytes -> {
-          String timestamp = request.headers().header(TIMESTAMP_HEADER_NAME).get(0);
-          String signature = request.headers().header(SIGNATURE_HEADER_NAME).get(0);
-
-          Assert.notNull(signature, "Signature header is null");
-          Assert.notNull(timestamp, "Signature timestamp is null");
-
-          String publicKey = discordConfiguration.getBotPublicKey();
-          boolean isValid = CryptoUtils.validateSignature(bytes, signature, publicKey, timestamp);
+        .flatMap(signedMessage -> {
+          boolean isValid = CryptoUtils.validateSignature(signedMessage, signature, publicKey());
           if (!isValid) {
             log.error(
                 "There was a request with invalid signature. Signature: [{}], Timestamp: [{}]",
@@ -64,12 +82,13 @@ public class SignatureFilterFunction implements
             return ServerResponse.badRequest().body(BodyInserters.fromValue(detail));
           }
 
-          DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+          ByteBuffer body = ByteBuffer.wrap(signedMessage, timestampBytes.length,
+              signedMessage.length - timestampBytes.length).slice();
           ServerHttpRequest modifiedRequest = new ServerHttpRequestDecorator(
               request.exchange().getRequest()) {
             @Override
             public Flux<DataBuffer> getBody() {
-              return Flux.just(factory.wrap(bytes));
+              return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body.duplicate()));
             }
           };
 
@@ -77,6 +96,19 @@ public class SignatureFilterFunction implements
           ServerRequest newRequest = ServerRequest.create(newExchange, request.messageReaders());
           return next.handle(newRequest);
         });
+  }
+
+  private PublicKey publicKey() {
+    String configuredKey = discordConfiguration.getBotPublicKey();
+    DecodedKey current = decodedKey.get();
+    if (current == null || !current.hexKey().equals(configuredKey)) {
+      current = new DecodedKey(configuredKey, CryptoUtils.decodePublicKey(configuredKey));
+      decodedKey.set(current);
+    }
+    return current.publicKey();
+  }
+
+  private record DecodedKey(String hexKey, PublicKey publicKey) {
 
   }
 }
@@ -23,19 +23,22 @@ public class InteractionHandler {
   private final ApplicationCommandFactory applicationCommandFactory;
   private final AutocompleteFactory autocompleteFactory;
   private final MessageComponentFactory messageComponentFactory;
+  private final InteractionTracing interactionTracing;
 
   public InteractionHandler(
       ApplicationCommandFactory applicationCommandFactory,
       AutocompleteFactory autocompleteFactory,
-      MessageComponentFactory messageComponentFactory) {
+      MessageComponentFactory messageComponentFactory,
+      InteractionTracing interactionTracing) {
     this.applicationCommandFactory = applicationCommandFactory;
     this.autocompleteFactory = autocompleteFactory;
     this.messageComponentFactory = messageComponentFactory;
+    this.interactionTracing = interactionTracing;
   }
 
   /**
    * Handles the incoming interactions from Discord using each slash-command's appropriate message
-   * factory
+   * factory. The response is observed by {@link InteractionTracing}
    *
    * @param request the incoming server request from Discord chat
    * @return {@link InteractionResponse}
@@ -44,8 +47,9 @@ public class InteractionHandler {
     return request.bodyToMono(Interaction.class)
         .flatMap(interaction -> {
           InteractionType interactionType = InteractionType.findByValue(interaction.getType());
-          Mono<InteractionResponse> interactionResponse = resolveResponse(interaction,
-              interactionType);
+          Mono<InteractionResponse> interactionResponse = interactionTracing.observe(
+              interaction, interactionType,
+              Mono.defer(() -> resolveResponse(interaction, interactionType)));
           return interactionResponse
               .flatMap(response -> ServerResponse.ok().body(BodyInserters.fromValue(response)))
               .onErrorResume(BaseException.class,
@@ -0,0 +1,34 @@
+package com.deahtstroke.rivenbot.handler;
+
+import com.deahtstroke.rivenbot.dto.discord.Interaction;
+import java.util.Objects;
+
+/**
+ * What identifies an interaction in traces and logs
+ *
+ * @param id      The Id of the interaction
+ * @param command The name of the slash-command, or of the component, that was used
+ * @param guild   The Id of the guild the interaction came from
+ */
+public record InteractionTrace(String id, String command, String guild) {
+
+  private static final String NONE = "none";
+
+  /**
+   * Trace of the given interaction, values missing from the interaction are set to 'none'
+   *
+   * @param interaction The interaction
+   * @return {@link InteractionTrace}
+   */
+  public static InteractionTrace of(Interaction interaction) {
+    String command = null;
+    if (Objects.nonNull(interaction.getData())) {
+      command = Objects.nonNull(interaction.getData().getName()) ?
+          interaction.getData().getName() : interaction.getData().getCustomId();
+    }
+    return new InteractionTrace(
+        Objects.toString(interaction.getId(), NONE),
+        Objects.toString(command, NONE),
+        Objects.toString(interaction.getGuildId(), NONE));
+  }
+}
@@ -0,0 +1,52 @@
+package com.deahtstroke.rivenbot.handler;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+
+/**
+ * Makes the interaction being answered available to the logs. {@link InteractionTracing} puts an
+ * {@link InteractionTrace} in the Reactor Context and, with automatic context propagation, this
+ * accessor restores it on whatever thread runs the work of the interaction and copies it to the
+ * MDC, so that every log line can be tied back to the interaction that caused it.
+ * <br>
+ * It is registered through {@code META-INF/services/io.micrometer.context.ThreadLocalAccessor}.
+ */
+public class InteractionTraceAccessor implements ThreadLocalAccessor<InteractionTrace> {
+
+  /**
+   * Key of the {@link InteractionTrace} in the Reactor Context
+   */
+  public static final String KEY = "rivenbot.interaction";
+
+  public static final String INTERACTION_ID_MDC = "interaction.id";
+  public static final String INTERACTION_COMMAND_MDC = "interaction.command";
+  public static final String INTERACTION_GUILD_MDC = "interaction.guild";
+
+  private static final ThreadLocal<InteractionTrace> CURRENT = new ThreadLocal<>();
+
+  @Override
+  public Object key() {
+    return KEY;
+  }
+
+  @Override
+  public InteractionTrace getValue() {
+    return CURRENT.get();
+  }
+
+  @Override
+  public void setValue(InteractionTrace trace) {
+    CURRENT.set(trace);
+    MDC.put(INTERACTION_ID_MDC, trace.id());
+    MDC.put(INTERACTION_COMMAND_MDC, trace.command());
+    MDC.put(INTERACTION_GUILD_MDC, trace.guild());
+  }
+
+  @Override
+  public void setValue() {
+    CURRENT.remove();
+    MDC.remove(INTERACTION_ID_MDC);
+    MDC.remove(INTERACTION_COMMAND_MDC);
+    MDC.remove(INTERACTION_GUILD_MDC);
+  }
+}
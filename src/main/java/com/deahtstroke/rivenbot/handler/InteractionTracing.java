@@ -0,0 +1,64 @@
+package com.deahtstroke.rivenbot.handler;
+
+import com.deahtstroke.rivenbot.dto.discord.Interaction;
+import com.deahtstroke.rivenbot.enums.InteractionType;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Observes the handling of every interaction. The observation is a child of the server request
+ * that carried the interaction and it is tagged with the type and command of the interaction, and
+ * with its Id and guild as high cardinality values, i.e., only on the span and never on metrics.
+ * <br>
+ * The observation and the {@link InteractionTrace} are written to the Reactor Context, so the calls
+ * made while answering, e.g., to Bungie, Discord or Mongo, become spans of the interaction and
+ * their logs carry its Id. Work that outlives the response, see
+ * {@link com.deahtstroke.rivenbot.service.DeferredInteractionExecutor}, takes both along with a
+ * {@link io.micrometer.context.ContextSnapshot}.
+ */
+@Component
+public class InteractionTracing {
+
+  private static final String OBSERVATION_NAME = "discord.interaction";
+
+  private final ObservationRegistry observationRegistry;
+
+  public InteractionTracing(ObservationRegistry observationRegistry) {
+    this.observationRegistry = observationRegistry;
+  }
+
+  /**
+   * Observe the response to an interaction. The response should be lazy, e.g., wrapped in
+   * {@link Mono#defer}, for the work done while assembling it to be observed as well
+   *
+   * @param interaction     The interaction being answered
+   * @param interactionType The type of the interaction
+   * @param response        The response to the interaction
+   * @param <T>             The type of the response
+   * @return The response, observed
+   */
+  public <T> Mono<T> observe(Interaction interaction, InteractionType interactionType,
+      Mono<T> response) {
+    return Mono.deferContextual(context -> {
+      InteractionTrace trace = InteractionTrace.of(interaction);
+      Observation observation = Observation.createNotStarted(OBSERVATION_NAME,
+              observationRegistry)
+          .contextualName("interaction " + trace.command())
+          .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+          .lowCardinalityKeyValue("interaction.type", interactionType.name())
+          .lowCardinalityKeyValue(InteractionTraceAccessor.INTERACTION_COMMAND_MDC,
+              trace.command())
+          .highCardinalityKeyValue(InteractionTraceAccessor.INTERACTION_ID_MDC, trace.id())
+          .highCardinalityKeyValue(InteractionTraceAccessor.INTERACTION_GUILD_MDC, trace.guild())
+          .start();
+      return response
+          .doOnError(observation::error)
+          .doFinally(signal -> observation.stop())
+          .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation)
+              .put(InteractionTraceAccessor.KEY, trace));
+    });
+  }
+}
@@ -3,11 +3,8 @@ package com.deahtstroke.rivenbot.handler;
 import com.deahtstroke.rivenbot.client.BungieClient;
 import com.deahtstroke.rivenbot.client.DiscordClient;
 import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import com.deahtstroke.rivenbot.dto.CachedRaidStats;
 import com.deahtstroke.rivenbot.dto.destiny.ExactUserSearchRequest;
-import com.deahtstroke.rivenbot.dto.destiny.MemberGroupResponse;
-import com.deahtstroke.rivenbot.dto.destiny.UserGlobalSearchBody;
-import com.deahtstroke.rivenbot.dto.destiny.UserSearchResult;
-import com.deahtstroke.rivenbot.dto.discord.Choice;
 import com.deahtstroke.rivenbot.dto.discord.Component;
 import com.deahtstroke.rivenbot.dto.discord.Embedded;
 import com.deahtstroke.rivenbot.dto.discord.EmbeddedAuthor;
@@ -17,43 +14,67 @@ import com.deahtstroke.rivenbot.dto.discord.Interaction;
 import com.deahtstroke.rivenbot.dto.discord.InteractionResponse;
 import com.deahtstroke.rivenbot.dto.discord.InteractionResponseData;
 import com.deahtstroke.rivenbot.dto.discord.Option;
-import com.deahtstroke.rivenbot.entity.RaidStatistics;
 import com.deahtstroke.rivenbot.enums.InteractionResponseType;
+import com.deahtstroke.rivenbot.enums.SlashCommand;
 import com.deahtstroke.rivenbot.exception.BadRequestException;
+import com.deahtstroke.rivenbot.exception.ResourceNotFoundException;
+import com.deahtstroke.rivenbot.service.DeferredInteractionExecutor;
+import com.deahtstroke.rivenbot.service.PlayerAutocompleteService;
+import com.deahtstroke.rivenbot.service.RaidStatsCache;
 import com.deahtstroke.rivenbot.service.RaidStatsService;
+import com.deahtstroke.rivenbot.service.SyncStats;
+import com.deahtstroke.rivenbot.util.MessageUtils;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 @Slf4j
 @org.springframework.stereotype.Component
 public class RaidStatsHandler implements AutocompleteSource, ApplicationCommandSource {
 
   private static final String STATS_TITLE = "Raid Stats for %s";
+  private static final String PROGRESS_TITLE = "Crunching your raid history...";
+  private static final String PROGRESS_FORMAT = "%,d activities scanned, %d/%d characters";
+  private static final String ERROR_TITLE = "Something went wrong";
+  private static final String ERROR_DESCRIPTION =
+      "We couldn't crunch the raid stats for this guardian, please try again in a few minutes.";
+  private static final String BUSY_MESSAGE =
+      "Too many raid stats are being crunched right now, please try again in a few minutes.";
+  private static final Integer ERROR_COLOR = 15548997;
   private static final String ICON_BASE_URL = "https://www.bungie.net/";
-  private static final String CHOICE_FORMAT = "%s:%s";
+  private static final String UNIQUE_NAME_FORMAT = "%s#%04d";
   private static final String USER_TAG_OPTION_NAME = "usertag";
   private static final String USERNAME_OPTION_NAME = "username";
-  private static final Integer CLAN_GROUP_TYPE = 1;
-  private static final Integer CLAN_SIZE_FILTER = 0;
 
   private final BungieClient defaultBungieClient;
   private final DiscordClient discordClient;
   private final RaidStatsService raidStatsService;
+  private final RaidStatsCache raidStatsCache;
+  private final DeferredInteractionExecutor deferredInteractionExecutor;
+  private final PlayerAutocompleteService playerAutocompleteService;
   private final DiscordConfiguration discordConfiguration;
 
   public RaidStatsHandler(
       BungieClient defaultBungieClient,
       DiscordClient discordClient,
       RaidStatsService raidStatsService,
+      RaidStatsCache raidStatsCache,
+      DeferredInteractionExecutor deferredInteractionExecutor,
+      PlayerAutocompleteService playerAutocompleteService,
       DiscordConfiguration discordConfiguration) {
     this.defaultBungieClient = defaultBungieClient;
     this.discordClient = discordClient;
     this.raidStatsService = raidStatsService;
+    this.raidStatsCache = raidStatsCache;
+    this.deferredInteractionExecutor = deferredInteractionExecutor;
+    this.playerAutocompleteService = playerAutocompleteService;
     this.discordConfiguration = discordConfiguration;
   }
 
@@ -64,13 +85,7 @@ public class RaidStatsHandler implements AutocompleteSource, ApplicationCommandS
         .orElseThrow(
             () -> new BadRequestException("Username option not found", HttpStatus.BAD_REQUEST))
         .getOptions().getFirst();
-    return defaultBungieClient.searchByGlobalName(
-            new UserGlobalSearchBody((String) usernameLookupOption.getValue()), 0)
-        .flatMapIterable(response -> response.getResponse().getSearchResults())
-        .take(25)
-        .filter(result -> CollectionUtils.isNotEmpty(result.getDestinyMemberships()))
-        .flatMap(this::createUserChoices)
-        .collectList()
+    return playerAutocompleteService.autocomplete((String) usernameLookupOption.getValue())
         .map(choices -> new InteractionResponse(
             InteractionResponseType.APPLICATION_COMMAND_AUTOCOMPLETE_RESULT.getType(),
             InteractionResponseData.builder()
@@ -79,34 +94,66 @@ public class RaidStatsHandler implements AutocompleteSource, ApplicationCommandS
         ));
   }
 
-  private Mono<Choice> createUserChoices(UserSearchResult result) {
-    String membershipId = result.getDestinyMemberships().get(0).getMembershipId();
-    Integer membershipType = result.getDestinyMemberships().get(0).getMembershipType();
-    return defaultBungieClient.getGroupsForMember(membershipType, membershipId, CLAN_SIZE_FILTER,
-            CLAN_GROUP_TYPE)
-        .map(clanResponse -> {
-          String choiceName = name(result, clanResponse.getResponse());
-          String choiceValue = value(membershipId, membershipType);
-          return new Choice(choiceName, choiceValue);
-        });
-  }
-
   @Override
   public Mono<InteractionResponse> createResponse(Interaction interaction) {
     var asyncScheduler = Schedulers.boundedElastic();
+    var syncStats = new SyncStats();
     var raidsAsync = processRaidsAsynchronously(interaction)
+        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+            "No raid stats could be computed for interaction [%s]".formatted(interaction.getId()))))
         .subscribeOn(asyncScheduler)
-        .flatMap(response -> discordClient.editOriginalInteraction(
-            discordConfiguration.getApplicationId(), interaction.getToken(), response));
+        .contextWrite(SyncStats.with(syncStats));
 
-    raidsAsync.subscribe();
+    // Long syncs, e.g. for users that were never seen, report how far they got in the meantime
+    Duration progressInterval = discordConfiguration.getProgressInterval();
+    Flux<InteractionResponseData> progressUpdates = Flux.interval(progressInterval,
+            progressInterval)
+        .map(tick -> syncStats.progress())
+        .filter(SyncStats.Progress::hasStarted)
+        .distinctUntilChanged()
+        .map(this::createProgressResponse);
+
+    // Edits are sent one at a time and only the latest pending one is kept, this way the final
+    // embed is always the last edit and the webhook is never edited faster than the interval.
+    // Errors wait for the pending edits too, so the error embed is never overwritten by progress
+    Mono<Void> responses = Flux.merge(
+            progressUpdates.map(response -> Tuples.of(response, false)),
+            raidsAsync.map(response -> Tuples.of(response, true)))
+        .takeUntil(Tuple2::getT2)
+        .map(Tuple2::getT1)
+        .onBackpressureLatest()
+        .concatMapDelayError(response -> editResponse(interaction, response), 1)
+        .then();
+
+    boolean accepted = deferredInteractionExecutor.submit(
+        SlashCommand.RAID_STATS.getCommandName(), responses,
+        error -> editResponse(interaction, createErrorResponse()));
+    if (!accepted) {
+      return Mono.just(InteractionResponse.builder()
+          .type(InteractionResponseType.CHANNEL_MESSAGE_WITH_SOURCE.getType())
+          .data(InteractionResponseData.builder()
+              .content(BUSY_MESSAGE)
+              .flags(MessageUtils.EPHEMERAL_BYTE)
+              .build())
+          .build());
+    }
 
     return Mono.just(InteractionResponse.builder()
-        .type(5)
+        .type(InteractionResponseType.DEFERRED_CHANNEL_MESSAGE_WITH_SOURCE.getType())
         .data(new InteractionResponseData())
         .build());
   }
 
+  private Mono<Void> editResponse(Interaction interaction, InteractionResponseData response) {
+    return discordClient.editOriginalInteraction(discordConfiguration.getApplicationId(),
+            interaction.getToken(), response)
+        .onErrorResume(error -> {
+          log.warn("Unable to edit the raid stats response of interaction [{}]",
+              interaction.getId(), error);
+          return Mono.empty();
+        });
+  }
+
   private Mono<InteractionResponseData> processRaidsAsynchronously(Interaction interaction) {
     return Mono.just(interaction).flatMap(i -> {
       var usernameOnly = interaction.getData().getOptions().stream()
@@ -118,7 +165,9 @@ public class RaidStatsHandler implements AutocompleteSource, ApplicationCommandS
         String[] values = ((String) optionValue).split(":");
         Integer membershipType = Integer.valueOf(values[0]);
         String membershipId = values[1];
-        return createRaidStatsResponse(membershipType, membershipId);
+        return raidStatsCache.getByMembership(membershipType, membershipId,
+                () -> computeRaidStats(membershipType, membershipId))
+            .map(this::createRaidStatsResponse);
       } else {
         String username = (String) i.getData().getOptions().get(0).getOptions().stream()
             .filter(option -> option.getName().equalsIgnoreCase(USERNAME_OPTION_NAME))
@@ -130,85 +179,103 @@ public class RaidStatsHandler implements AutocompleteSource, ApplicationCommandS
             .displayName(username)
             .displayNameCode(userTag)
             .build();
-        return defaultBungieClient.searchUserByExactNameAndCode(request)
-            .flatMap(response -> {
-              Integer membershipType = response.getResponse().get(0).getMembershipType();
-              String membershipId = response.getResponse().get(0).getMembershipId();
-              return createRaidStatsResponse(membershipType, membershipId);
-            });
+        String uniqueName = UNIQUE_NAME_FORMAT.formatted(username, userTag);
+        return raidStatsCache.getByUniqueName(uniqueName,
+                () -> defaultBungieClient.searchUserByExactNameAndCode(request)
+                    .flatMap(response -> {
+                      Integer membershipType = response.getResponse().get(0).getMembershipType();
+                      String membershipId = response.getResponse().get(0).getMembershipId();
+                      return computeRaidStats(membershipType, membershipId);
+                    }))
+            .map(this::createRaidStatsResponse);
       }
     });
   }
 
-  private Mono<InteractionResponseData> createRaidStatsResponse(Integer membershipType,
-      String membershipId) {
+  private Mono<CachedRaidStats> computeRaidStats(Integer membershipType, String membershipId) {
     return defaultBungieClient.getMembershipInfoById(membershipId, membershipType)
         .flatMap(bungieUser -> {
           String uniqueUsername = bungieUser.getResponse().getBungieNetUser().getUniqueName();
           String usernameIcon = ICON_BASE_URL + bungieUser.getResponse().getBungieNetUser()
               .getProfilePicturePath();
           return raidStatsService.calculateRaidStats(uniqueUsername, membershipId, membershipType)
-              .collectMap(RaidStatistics::get_id)
-              .map(response -> response.entrySet().stream()
-                  .map(entry -> EmbeddedField.builder()
-                      .name(entry.getKey())
-                      .value(entry.getValue().toString())
-                      .inline(true)
-                      .build())
-                  .toList())
-              .map(embeddedFields -> InteractionResponseData.builder()
-                  .embeds(List.of(
-                      Embedded.builder()
-                          .author(EmbeddedAuthor.builder()
-                              .name(uniqueUsername)
-                              .iconUrl(usernameIcon)
-                              .build())
-                          .title(STATS_TITLE.formatted(uniqueUsername))
-                          .description("""
-                              <t:%s:R>
-                              General crunched numbers regarding all the raid clears you've done so far guardian.
-                              """.formatted(Instant.now().getEpochSecond()))
-                          .fields(embeddedFields)
-                          .color(10070709)
-                          .footer(EmbeddedFooter.builder()
-                              .text("""
-                                  Keep in mind this command is still being developed and the data displayed may be inaccurate. \
-                                                              
-                                  For example, fastest clears for Last Wish *could* be incorrect because of the Wall of Wishes, \
-                                  meaning that if the raid was started from the beginning, but you used a wish to get to \
-                                  Riven and finish the raid in under ~10 minutes, the bot would still count that as your fastest clear.""")
-                              .build())
-                          .build()))
-                  .components(List.of(Component.builder()
-                      .type(1)
-                      .components(List.of(Component.builder()
-                          .type(2)
-                          .customId("raid_stats_comprehension")
-                          .style(1)
-                          .label("What is this?")
-                          .build()))
-                      .build()))
+              .collectList()
+              .map(statistics -> CachedRaidStats.builder()
+                  .uniqueName(uniqueUsername)
+                  .membershipType(membershipType)
+                  .membershipId(membershipId)
+                  .iconUrl(usernameIcon)
+                  .statistics(statistics)
+                  .fields(statistics.stream()
+                      .map(raidStatistics -> EmbeddedField.builder()
+                          .name(raidStatistics.getRaidName())
+                          .value(raidStatistics.toString())
+                          .inline(true)
+                          .build())
+                      .toList())
+                  .computedAt(Instant.now())
                   .build());
         });
   }
 
-  private String name(UserSearchResult result,
-      MemberGroupResponse groupResponse) {
-    StringBuilder defaultName = new StringBuilder()
-        .append(result.getBungieGlobalDisplayName())
-        .append("#")
-        .append(result.getBungieGlobalDisplayNameCode());
-    if (CollectionUtils.isNotEmpty(groupResponse.getResults())) {
-      String clanName = groupResponse.getResults()
-          .get(0).getGroup().getName();
-      defaultName.append("[");
-      defaultName.append(clanName);
-      defaultName.append("]");
-    }
-    return defaultName.toString();
+  private InteractionResponseData createErrorResponse() {
+    return InteractionResponseData.builder()
+        .embeds(List.of(
+            Embedded.builder()
+                .title(ERROR_TITLE)
+                .description(ERROR_DESCRIPTION)
+                .color(ERROR_COLOR)
+                .build()))
+        .components(List.of())
+        .build();
+  }
+
+  private InteractionResponseData createProgressResponse(SyncStats.Progress progress) {
+    return InteractionResponseData.builder()
+        .embeds(List.of(
+            Embedded.builder()
+                .title(PROGRESS_TITLE)
+                .description(PROGRESS_FORMAT.formatted(progress.scannedActivities(),
+                    progress.syncedCharacters(), progress.totalCharacters()))
+                .color(10070709)
+                .build()))
+        .build();
   }
 
-  private String value(String membershipId, Integer membershipType) {
-    return CHOICE_FORMAT.formatted(membershipType, membershipId);
+  private InteractionResponseData createRaidStatsResponse(CachedRaidStats raidStats) {
+    String uniqueUsername = raidStats.getUniqueName();
+    return InteractionResponseData.builder()
+        .embeds(List.of(
+            Embedded.builder()
+                .author(EmbeddedAuthor.builder()
+                    .name(uniqueUsername)
+                    .iconUrl(raidStats.getIconUrl())
+                    .build())
+                .title(STATS_TITLE.formatted(uniqueUsername))
+                .description("""
+                    <t:%s:R>
+                    General crunched numbers regarding all the raid clears you've done so far guardian.
+                    """.formatted(raidStats.getComputedAt().getEpochSecond()))
+                .fields(raidStats.getFields())
+                .color(10070709)
+                .footer(EmbeddedFooter.builder()
+                    .text("""
+                        Keep in mind this command is still being developed and the data displayed may be inaccurate. \
+                                                    
+                        For example, fastest clears for Last Wish *could* be incorrect because of the Wall of Wishes, \
+                        meaning that if the raid was started from the beginning, but you used a wish to get to \
+                        Riven and finish the raid in under ~10 minutes, the bot would still count that as your fastest clear.""")
+                    .build())
+                .build()))
+        .components(List.of(Component.builder()
+            .type(1)
+            .components(List.of(Component.builder()
+                .type(2)
+                .customId("raid_stats_comprehension")
+                .style(1)
+                .label("What is this?")
+                .build()))
+            .build()))
+        .build();
   }
 }
@@ -0,0 +1,119 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.FileSystemUtils;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Immutable view of every local manifest store for a single manifest version. Snapshots are
+ * reference counted: the owner holds one reference from the moment the snapshot is created and
+ * every reader holds one while it looks up definitions. Once the owner retires a snapshot its
+ * stores are closed and its version directory is deleted as soon as the last reader releases it.
+ */
+@Slf4j
+public class ManifestSnapshot {
+
+  @Getter
+  private final String version;
+
+  @Getter
+  private final RaidCatalog raidCatalog;
+
+  private final Path directory;
+  private final Map<String, ManifestStore> stores;
+  private final Scheduler cleanupScheduler;
+  private final AtomicInteger references;
+
+  /**
+   * @param version          The version of the manifest
+   * @param directory        The directory the stores of the version are written to
+   * @param stores           The stores of the version keyed by entity Id
+   * @param raidCatalog      The raid catalog built from the stores
+   * @param cleanupScheduler Where the stores are closed and the directory is deleted once the
+   *                         snapshot is released by everyone
+   */
+  public ManifestSnapshot(String version, Path directory, Map<String, ManifestStore> stores,
+      RaidCatalog raidCatalog, Scheduler cleanupScheduler) {
+    this.version = version;
+    this.directory = directory;
+    this.stores = Map.copyOf(stores);
+    this.raidCatalog = raidCatalog;
+    this.cleanupScheduler = cleanupScheduler;
+    this.references = new AtomicInteger(1);
+  }
+
+  /**
+   * Take a reference on this snapshot so that its stores stay open until {@link #release()}
+   *
+   * @return false if the snapshot was already released by everyone and can't be used anymore
+   */
+  public boolean acquire() {
+    int current;
+    do {
+      current = references.get();
+      if (current == 0) {
+        return false;
+      }
+    } while (!references.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Drop a reference to this snapshot, the stores are closed and the version directory is deleted
+   * when the last reference is dropped
+   */
+  public void release() {
+    if (references.decrementAndGet() == 0) {
+      cleanupScheduler.schedule(() -> {
+        stores.values().forEach(ManifestSnapshot::closeQuietly);
+        deleteQuietly(directory);
+        log.info("Released Destiny Manifest snapshot for version [{}]", version);
+      });
+    }
+  }
+
+  /**
+   * Look up a definition of the given entity
+   *
+   * @param entityId The id of the manifest entity
+   * @param hash     The hash of the definition
+   * @return {@link ManifestResponseFields} or null if it's not part of the snapshot
+   */
+  public ManifestResponseFields get(String entityId, long hash) {
+    ManifestStore store = stores.get(entityId);
+    return Objects.isNull(store) ? null : store.get(hash);
+  }
+
+  /**
+   * Close a store, logging instead of failing if it can't be closed
+   *
+   * @param store The store to close
+   */
+  public static void closeQuietly(ManifestStore store) {
+    try {
+      store.close();
+    } catch (IOException e) {
+      log.warn("Unable to close manifest store [{}]", store.getPath(), e);
+    }
+  }
+
+  /**
+   * Delete the directory of a manifest version, logging instead of failing if it can't be deleted
+   *
+   * @param directory The directory to delete
+   */
+  public static void deleteQuietly(Path directory) {
+    try {
+      FileSystemUtils.deleteRecursively(directory);
+    } catch (IOException e) {
+      log.warn("Unable to delete manifest directory [{}]", directory, e);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+import lombok.Getter;
+
+/**
+ * Read-only store of a single manifest entity type backed by a memory-mapped file written by
+ * {@link ManifestStoreWriter}. The hash index is kept in the heap as sorted arrays, the definitions
+ * themselves stay in the mapped file and are only deserialized when they are looked up.
+ * <br>
+ * The layout of the file is:
+ * <pre>
+ * int    magic number
+ * int    format version
+ * int    number of entries (n)
+ * long[] hashes of the entries, sorted ascending (n)
+ * long[] offsets of every entry relative to the start of the data section (n)
+ * int[]  lengths in bytes of every entry (n)
+ * byte[] data section containing every entry serialized as Json
+ * </pre>
+ */
+public class ManifestStore implements Closeable {
+
+  static final int MAGIC_NUMBER = 0x52424D46;
+  static final int FORMAT_VERSION = 1;
+
+  private final FileChannel channel;
+  private volatile MappedByteBuffer buffer;
+  private final ObjectMapper objectMapper;
+  private final long[] hashes;
+  private final long[] offsets;
+  private final int[] lengths;
+  private final int dataStart;
+
+  @Getter
+  private final Path path;
+
+  private ManifestStore(Path path, FileChannel channel, MappedByteBuffer buffer,
+      ObjectMapper objectMapper) throws IOException {
+    this.path = path;
+    this.channel = channel;
+    this.buffer = buffer;
+    this.objectMapper = objectMapper;
+
+    int magicNumber = buffer.getInt(0);
+    int formatVersion = buffer.getInt(Integer.BYTES);
+    if (magicNumber != MAGIC_NUMBER || formatVersion != FORMAT_VERSION) {
+      throw new IOException("File [%s] is not a manifest store in format version [%s]"
+          .formatted(path, FORMAT_VERSION));
+    }
+    int size = buffer.getInt(Integer.BYTES * 2);
+    int position = Integer.BYTES * 3;
+
+    this.hashes = new long[size];
+    this.offsets = new long[size];
+    this.lengths = new int[size];
+    for (int i = 0; i < size; i++, position += Long.BYTES) {
+      hashes[i] = buffer.getLong(position);
+    }
+    for (int i = 0; i < size; i++, position += Long.BYTES) {
+      offsets[i] = buffer.getLong(position);
+    }
+    for (int i = 0; i < size; i++, position += Integer.BYTES) {
+      lengths[i] = buffer.getInt(position);
+    }
+    this.dataStart = position;
+  }
+
+  /**
+   * Opens a manifest store file and maps it into memory
+   *
+   * @param path         The path to the store file
+   * @param objectMapper The object mapper used to deserialize entries
+   * @return {@link ManifestStore}
+   * @throws IOException If the file can't be read or is not a manifest store
+   */
+  public static ManifestStore open(Path path, ObjectMapper objectMapper) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long fileSize = channel.size();
+      if (fileSize > Integer.MAX_VALUE) {
+        throw new IOException("Manifest store [%s] is too large to be mapped".formatted(path));
+      }
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, fileSize);
+      return new ManifestStore(path, channel, buffer, objectMapper);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Look up a manifest entity by its hash
+   *
+   * @param hash The hash of the entity
+   * @return {@link ManifestResponseFields} or null if the hash is not in this store
+   */
+  public ManifestResponseFields get(long hash) {
+    int index = Arrays.binarySearch(hashes, hash);
+    if (index < 0) {
+      return null;
+    }
+    MappedByteBuffer buffer = this.buffer;
+    if (Objects.isNull(buffer)) {
+      throw new IllegalStateException("Manifest store [%s] is closed".formatted(path));
+    }
+    byte[] entry = new byte[lengths[index]];
+    buffer.get(dataStart + (int) offsets[index], entry);
+    try {
+      return objectMapper.readValue(entry, ManifestResponseFields.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Corrupted manifest entry [%s] in store [%s]".formatted(hash, path), e);
+    }
+  }
+
+  /**
+   * Deserialize every entity in this store in hash order
+   *
+   * @param consumer The consumer of every entity
+   */
+  public void forEach(Consumer<ManifestResponseFields> consumer) {
+    for (long hash : hashes) {
+      consumer.accept(get(hash));
+    }
+  }
+
+  /**
+   * The number of entities in this store
+   *
+   * @return number of entities
+   */
+  public int size() {
+    return hashes.length;
+  }
+
+  /**
+   * Closes the file of this store and drops its mapping. The JDK has no way to unmap a file
+   * explicitly, the memory is given back once the mapping is garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    buffer = null;
+    channel.close();
+  }
+}
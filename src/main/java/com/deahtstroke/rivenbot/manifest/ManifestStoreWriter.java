@@ -0,0 +1,106 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Converts the Json content Bungie serves for a manifest entity type into the binary layout read by
+ * {@link ManifestStore}. The content is parsed as a stream, one definition at a time, and only the
+ * fields of {@link ManifestResponseFields} are kept for every definition.
+ */
+public class ManifestStoreWriter {
+
+  private final ObjectMapper objectMapper;
+
+  public ManifestStoreWriter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper.copy()
+        .setSerializationInclusion(Include.NON_NULL);
+  }
+
+  /**
+   * Write a manifest store file out of the Json content of a manifest entity type. The file is
+   * written next to the target first and then moved, so readers never see a partial store.
+   *
+   * @param content The Json content, an object of definitions keyed by their hash
+   * @param target  The path of the store file
+   * @return The number of definitions written
+   * @throws IOException If the content can't be parsed or the file can't be written
+   */
+  public int write(InputStream content, Path target) throws IOException {
+    List<Entry> entries = readEntries(content);
+    entries.sort(Comparator.comparingLong(Entry::hash));
+
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      output.writeInt(ManifestStore.MAGIC_NUMBER);
+      output.writeInt(ManifestStore.FORMAT_VERSION);
+      output.writeInt(entries.size());
+      for (Entry entry : entries) {
+        output.writeLong(entry.hash());
+      }
+      long offset = 0;
+      for (Entry entry : entries) {
+        output.writeLong(offset);
+        offset += entry.data().length;
+      }
+      for (Entry entry : entries) {
+        output.writeInt(entry.data().length);
+      }
+      for (Entry entry : entries) {
+        output.write(entry.data());
+      }
+    }
+    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    return entries.size();
+  }
+
+  /**
+   * Write a manifest store file out of Json content that was already downloaded to disk
+   *
+   * @param content The path of the downloaded Json content
+   * @param target  The path of the store file
+   * @return The number of definitions written
+   * @throws IOException If the content can't be parsed or the file can't be written
+   */
+  public int write(Path content, Path target) throws IOException {
+    try (InputStream input = Files.newInputStream(content)) {
+      return write(input, target);
+    }
+  }
+
+  private List<Entry> readEntries(InputStream content) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Manifest content is expected to be a Json object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        long hash = Long.parseLong(parser.getCurrentName());
+        parser.nextToken();
+        ManifestResponseFields definition = objectMapper.readValue(parser,
+            ManifestResponseFields.class);
+        entries.add(new Entry(hash, objectMapper.writeValueAsBytes(definition)));
+      }
+    }
+    return entries;
+  }
+
+  private record Entry(long hash, byte[] data) {
+
+  }
+}
@@ -0,0 +1,176 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Lookup table of every raid activity in the manifest keyed by the activity hash. The raid name and
+ * difficulty are resolved from the display name of the activity once, when the catalog is built,
+ * so that resolving the thousands of activities in a user's history is a binary search over a
+ * primitive array.
+ */
+public final class RaidCatalog {
+
+  /**
+   * Catalog used while the manifest has not been loaded yet
+   */
+  public static final RaidCatalog EMPTY = new RaidCatalog(new long[0], new RaidActivity[0],
+      Set.of());
+
+  private static final Integer RAID_ACTIVITY_MODE = 4;
+  private static final Long RAID_ACTIVITY_TYPE_HASH = 2043403989L;
+
+  private final long[] hashes;
+  private final RaidActivity[] activities;
+  private final Set<String> raidsWithMasterMode;
+
+  private RaidCatalog(long[] hashes, RaidActivity[] activities, Set<String> raidsWithMasterMode) {
+    this.hashes = hashes;
+    this.activities = activities;
+    this.raidsWithMasterMode = raidsWithMasterMode;
+  }
+
+  /**
+   * Build a catalog out of every raid activity definition in an activity definition store
+   *
+   * @param activityStore The store of DestinyActivityDefinition
+   * @return {@link RaidCatalog}
+   */
+  public static RaidCatalog fromStore(ManifestStore activityStore) {
+    List<ManifestResponseFields> definitions = new ArrayList<>();
+    activityStore.forEach(definition -> {
+      if (isRaid(definition)) {
+        definitions.add(definition);
+      }
+    });
+    return of(definitions);
+  }
+
+  /**
+   * Build a catalog out of activity definitions, definitions that are not raids are ignored
+   *
+   * @param definitions The activity definitions
+   * @return {@link RaidCatalog}
+   */
+  public static RaidCatalog of(Iterable<ManifestResponseFields> definitions) {
+    List<ManifestResponseFields> raids = new ArrayList<>();
+    Set<String> raidsWithMasterMode = new HashSet<>();
+    for (ManifestResponseFields definition : definitions) {
+      if (!isRaid(definition) || Objects.isNull(definition.getHash())
+          || Objects.isNull(definition.getDisplayProperties())
+          || Objects.isNull(definition.getDisplayProperties().getName())) {
+        continue;
+      }
+      String displayName = definition.getDisplayProperties().getName();
+      raids.add(definition);
+      if (resolveRaidDifficulty(displayName) == RaidDifficulty.MASTER) {
+        raidsWithMasterMode.add(resolveRaidName(displayName));
+      }
+    }
+    raids.sort(Comparator.comparingLong(ManifestResponseFields::getHash));
+
+    long[] hashes = new long[raids.size()];
+    RaidActivity[] activities = new RaidActivity[raids.size()];
+    for (int i = 0; i < raids.size(); i++) {
+      String displayName = raids.get(i).getDisplayProperties().getName();
+      String raidName = resolveRaidName(displayName);
+      hashes[i] = raids.get(i).getHash();
+      activities[i] = new RaidActivity(raidName, resolveRaidDifficulty(displayName),
+          raidsWithMasterMode.contains(raidName));
+    }
+    return new RaidCatalog(hashes, activities, Set.copyOf(raidsWithMasterMode));
+  }
+
+  /**
+   * Resolve the raid name out of the display name of a raid activity, e.g. "Vault of Glass" for
+   * "Vault of Glass: Master"
+   *
+   * @param displayName The display name of the activity
+   * @return The name of the raid
+   */
+  public static String resolveRaidName(String displayName) {
+    String[] tokens = displayName.split(":");
+    return tokens[0].trim();
+  }
+
+  /**
+   * Resolve the raid difficulty out of the display name of a raid activity
+   *
+   * @param displayName The display name of the activity
+   * @return {@link RaidDifficulty} or null if the display name has no difficulty
+   */
+  public static RaidDifficulty resolveRaidDifficulty(String displayName) {
+    String[] tokens = displayName.split(":");
+    if (tokens.length > 1) {
+      return switch (tokens[1].trim()) {
+        case "Normal", "normal" -> RaidDifficulty.NORMAL;
+        case "Master", "master" -> RaidDifficulty.MASTER;
+        default -> null;
+      };
+    }
+    return null;
+  }
+
+  private static boolean isRaid(ManifestResponseFields definition) {
+    return Objects.equals(RAID_ACTIVITY_MODE, definition.getDirectActivityModeType())
+           || Objects.equals(RAID_ACTIVITY_TYPE_HASH, definition.getActivityTypeHash());
+  }
+
+  /**
+   * Find a raid activity by its hash
+   *
+   * @param activityHash The hash of the activity, i.e. the directorActivityHash of an activity
+   * @return {@link RaidActivity} or null if the hash is not a raid activity
+   */
+  public RaidActivity find(long activityHash) {
+    int index = Arrays.binarySearch(hashes, activityHash);
+    return index < 0 ? null : activities[index];
+  }
+
+  /**
+   * Whether a raid can be played in master difficulty
+   *
+   * @param raidName The name of the raid
+   * @return True if the raid has a master mode
+   */
+  public boolean hasMasterMode(String raidName) {
+    return raidsWithMasterMode.contains(raidName);
+  }
+
+  /**
+   * The names of every raid that can be played in master difficulty
+   *
+   * @return Set of raid names
+   */
+  public Set<String> getRaidsWithMasterMode() {
+    return raidsWithMasterMode;
+  }
+
+  /**
+   * The number of raid activities in the catalog
+   *
+   * @return number of raid activities
+   */
+  public int size() {
+    return hashes.length;
+  }
+
+  /**
+   * A raid activity as seen in a user's activity history
+   *
+   * @param raidName       The name of the raid
+   * @param raidDifficulty The difficulty of the activity, can be null
+   * @param hasMasterMode  Whether the raid can be played in master difficulty
+   */
+  public record RaidActivity(String raidName, RaidDifficulty raidDifficulty,
+                             boolean hasMasterMode) {
+
+  }
+}
@@ -0,0 +1,54 @@
+package com.deahtstroke.rivenbot.migration;
+
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import com.mongodb.client.result.DeleteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Removes the Post Game Carnage Reports that were stored before reports were keyed by their
+ * instance ID. Those documents have an ObjectId as their ID, so they are never found by the
+ * lookups of a sync and the report is stored again under its instance ID the next time a raid
+ * needs it. Deleting them only drops duplicates and can run again at any point.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class PGCRDetailsMigration {
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public PGCRDetailsMigration(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  /**
+   * Runs the migration once the application is ready to take requests
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateOnStartup() {
+    migrate().subscribe(
+        reports -> log.info("Removed [{}] legacy Post Game Carnage Reports", reports),
+        error -> log.error("Unable to remove legacy Post Game Carnage Reports", error));
+  }
+
+  /**
+   * Deletes every stored report whose ID is an ObjectId instead of its instance ID
+   *
+   * @return The number of reports that were deleted
+   */
+  public Mono<Long> migrate() {
+    Query legacyReports = Query.query(
+        Criteria.where("_id").type(JsonSchemaObject.Type.OBJECT_ID));
+    return reactiveMongoTemplate.remove(legacyReports, PGCRDetails.class)
+        .map(DeleteResult::getDeletedCount);
+  }
+}
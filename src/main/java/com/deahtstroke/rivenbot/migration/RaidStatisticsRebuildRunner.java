@@ -0,0 +1,66 @@
+package com.deahtstroke.rivenbot.migration;
+
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import com.deahtstroke.rivenbot.repository.RaidStatisticsRepository;
+import com.deahtstroke.rivenbot.service.UserSyncCoordinator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Command that recomputes the materialized raid statistics from the raw raid history. It runs when
+ * the application is started with {@code --rebuild-raid-statistics}, either for every user or only
+ * for the users given as values, e.g. {@code --rebuild-raid-statistics=Deaht#8080}. Every rebuild
+ * runs as a sync of its user, see {@link UserSyncCoordinator}, so it never overlaps with a sync
+ * that adds new raids to the same statistics.
+ */
+@Slf4j
+@Component
+public class RaidStatisticsRebuildRunner implements ApplicationRunner {
+
+  private static final String REBUILD_OPTION = "rebuild-raid-statistics";
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+  private final RaidStatisticsRepository raidStatisticsRepository;
+  private final UserSyncCoordinator userSyncCoordinator;
+
+  public RaidStatisticsRebuildRunner(ReactiveMongoTemplate reactiveMongoTemplate,
+      RaidStatisticsRepository raidStatisticsRepository,
+      UserSyncCoordinator userSyncCoordinator) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.raidStatisticsRepository = raidStatisticsRepository;
+    this.userSyncCoordinator = userSyncCoordinator;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!args.containsOption(REBUILD_OPTION)) {
+      return;
+    }
+    List<String> requestedUsers = args.getOptionValues(REBUILD_OPTION);
+    Flux<String> users = requestedUsers.isEmpty() ?
+        reactiveMongoTemplate.findDistinct(new Query(), "userIdentifier", UserRaidDetails.class,
+            String.class) :
+        Flux.fromIterable(requestedUsers);
+
+    Long rebuilt = users
+        .concatMap(user -> {
+          AtomicLong raids = new AtomicLong(0);
+          return userSyncCoordinator.sync(user, () -> raidStatisticsRepository.rebuild(user)
+                  .doOnNext(statistics -> raids.incrementAndGet())
+                  .then())
+              .doOnSuccess(synced -> log.info("Rebuilt statistics of [{}] raids for user [{}]",
+                  raids.get(), user))
+              .thenReturn(user);
+        })
+        .count()
+        .block();
+    log.info("Rebuilt raid statistics of [{}] users", rebuilt);
+  }
+}
@@ -0,0 +1,94 @@
+package com.deahtstroke.rivenbot.migration;
+
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import com.deahtstroke.rivenbot.repository.MongoIndexes;
+import com.deahtstroke.rivenbot.repository.UserRaidDetailsRepository;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Moves the raid entries that used to be embedded in every user_details document into the
+ * user_raid_details collection. Every user is migrated on its own: its raids are upserted first
+ * and the embedded array is only removed afterward, so the migration can be interrupted and run
+ * again at any point without losing or duplicating raids. The raid statistics of every migrated
+ * user are marked as stale along with the removal, they are rebuilt from the migrated raids by the
+ * next sync of the user, which runs under its sync lease.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class UserRaidDetailsMigration {
+
+  private static final String USER_DETAILS_COLLECTION = "user_details";
+  private static final String EMBEDDED_RAIDS_FIELD = "userRaidDetails";
+  private static final String STATISTICS_UP_TO_DATE_FIELD = "statisticsUpToDate";
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+  private final UserRaidDetailsRepository userRaidDetailsRepository;
+  private final MongoIndexes mongoIndexes;
+
+  public UserRaidDetailsMigration(ReactiveMongoTemplate reactiveMongoTemplate,
+      UserRaidDetailsRepository userRaidDetailsRepository, MongoIndexes mongoIndexes) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.userRaidDetailsRepository = userRaidDetailsRepository;
+    this.mongoIndexes = mongoIndexes;
+  }
+
+  /**
+   * Runs the migration once the application is ready to take requests
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateOnStartup() {
+    migrate().subscribe(
+        users -> log.info("Migrated embedded raid entries of [{}] users", users),
+        error -> log.error("Unable to migrate embedded raid entries", error));
+  }
+
+  /**
+   * Migrates every user that still has embedded raid entries, once the unique indexes the
+   * migrated raids are upserted against exist
+   *
+   * @return The number of users that were migrated
+   */
+  public Mono<Long> migrate() {
+    Query embeddedRaids = Query.query(Criteria.where(EMBEDDED_RAIDS_FIELD).exists(true));
+    return mongoIndexes.ensureIndexes()
+        .thenMany(reactiveMongoTemplate.find(embeddedRaids, Document.class,
+            USER_DETAILS_COLLECTION))
+        .concatMap(this::migrateUser)
+        .count();
+  }
+
+  private Mono<String> migrateUser(Document userDetails) {
+    String userIdentifier = userDetails.getString("_id");
+    List<UserRaidDetails> raidDetails = userDetails
+        .getList(EMBEDDED_RAIDS_FIELD, Document.class, List.of()).stream()
+        .map(raid -> {
+          UserRaidDetails details = reactiveMongoTemplate.getConverter()
+              .read(UserRaidDetails.class, raid);
+          details.setUserIdentifier(userIdentifier);
+          return details;
+        })
+        .toList();
+    Query user = Query.query(Criteria.where("_id").is(userIdentifier));
+    return userRaidDetailsRepository.upsertAll(raidDetails)
+        .then(reactiveMongoTemplate.updateFirst(user, new Update()
+                .unset(EMBEDDED_RAIDS_FIELD)
+                .set(STATISTICS_UP_TO_DATE_FIELD, false),
+            USER_DETAILS_COLLECTION))
+        .then()
+        .doOnSuccess(result -> log.debug("Migrated [{}] embedded raid entries of user [{}]",
+            raidDetails.size(), userIdentifier))
+        .thenReturn(userIdentifier);
+  }
+}
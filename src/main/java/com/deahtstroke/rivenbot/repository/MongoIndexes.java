@@ -0,0 +1,66 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.config.MongoIndexConfiguration;
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the indexes declared on the entities. Spring Data doesn't create them automatically by
+ * default, and the upserts of raid entries and raid statistics rely on their unique indexes to
+ * never write duplicates.
+ */
+@Slf4j
+@Component
+public class MongoIndexes {
+
+  private static final List<Class<?>> INDEXED_ENTITIES = List.of(UserRaidDetails.class,
+      RaidStatistics.class);
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+  private final MongoIndexConfiguration mongoIndexConfiguration;
+
+  public MongoIndexes(ReactiveMongoTemplate reactiveMongoTemplate,
+      MongoIndexConfiguration mongoIndexConfiguration) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+    this.mongoIndexConfiguration = mongoIndexConfiguration;
+  }
+
+  /**
+   * Creates the indexes once the application is ready to take requests
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureOnStartup() {
+    if (Boolean.TRUE.equals(mongoIndexConfiguration.getEnsureOnStartup())) {
+      ensureIndexes().thenReturn(INDEXED_ENTITIES.size()).subscribe(
+          entities -> log.info("Ensured the indexes of [{}] entities", entities),
+          error -> log.error("Unable to create the Mongo indexes", error));
+    }
+  }
+
+  /**
+   * Creates every index declared on the entities, indexes that already exist are left as they are
+   *
+   * @return Mono that completes once every index exists
+   */
+  public Mono<Void> ensureIndexes() {
+    IndexResolver indexResolver = IndexResolver.create(
+        reactiveMongoTemplate.getConverter().getMappingContext());
+    return Flux.fromIterable(INDEXED_ENTITIES)
+        .concatMap(entityClass -> {
+          ReactiveIndexOperations indexOperations = reactiveMongoTemplate.indexOps(entityClass);
+          return Flux.fromIterable(indexResolver.resolveIndexFor(entityClass))
+              .concatMap(indexOperations::ensureIndex);
+        })
+        .then();
+  }
+}
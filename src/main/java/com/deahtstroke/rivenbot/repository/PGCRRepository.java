@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PGCRRepository extends ReactiveMongoRepository<PGCRDetails, Long> {
+public interface PGCRRepository extends ReactiveMongoRepository<PGCRDetails, Long>,
+    PGCRRepositoryCustom {
 
 }
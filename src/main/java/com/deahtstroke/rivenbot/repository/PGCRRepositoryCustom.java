@@ -0,0 +1,33 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import java.util.Collection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulk operations for Post Game Carnage Reports that are not covered by Spring Data's derived
+ * queries
+ */
+public interface PGCRRepositoryCustom {
+
+  /**
+   * Insert a batch of Post Game Carnage Reports in a single unordered bulk write. Reports that
+   * were already inserted in the meantime, e.g. by a concurrent sync of another user that shares
+   * the same raid, are replaced instead of failing the whole batch.
+   *
+   * @param reports The reports to insert
+   * @return Mono that completes once the bulk write is acknowledged
+   */
+  Mono<Void> insertAll(Collection<PGCRDetails> reports);
+
+  /**
+   * Find the participants of the most recent Post Game Carnage Reports, newest first. Only the
+   * players of each report are read. Reports stored before they were keyed by their instance ID
+   * are skipped.
+   *
+   * @param limit The maximum amount of reports to read
+   * @return Flux of {@link PGCRDetails} with only their instance ID and players
+   */
+  Flux<PGCRDetails> findLatestParticipants(int limit);
+}
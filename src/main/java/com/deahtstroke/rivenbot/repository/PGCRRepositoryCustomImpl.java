@@ -0,0 +1,50 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import java.util.Collection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PGCRRepositoryCustomImpl implements PGCRRepositoryCustom {
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public PGCRRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Void> insertAll(Collection<PGCRDetails> reports) {
+    if (reports.isEmpty()) {
+      return Mono.empty();
+    }
+    ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED,
+        PGCRDetails.class);
+    for (PGCRDetails report : reports) {
+      bulkOperations.replaceOne(Query.query(Criteria.where("_id").is(report.getInstanceId())),
+          report, FindAndReplaceOptions.options().upsert());
+    }
+    return bulkOperations.execute().then();
+  }
+
+  @Override
+  public Flux<PGCRDetails> findLatestParticipants(int limit) {
+    // Reports stored before they were keyed by their instance ID have an ObjectId as their ID,
+    // which sorts above every number and can't be read as a PGCRDetails. They are removed by
+    // PGCRDetailsMigration, which may still be running or be disabled when this is read
+    Query query = Query.query(Criteria.where("_id").type(JsonSchemaObject.Type.INT_64))
+        .with(Sort.by(Direction.DESC, "_id"))
+        .limit(limit);
+    query.fields().include("players");
+    return reactiveMongoTemplate.find(query, PGCRDetails.class);
+  }
+}
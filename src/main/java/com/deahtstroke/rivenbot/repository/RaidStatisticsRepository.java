@@ -0,0 +1,19 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface RaidStatisticsRepository extends ReactiveMongoRepository<RaidStatistics, String>,
+    RaidStatisticsRepositoryCustom {
+
+  /**
+   * Find the statistics of every raid a user has played
+   *
+   * @param userIdentifier The identifier of the user
+   * @return Flux of {@link RaidStatistics}, one per raid
+   */
+  Flux<RaidStatistics> findAllByUserIdentifier(String userIdentifier);
+}
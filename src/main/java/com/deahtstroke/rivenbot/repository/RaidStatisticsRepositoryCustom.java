@@ -0,0 +1,36 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import java.util.Collection;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Maintenance of the materialized raid statistics of every user
+ */
+public interface RaidStatisticsRepositoryCustom {
+
+  /**
+   * Add newly stored raid entries to the statistics of their users. Every affected raid is updated
+   * with a single atomic $inc/$min upsert, so the cost depends on the number of new raids and not
+   * on the size of the user's history. Entries must only be passed once, see
+   * {@link UserRaidDetailsRepositoryCustom#upsertAll}.
+   *
+   * @param newRaidDetails The raid entries that were not stored before
+   * @return Mono that completes once the bulk write is acknowledged
+   */
+  Mono<Void> incrementAll(Collection<UserRaidDetails> newRaidDetails);
+
+  /**
+   * Recompute the statistics of a user from its raw raid history, replacing the stored ones. The
+   * new totals are written over the stored statistics with absolute values, raid by raid, so they
+   * are never seen removed or partially added up, and statistics of raids that are no longer in
+   * the history are removed afterward. The rebuild must not run concurrently with
+   * {@link #incrementAll} for the same user, syncs only run it under the user's sync lease.
+   *
+   * @param userIdentifier The identifier of the user
+   * @return The rebuilt {@link RaidStatistics}, one per raid
+   */
+  Flux<RaidStatistics> rebuild(String userIdentifier);
+}
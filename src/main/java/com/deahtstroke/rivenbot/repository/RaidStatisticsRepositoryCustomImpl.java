@@ -0,0 +1,156 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class RaidStatisticsRepositoryCustomImpl implements RaidStatisticsRepositoryCustom {
+
+  private static final String USER_IDENTIFIER = "userIdentifier";
+  private static final String RAID_NAME = "raidName";
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public RaidStatisticsRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Void> incrementAll(Collection<UserRaidDetails> newRaidDetails) {
+    if (newRaidDetails.isEmpty()) {
+      return Mono.empty();
+    }
+    Map<StatisticsKey, List<UserRaidDetails>> raidsByStatistics = newRaidDetails.stream()
+        .collect(Collectors.groupingBy(
+            raid -> new StatisticsKey(raid.getUserIdentifier(), raid.getRaidName()),
+            LinkedHashMap::new, Collectors.toList()));
+
+    ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED,
+        RaidStatistics.class);
+    raidsByStatistics.forEach((key, raids) -> bulkOperations.upsert(
+        Query.query(Criteria.where(USER_IDENTIFIER).is(key.userIdentifier())
+            .and(RAID_NAME).is(key.raidName())),
+        Totals.of(raids).increment()));
+    return bulkOperations.execute().then();
+  }
+
+  @Override
+  public Flux<RaidStatistics> rebuild(String userIdentifier) {
+    Query userQuery = Query.query(Criteria.where(USER_IDENTIFIER).is(userIdentifier));
+    return reactiveMongoTemplate.find(userQuery, UserRaidDetails.class)
+        .collect(LinkedHashMap<String, List<UserRaidDetails>>::new, (raidsByName, raid) ->
+            raidsByName.computeIfAbsent(raid.getRaidName(), name -> new ArrayList<>()).add(raid))
+        .flatMap(raidsByName -> replaceAll(userIdentifier, raidsByName)
+            .then(reactiveMongoTemplate.remove(Query.query(
+                Criteria.where(USER_IDENTIFIER).is(userIdentifier)
+                    .and(RAID_NAME).nin(raidsByName.keySet())), RaidStatistics.class)))
+        .thenMany(Flux.defer(() -> reactiveMongoTemplate.find(userQuery, RaidStatistics.class)));
+  }
+
+  private Mono<Void> replaceAll(String userIdentifier,
+      Map<String, List<UserRaidDetails>> raidsByName) {
+    if (raidsByName.isEmpty()) {
+      return Mono.empty();
+    }
+    // The totals are computed the same way as the incremental updates, so both always agree
+    ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED,
+        RaidStatistics.class);
+    raidsByName.forEach((raidName, raids) -> bulkOperations.upsert(
+        Query.query(Criteria.where(USER_IDENTIFIER).is(userIdentifier)
+            .and(RAID_NAME).is(raidName)),
+        Totals.of(raids).replace()));
+    return bulkOperations.execute().then();
+  }
+
+  private record StatisticsKey(String userIdentifier, String raidName) {
+
+  }
+
+  /**
+   * Statistics of a set of raid entries, written either as increments of the stored statistics
+   * or as their new absolute values
+   */
+  private record Totals(int totalKills, int totalDeaths, int totalClears, int fullClears,
+                        int partialClears, int normalClears, int masterClears,
+                        Integer fastestTime) {
+
+    static Totals of(List<UserRaidDetails> raids) {
+      int totalKills = 0;
+      int totalDeaths = 0;
+      int totalClears = 0;
+      int fullClears = 0;
+      int partialClears = 0;
+      int normalClears = 0;
+      int masterClears = 0;
+      Integer fastestTime = null;
+      for (UserRaidDetails raid : raids) {
+        totalKills += Objects.requireNonNullElse(raid.getTotalKills(), 0);
+        totalDeaths += Objects.requireNonNullElse(raid.getTotalDeaths(), 0);
+        if (!Boolean.TRUE.equals(raid.getIsCompleted())) {
+          continue;
+        }
+        totalClears++;
+        if (Boolean.TRUE.equals(raid.getFromBeginning())) {
+          fullClears++;
+          Integer duration = raid.getDurationSeconds();
+          if (Objects.nonNull(duration)
+              && (Objects.isNull(fastestTime) || duration < fastestTime)) {
+            fastestTime = duration;
+          }
+        } else if (Boolean.FALSE.equals(raid.getFromBeginning())) {
+          partialClears++;
+        }
+        if (raid.getRaidDifficulty() == RaidDifficulty.NORMAL) {
+          normalClears++;
+        } else if (raid.getRaidDifficulty() == RaidDifficulty.MASTER) {
+          masterClears++;
+        }
+      }
+      return new Totals(totalKills, totalDeaths, totalClears, fullClears, partialClears,
+          normalClears, masterClears, fastestTime);
+    }
+
+    Update increment() {
+      Update update = new Update()
+          .inc("totalKills", totalKills)
+          .inc("totalDeaths", totalDeaths)
+          .inc("totalClears", totalClears)
+          .inc("fullClears", fullClears)
+          .inc("partialClears", partialClears)
+          .inc("normalClears", normalClears)
+          .inc("masterClears", masterClears);
+      if (Objects.nonNull(fastestTime)) {
+        update.min("fastestTime", fastestTime);
+      }
+      return update;
+    }
+
+    Update replace() {
+      Update update = new Update()
+          .set("totalKills", totalKills)
+          .set("totalDeaths", totalDeaths)
+          .set("totalClears", totalClears)
+          .set("fullClears", fullClears)
+          .set("partialClears", partialClears)
+          .set("normalClears", normalClears)
+          .set("masterClears", masterClears);
+      return Objects.isNull(fastestTime) ?
+          update.unset("fastestTime") : update.set("fastestTime", fastestTime);
+    }
+  }
+}
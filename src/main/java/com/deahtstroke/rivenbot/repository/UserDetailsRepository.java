@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserDetailsRepository extends ReactiveMongoRepository<UserDetails, String> {
+public interface UserDetailsRepository extends ReactiveMongoRepository<UserDetails, String>,
+    UserDetailsRepositoryCustom {
 
 }
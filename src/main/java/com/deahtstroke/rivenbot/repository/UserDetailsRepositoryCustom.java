@@ -0,0 +1,35 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.CharacterSyncCursor;
+import java.time.Instant;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+
+/**
+ * Partial updates of user details that are not covered by Spring Data's derived queries
+ */
+public interface UserDetailsRepositoryCustom {
+
+  /**
+   * Record a finished sync of a user, creating the user if it doesn't exist. Only the last
+   * request time, the sync cursors and whether the statistics are up-to-date are written with
+   * $set, the rest of the document is left untouched, e.g., raid entries embedded by older
+   * versions that were not migrated yet. The statistics of the user are marked as up-to-date.
+   *
+   * @param userIdentifier      The identifier of the user
+   * @param lastRequestDateTime The instant the sync was requested
+   * @param syncCursors         The newest raid activity synced for each character
+   * @return Mono that completes once the update is acknowledged
+   */
+  Mono<Void> saveSyncState(String userIdentifier, Instant lastRequestDateTime,
+      Map<String, CharacterSyncCursor> syncCursors);
+
+  /**
+   * Mark the raid statistics of an existing user as not matching its stored raids, so that they
+   * are rebuilt by the next sync of the user
+   *
+   * @param userIdentifier The identifier of the user
+   * @return Mono that completes once the update is acknowledged
+   */
+  Mono<Void> markStatisticsStale(String userIdentifier);
+}
@@ -0,0 +1,44 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.CharacterSyncCursor;
+import com.deahtstroke.rivenbot.entity.UserDetails;
+import java.time.Instant;
+import java.util.Map;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+public class UserDetailsRepositoryCustomImpl implements UserDetailsRepositoryCustom {
+
+  private static final String STATISTICS_UP_TO_DATE = "statisticsUpToDate";
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public UserDetailsRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Void> saveSyncState(String userIdentifier, Instant lastRequestDateTime,
+      Map<String, CharacterSyncCursor> syncCursors) {
+    Update syncState = new Update()
+        .set("lastRequestDateTime", lastRequestDateTime)
+        .set("syncCursors", syncCursors)
+        .set(STATISTICS_UP_TO_DATE, true);
+    return reactiveMongoTemplate.upsert(user(userIdentifier), syncState, UserDetails.class)
+        .then();
+  }
+
+  @Override
+  public Mono<Void> markStatisticsStale(String userIdentifier) {
+    return reactiveMongoTemplate.updateFirst(user(userIdentifier),
+            new Update().set(STATISTICS_UP_TO_DATE, false), UserDetails.class)
+        .then();
+  }
+
+  private static Query user(String userIdentifier) {
+    return Query.query(Criteria.where("_id").is(userIdentifier));
+  }
+}
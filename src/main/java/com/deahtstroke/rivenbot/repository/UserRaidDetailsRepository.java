@@ -0,0 +1,11 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserRaidDetailsRepository extends ReactiveMongoRepository<UserRaidDetails, String>,
+    UserRaidDetailsRepositoryCustom {
+
+}
@@ -0,0 +1,21 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulk operations for user raid entries that are not covered by Spring Data's derived queries
+ */
+public interface UserRaidDetailsRepositoryCustom {
+
+  /**
+   * Upsert a batch of raid entries in a single unordered bulk write. Entries are matched by user
+   * and instanceId, so writing the same raid twice replaces the stored entry instead of
+   * duplicating it.
+   *
+   * @param raidDetails The raid entries to write, every entry must have its user identifier set
+   * @return The entries that were not stored before, once the bulk write is acknowledged
+   */
+  Mono<List<UserRaidDetails>> upsertAll(List<UserRaidDetails> raidDetails);
+}
@@ -0,0 +1,39 @@
+package com.deahtstroke.rivenbot.repository;
+
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import java.util.List;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+public class UserRaidDetailsRepositoryCustomImpl implements UserRaidDetailsRepositoryCustom {
+
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public UserRaidDetailsRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<List<UserRaidDetails>> upsertAll(List<UserRaidDetails> raidDetails) {
+    if (raidDetails.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    ReactiveBulkOperations bulkOperations = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED,
+        UserRaidDetails.class);
+    for (UserRaidDetails raid : raidDetails) {
+      Query sameRaid = Query.query(Criteria.where("userIdentifier").is(raid.getUserIdentifier())
+          .and("instanceId").is(raid.getInstanceId()));
+      bulkOperations.replaceOne(sameRaid, raid, FindAndReplaceOptions.options().upsert());
+    }
+    // Only the upserted entries are reported back, replaced ones were already stored
+    return bulkOperations.execute()
+        .map(result -> result.getUpserts().stream()
+            .map(upsert -> raidDetails.get(upsert.getIndex()))
+            .toList());
+  }
+}
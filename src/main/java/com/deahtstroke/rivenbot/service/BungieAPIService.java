@@ -26,9 +26,11 @@ public class BungieAPIService {
   private static final Integer RAID_MODE = 4;
 
   private final BungieClient defaultBungieClient;
+  private final ManifestService manifestService;
 
-  public BungieAPIService(BungieClient defaultBungieClient) {
+  public BungieAPIService(BungieClient defaultBungieClient, ManifestService manifestService) {
     this.defaultBungieClient = defaultBungieClient;
+    this.manifestService = manifestService;
   }
 
   /**
@@ -75,8 +77,8 @@ public class BungieAPIService {
   }
 
   /**
-   * Retrieves a manifest entity from Bungie's manifest database, checking the cache first before
-   * calling Bungie
+   * Retrieves a manifest entity from Bungie's manifest database, checking the cache and the local
+   * manifest stores first before calling Bungie
    *
    * @param entityType The type of the entity
    * @param hash       The hash of the entity
@@ -84,9 +86,11 @@ public class BungieAPIService {
    */
   @Cacheable(cacheNames = "manifestEntity", cacheManager = "inMemoryCacheManager")
   public Mono<ManifestResponseFields> getManifestEntity(ManifestEntity entityType, Long hash) {
-    return defaultBungieClient.getManifestEntity(entityType.getId(), hash).cache()
-        .filter(Objects::nonNull)
-        .map(BungieResponse::getResponse);
+    return manifestService.getManifestEntity(entityType, hash)
+        .switchIfEmpty(Mono.defer(() ->
+            defaultBungieClient.getManifestEntity(entityType.getId(), hash)
+                .filter(Objects::nonNull)
+                .map(BungieResponse::getResponse)));
   }
 
   /**
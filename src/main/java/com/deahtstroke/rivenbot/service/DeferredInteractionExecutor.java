@@ -0,0 +1,198 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.config.DeferredJobConfiguration;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitResult;
+
+/**
+ * Runs the work behind deferred interactions, i.e., interactions that were answered with a
+ * "thinking..." response and are edited once the work is done. Jobs wait in a bounded queue and
+ * only a fixed amount of them run at the same time. Every job must finish before the interaction
+ * token expires, jobs that fail or time out get to tell the user about it. Jobs that are still
+ * queued or running when the application shuts down are cancelled and get to tell the user too,
+ * so no interaction is left "thinking..." until its token expires.
+ * <br>
+ * Queue depth, time spent in the queue and run time are exported as metrics.
+ * <br>
+ * Jobs run detached from the request that submitted them, so the thread-local context of the
+ * submitter, e.g., its observation and the interaction it answers, is captured on submission and
+ * restored for the job. Every job is observed as a child of the observation that submitted it.
+ */
+@Slf4j
+@Service
+public class DeferredInteractionExecutor implements DisposableBean {
+
+  private static final String QUEUE_DEPTH_METRIC = "interactions.deferred.queue.depth";
+  private static final String WAIT_TIME_METRIC = "interactions.deferred.wait";
+  private static final String RUN_TIME_METRIC = "interactions.deferred.run";
+  private static final String REJECTED_METRIC = "interactions.deferred.rejected";
+  private static final String JOB_OBSERVATION = "interactions.deferred.job";
+
+  private final DeferredJobConfiguration properties;
+  private final MeterRegistry meterRegistry;
+  private final ObservationRegistry observationRegistry;
+  private final ContextSnapshotFactory snapshotFactory;
+  private final BlockingQueue<DeferredJob> pending;
+  private final Sinks.Many<DeferredJob> queue;
+  private final Queue<DeferredJob> interrupted;
+  private final AtomicInteger queueDepth;
+  private final Timer waitTimer;
+  private final Counter rejectedCounter;
+  private final Disposable worker;
+  private boolean shutdown;
+
+  public DeferredInteractionExecutor(DeferredJobConfiguration properties,
+      MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.observationRegistry = observationRegistry;
+    this.snapshotFactory = ContextSnapshotFactory.builder().build();
+    this.pending = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    this.queue = Sinks.many().unicast().onBackpressureBuffer(pending);
+    this.interrupted = new ConcurrentLinkedQueue<>();
+    this.queueDepth = new AtomicInteger(0);
+
+    Gauge.builder(QUEUE_DEPTH_METRIC, queueDepth, AtomicInteger::get)
+        .description("Deferred interaction jobs waiting for a free slot")
+        .register(meterRegistry);
+    this.waitTimer = Timer.builder(WAIT_TIME_METRIC)
+        .description("Time deferred interaction jobs spent in the queue")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder(REJECTED_METRIC)
+        .description("Deferred interaction jobs turned down because the queue was full")
+        .register(meterRegistry);
+
+    this.worker = queue.asFlux()
+        .flatMap(this::run, properties.getMaxConcurrency())
+        .subscribe();
+  }
+
+  /**
+   * Queue the work of a deferred interaction
+   *
+   * @param name      The name of the job, e.g., the slash command it answers
+   * @param work      The work to run, it isn't subscribed to until the job starts
+   * @param onFailure Tells the user that the job failed or timed out
+   * @return True if the job was queued, False if the queue is full or the application is
+   * shutting down
+   */
+  public synchronized boolean submit(String name, Mono<Void> work,
+      Function<Throwable, Mono<Void>> onFailure) {
+    if (shutdown) {
+      log.warn("Turned down deferred job [{}], the application is shutting down", name);
+      return false;
+    }
+    queueDepth.incrementAndGet();
+    EmitResult result = queue.tryEmitNext(new DeferredJob(name, work, onFailure,
+        System.nanoTime(), snapshotFactory.captureAll(),
+        observationRegistry.getCurrentObservation()));
+    if (result.isFailure()) {
+      queueDepth.decrementAndGet();
+      rejectedCounter.increment();
+      log.warn("Turned down deferred job [{}], result: [{}]", name, result);
+      return false;
+    }
+    return true;
+  }
+
+  private Mono<Void> run(DeferredJob job) {
+    queueDepth.decrementAndGet();
+    Duration waited = Duration.ofNanos(System.nanoTime() - job.submittedAt());
+    waitTimer.record(waited);
+
+    Duration remaining = properties.getTimeout().minus(waited);
+    Timer.Sample sample = Timer.start(meterRegistry);
+    Observation observation = Observation.createNotStarted(JOB_OBSERVATION, observationRegistry)
+        .contextualName("deferred " + job.name())
+        .parentObservation(job.submitter())
+        .lowCardinalityKeyValue("job", job.name())
+        .start();
+    return job.work()
+        .doOnError(observation::error)
+        .doFinally(signal -> observation.stop())
+        .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation))
+        .contextWrite(job.snapshot()::updateContext)
+        .timeout(remaining.isNegative() ? Duration.ZERO : remaining)
+        .thenReturn("success")
+        .onErrorResume(error -> {
+          boolean timedOut = error instanceof TimeoutException;
+          log.error("Deferred job [{}] {}", job.name(), timedOut ? "timed out" : "failed", error);
+          return reportFailure(job, error)
+              .thenReturn(timedOut ? "timeout" : "error");
+        })
+        .doOnNext(outcome -> sample.stop(Timer.builder(RUN_TIME_METRIC)
+            .description("Time deferred interaction jobs took to run")
+            .tag("job", job.name())
+            .tag("outcome", outcome)
+            .register(meterRegistry)))
+        .then()
+        // Only the worker cancels a whole job, i.e., when the application shuts down
+        .doOnCancel(() -> interrupted.add(job));
+  }
+
+  private Mono<Void> reportFailure(DeferredJob job, Throwable error) {
+    return Mono.defer(() -> job.onFailure().apply(error))
+        .onErrorResume(failure -> {
+          log.warn("Unable to report the failure of deferred job [{}]", job.name(), failure);
+          return Mono.empty();
+        });
+  }
+
+  /**
+   * Cancel the jobs that are still queued or running and tell their users about it. Waits up to
+   * the configured shutdown timeout for the users to be told
+   */
+  @Override
+  public void destroy() {
+    List<DeferredJob> cancelled = new ArrayList<>();
+    synchronized (this) {
+      shutdown = true;
+      pending.drainTo(cancelled);
+    }
+    worker.dispose();
+    queueDepth.set(0);
+    cancelled.addAll(interrupted);
+    log.info("Cancelled deferred jobs, [{}] were still queued or running", cancelled.size());
+
+    CancellationException shutdownError = new CancellationException(
+        "The application is shutting down");
+    Flux.fromIterable(cancelled)
+        .flatMap(job -> reportFailure(job, shutdownError))
+        .then()
+        .timeout(properties.getShutdownTimeout(), Mono.fromRunnable(() -> log.warn(
+            "Gave up telling users about [{}] cancelled deferred jobs", cancelled.size())))
+        .block();
+  }
+
+  private record DeferredJob(String name, Mono<Void> work,
+                             Function<Throwable, Mono<Void>> onFailure, long submittedAt,
+                             ContextSnapshot snapshot, Observation submitter) {
+
+  }
+}
@@ -0,0 +1,291 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.DestinyManifest;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.enums.ManifestEntity;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
+import com.deahtstroke.rivenbot.manifest.ManifestSnapshot;
+import com.deahtstroke.rivenbot.manifest.ManifestStore;
+import com.deahtstroke.rivenbot.manifest.ManifestStoreWriter;
+import com.deahtstroke.rivenbot.manifest.RaidCatalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps a local copy of the Destiny Manifest entities the application uses so that definitions
+ * can be looked up without calling Bungie. The Json content of every configured entity is
+ * downloaded once per manifest version and converted into a memory-mapped {@link ManifestStore}.
+ * <br>
+ * The stores of the loaded version are published as a single {@link ManifestSnapshot}. When
+ * Bungie publishes a new version, the next snapshot is built in the background and swapped in
+ * atomically, readers never wait on a download nor see a partially loaded version.
+ */
+@Slf4j
+@Service
+public class ManifestService {
+
+  private final BungieClient defaultBungieClient;
+  private final WebClient manifestWebClient;
+  private final BungieConfiguration.Manifest properties;
+  private final ObjectMapper objectMapper;
+  private final ManifestStoreWriter manifestStoreWriter;
+  private final AtomicReference<ManifestSnapshot> currentSnapshot;
+  private final AtomicBoolean refreshing;
+
+  public ManifestService(BungieClient defaultBungieClient, WebClient manifestWebClient,
+      BungieConfiguration bungieConfiguration, ObjectMapper objectMapper) {
+    this.defaultBungieClient = defaultBungieClient;
+    this.manifestWebClient = manifestWebClient;
+    this.properties = bungieConfiguration.getManifest();
+    this.objectMapper = objectMapper;
+    this.manifestStoreWriter = new ManifestStoreWriter(objectMapper);
+    this.currentSnapshot = new AtomicReference<>();
+    this.refreshing = new AtomicBoolean(false);
+  }
+
+  /**
+   * Loads the manifest once the application is ready to take requests, lookups fall back to
+   * Bungie until the local stores are ready
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (Boolean.TRUE.equals(properties.getLoadOnStartup())) {
+      refreshManifest().subscribe(
+          version -> log.info("Loaded Destiny Manifest version [{}]", version),
+          error -> log.error("Unable to load the Destiny Manifest", error));
+    }
+  }
+
+  /**
+   * Periodically compares the version of the manifest published by Bungie against the loaded one
+   * and swaps in the new version whenever they differ
+   */
+  @Scheduled(fixedDelayString = "${bungie.api.manifest.versionCheckInterval:PT1H}",
+      initialDelayString = "${bungie.api.manifest.versionCheckInterval:PT1H}")
+  public void checkForNewVersion() {
+    if (Boolean.TRUE.equals(properties.getWatchVersion())) {
+      refreshManifest().subscribe(
+          version -> log.debug("Destiny Manifest version [{}] is loaded", version),
+          error -> log.error("Unable to refresh the Destiny Manifest", error));
+    }
+  }
+
+  /**
+   * Loads the current version of the manifest if it differs from the one already loaded. Only one
+   * refresh runs at a time, concurrent calls complete empty.
+   *
+   * @return The version of the manifest that is loaded after the refresh
+   */
+  public Mono<String> refreshManifest() {
+    return Mono.defer(() -> {
+      if (!refreshing.compareAndSet(false, true)) {
+        return Mono.empty();
+      }
+      return defaultBungieClient.getManifest()
+          .mapNotNull(BungieResponse::getResponse)
+          .switchIfEmpty(Mono.error(new InternalServerException(
+              "No Destiny Manifest was available for processing",
+              HttpStatus.INTERNAL_SERVER_ERROR)))
+          .flatMap(manifest -> {
+            ManifestSnapshot loaded = currentSnapshot.get();
+            if (Objects.nonNull(loaded)
+                && Objects.equals(loaded.getVersion(), manifest.getVersion())) {
+              return Mono.just(loaded.getVersion());
+            }
+            log.info("Destiny Manifest version changed from [{}] to [{}]",
+                Objects.nonNull(loaded) ? loaded.getVersion() : null, manifest.getVersion());
+            return buildSnapshot(manifest)
+                .doOnNext(this::publish)
+                .map(ManifestSnapshot::getVersion);
+          })
+          .doFinally(signal -> refreshing.set(false));
+    });
+  }
+
+  /**
+   * Look up a manifest entity in the local stores
+   *
+   * @param entityType The type of the entity
+   * @param hash       The hash of the entity
+   * @return {@link ManifestResponseFields} or empty if the entity is not stored locally
+   */
+  public Mono<ManifestResponseFields> getManifestEntity(ManifestEntity entityType, Long hash) {
+    if (Objects.isNull(hash)) {
+      return Mono.empty();
+    }
+    return Mono.fromSupplier(() -> withSnapshot(snapshot ->
+        snapshot.get(entityType.getId(), hash)));
+  }
+
+  /**
+   * The version of the manifest currently served locally
+   *
+   * @return the version, or empty if the manifest has not been loaded yet
+   */
+  public Optional<String> getLoadedVersion() {
+    return Optional.ofNullable(currentSnapshot.get()).map(ManifestSnapshot::getVersion);
+  }
+
+  /**
+   * The raid catalog built from the manifest currently served locally. The catalog is plain heap
+   * data, it stays valid after the snapshot it was built from is swapped out.
+   *
+   * @return {@link RaidCatalog}, empty if the manifest has not been loaded yet
+   */
+  public RaidCatalog getRaidCatalog() {
+    ManifestSnapshot snapshot = currentSnapshot.get();
+    return Objects.isNull(snapshot) ? RaidCatalog.EMPTY : snapshot.getRaidCatalog();
+  }
+
+  private <T> T withSnapshot(Function<ManifestSnapshot, T> lookup) {
+    ManifestSnapshot snapshot;
+    do {
+      snapshot = currentSnapshot.get();
+      if (Objects.isNull(snapshot)) {
+        return null;
+      }
+      // A failed acquire means the snapshot was swapped and released in the meantime
+    } while (!snapshot.acquire());
+    try {
+      return lookup.apply(snapshot);
+    } finally {
+      snapshot.release();
+    }
+  }
+
+  private void publish(ManifestSnapshot snapshot) {
+    ManifestSnapshot previous = currentSnapshot.getAndSet(snapshot);
+    if (Objects.nonNull(previous)) {
+      previous.release();
+    } else {
+      deleteOtherVersions(snapshot.getVersion());
+    }
+  }
+
+  private Mono<ManifestSnapshot> buildSnapshot(DestinyManifest manifest) {
+    return Mono.defer(() -> {
+      Path directory = versionDirectory(manifest.getVersion());
+      Map<String, ManifestStore> stores = new ConcurrentHashMap<>();
+      return Flux.fromIterable(properties.getEntities())
+          .map(ManifestEntity::getId)
+          .distinct()
+          .concatMap(entityId -> loadStore(manifest, entityId)
+              .doOnNext(store -> stores.put(entityId, store)))
+          .then(Mono.fromCallable(() -> {
+            ManifestStore activityStore = stores.get(ManifestEntity.ACTIVITY_DEFINITION.getId());
+            RaidCatalog raidCatalog = Objects.isNull(activityStore) ?
+                RaidCatalog.EMPTY : RaidCatalog.fromStore(activityStore);
+            log.info("Built raid catalog with [{}] raid activities for manifest version [{}]",
+                raidCatalog.size(), manifest.getVersion());
+            return new ManifestSnapshot(manifest.getVersion(), directory, stores, raidCatalog,
+                Schedulers.boundedElastic());
+          }).subscribeOn(Schedulers.boundedElastic()))
+          .doOnError(error -> discard(directory, stores))
+          .doOnCancel(() -> discard(directory, stores));
+    });
+  }
+
+  /**
+   * Close the stores opened for a snapshot that could not be built and delete its directory, so a
+   * partially written store is never reused
+   */
+  private void discard(Path directory, Map<String, ManifestStore> stores) {
+    Schedulers.boundedElastic().schedule(() -> {
+      stores.values().forEach(ManifestSnapshot::closeQuietly);
+      ManifestSnapshot.deleteQuietly(directory);
+    });
+  }
+
+  /**
+   * Delete the directories left behind by versions loaded in previous runs of the application
+   */
+  private void deleteOtherVersions(String version) {
+    Path current = versionDirectory(version);
+    Schedulers.boundedElastic().schedule(() -> {
+      try (Stream<Path> directories = Files.list(current.getParent())) {
+        directories.filter(Files::isDirectory)
+            .filter(directory -> !directory.equals(current))
+            .forEach(ManifestSnapshot::deleteQuietly);
+      } catch (IOException e) {
+        log.warn("Unable to list manifest directories in [{}]", current.getParent(), e);
+      }
+    });
+  }
+
+  private Mono<ManifestStore> loadStore(DestinyManifest manifest, String entityId) {
+    String contentPath = Optional.ofNullable(manifest.getJsonWorldComponentContentPaths())
+        .map(paths -> paths.get(properties.getLocale()))
+        .map(paths -> paths.get(entityId))
+        .orElse(null);
+    if (Objects.isNull(contentPath)) {
+      return Mono.error(new InternalServerException(
+          "Manifest version [%s] has no content for entity [%s] and locale [%s]".formatted(
+              manifest.getVersion(), entityId, properties.getLocale()),
+          HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+
+    Path storePath = versionDirectory(manifest.getVersion()).resolve(entityId + ".store");
+    return Mono.fromCallable(() -> Files.exists(storePath))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(exists -> exists ?
+            Mono.just(storePath) : downloadStore(contentPath, storePath))
+        .flatMap(path -> Mono.fromCallable(() -> ManifestStore.open(path, objectMapper))
+            .subscribeOn(Schedulers.boundedElastic()));
+  }
+
+  private Mono<Path> downloadStore(String contentPath, Path storePath) {
+    Path contentFile = storePath.resolveSibling(storePath.getFileName() + ".json");
+    return Mono.fromCallable(() -> Files.createDirectories(storePath.getParent()))
+        .subscribeOn(Schedulers.boundedElastic())
+        .then(DataBufferUtils.write(manifestWebClient.get()
+            .uri(contentPath)
+            .retrieve()
+            .bodyToFlux(DataBuffer.class), contentFile))
+        .then(Mono.fromCallable(() -> {
+          int entries = manifestStoreWriter.write(contentFile, storePath);
+          log.info("Wrote [{}] manifest entries from [{}] to [{}]", entries, contentPath,
+              storePath);
+          return storePath;
+        }).subscribeOn(Schedulers.boundedElastic()))
+        .doFinally(signal -> deleteQuietly(contentFile));
+  }
+
+  private Path versionDirectory(String version) {
+    String directoryName = Objects.requireNonNullElse(version, "unknown")
+        .replaceAll("[^A-Za-z0-9._-]", "_");
+    return Path.of(properties.getDirectory(), directoryName);
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Unable to delete temporary manifest file [{}]", path, e);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.config.AutocompleteConfiguration;
+import com.deahtstroke.rivenbot.dto.destiny.DestinyMembershipData;
+import com.deahtstroke.rivenbot.dto.destiny.MemberGroupResponse;
+import com.deahtstroke.rivenbot.dto.destiny.UserGlobalSearchBody;
+import com.deahtstroke.rivenbot.dto.destiny.UserSearchResult;
+import com.deahtstroke.rivenbot.dto.discord.Choice;
+import com.deahtstroke.rivenbot.service.PlayerNameIndex.Entry;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Suggests players for the username option of commands while it is being typed. Discord drops
+ * autocomplete responses that take longer than 3 seconds, so the choices are answered from the
+ * local {@link PlayerNameIndex} first and Bungie is only searched, within a time budget, when the
+ * index doesn't have enough players for the prefix. The choices for a prefix are reused for a
+ * short while so that the same keystrokes by different users don't reach Bungie again, unless the
+ * search was cut short by the time budget or failed.
+ */
+@Slf4j
+@Service
+public class PlayerAutocompleteService {
+
+  private static final int MAX_CHOICES = 25;
+  private static final String UNIQUE_NAME_FORMAT = "%s#%04d";
+  private static final String CLAN_NAME_FORMAT = "%s[%s]";
+  private static final Integer CLAN_GROUP_TYPE = 1;
+  private static final Integer CLAN_SIZE_FILTER = 0;
+
+  private final BungieClient defaultBungieClient;
+  private final PlayerNameIndex playerNameIndex;
+  private final AutocompleteConfiguration properties;
+  private final AsyncCache<String, Lookup> choicesByPrefix;
+
+  public PlayerAutocompleteService(BungieClient defaultBungieClient,
+      PlayerNameIndex playerNameIndex, AutocompleteConfiguration properties) {
+    this.defaultBungieClient = defaultBungieClient;
+    this.playerNameIndex = playerNameIndex;
+    this.properties = properties;
+    this.choicesByPrefix = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxCachedResults())
+        .expireAfterWrite(properties.getResultTtl())
+        .buildAsync();
+  }
+
+  /**
+   * Find the choices for a partially typed player name. The Mono always completes with the
+   * choices that were found in time, which may be none.
+   *
+   * @param prefix What the user typed so far
+   * @return At most 25 choices, named after the player and their clan and valued with the
+   * membership type and ID of the player, e.g., 3:4611686018467284386
+   */
+  public Mono<List<Choice>> autocomplete(String prefix) {
+    String normalized = prefix == null ? "" : prefix.strip().toLowerCase(Locale.ROOT);
+    return Mono.defer(() -> {
+      CompletableFuture<Lookup> lookup = choicesByPrefix.get(normalized,
+          (key, executor) -> lookup(key).toFuture());
+      return Mono.fromFuture(lookup, true)
+          .map(result -> {
+            // Requests that came in meanwhile got the partial choices too, later ones search again
+            if (!result.complete()) {
+              choicesByPrefix.asMap().remove(normalized, lookup);
+            }
+            return result.choices();
+          });
+    });
+  }
+
+  private Mono<Lookup> lookup(String prefix) {
+    List<Entry> indexed = playerNameIndex.search(prefix, MAX_CHOICES);
+    if (indexed.size() >= MAX_CHOICES || !StringUtils.hasText(prefix)) {
+      return Mono.just(new Lookup(toChoices(indexed, List.of()), true));
+    }
+    return Mono.defer(() -> {
+      AtomicBoolean complete = new AtomicBoolean(false);
+      return searchBungie(prefix, complete)
+          .collectList()
+          .map(found -> new Lookup(toChoices(indexed, found), complete.get()));
+    });
+  }
+
+  private Flux<Entry> searchBungie(String prefix, AtomicBoolean complete) {
+    return defaultBungieClient.searchByGlobalName(new UserGlobalSearchBody(prefix), 0)
+        .flatMapIterable(response -> response.getResponse().getSearchResults())
+        .filter(result -> CollectionUtils.isNotEmpty(result.getDestinyMemberships()))
+        .take(MAX_CHOICES)
+        .flatMap(this::withClan)
+        .map(playerNameIndex::add)
+        .doOnComplete(() -> complete.set(true))
+        // Players that were found by the deadline are returned, the rest is dropped
+        .take(properties.getDeadline())
+        .onErrorResume(error -> {
+          log.warn("Unable to search Bungie for players named [{}]", prefix, error);
+          return Flux.empty();
+        });
+  }
+
+  private Mono<Entry> withClan(UserSearchResult result) {
+    DestinyMembershipData membership = result.getDestinyMemberships().getFirst();
+    Entry player = new Entry(
+        UNIQUE_NAME_FORMAT.formatted(result.getBungieGlobalDisplayName(),
+            result.getBungieGlobalDisplayNameCode()),
+        null, membership.getMembershipType(), membership.getMembershipId());
+    return defaultBungieClient.getGroupsForMember(player.membershipType(), player.membershipId(),
+            CLAN_SIZE_FILTER, CLAN_GROUP_TYPE)
+        .mapNotNull(response -> clanName(response.getResponse()))
+        .map(clanName -> new Entry(player.bungieName(), clanName, player.membershipType(),
+            player.membershipId()))
+        .timeout(properties.getClanLookupTimeout(), Mono.empty())
+        .onErrorResume(error -> {
+          log.debug("Unable to find the clan of player [{}]", player.bungieName(), error);
+          return Mono.empty();
+        })
+        .defaultIfEmpty(player);
+  }
+
+  private static String clanName(MemberGroupResponse groupResponse) {
+    if (groupResponse == null || CollectionUtils.isEmpty(groupResponse.getResults())) {
+      return null;
+    }
+    return groupResponse.getResults().getFirst().getGroup().getName();
+  }
+
+  private static List<Choice> toChoices(List<Entry> indexed, List<Entry> found) {
+    // Players found in Bungie replace their indexed entry, which may be missing the clan
+    Map<String, Entry> players = new LinkedHashMap<>();
+    indexed.forEach(player -> players.put(player.value(), player));
+    found.forEach(player -> players.put(player.value(), player));
+    return players.values().stream()
+        .limit(MAX_CHOICES)
+        .map(player -> new Choice(player.clanName() == null ? player.bungieName() :
+            CLAN_NAME_FORMAT.formatted(player.bungieName(), player.clanName()),
+            player.value()))
+        .toList();
+  }
+
+  /**
+   * The choices for a prefix and whether every player Bungie found made it in time
+   */
+  private record Lookup(List<Choice> choices, boolean complete) {
+
+  }
+}
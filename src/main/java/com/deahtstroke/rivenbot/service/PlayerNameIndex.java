@@ -0,0 +1,156 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.config.AutocompleteConfiguration;
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import com.deahtstroke.rivenbot.entity.PlayerEntryDetails;
+import com.deahtstroke.rivenbot.repository.PGCRRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Local index of the players that were recently seen, either in a search for their name or as
+ * participants of a raid, so that autocomplete choices can be suggested without calling Bungie.
+ * <br>
+ * Players are found by the prefix of their Bungie name, e.g., {@code Deaht#8}, or of their clan
+ * name. The terms are kept in a sorted map, so finding every player for a prefix is a range scan.
+ * The index is bounded in size, the players that are seen the least are evicted first.
+ */
+@Slf4j
+@Service
+public class PlayerNameIndex {
+
+  private static final String UNIQUE_NAME_FORMAT = "%s#%04d";
+  private static final String VALUE_FORMAT = "%s:%s";
+  private static final char TERM_SEPARATOR = '\u0000';
+
+  private final AutocompleteConfiguration properties;
+  private final PGCRRepository pgcrRepository;
+  private final ConcurrentNavigableMap<String, Entry> terms;
+  private final Cache<String, Entry> players;
+
+  public PlayerNameIndex(AutocompleteConfiguration properties, PGCRRepository pgcrRepository) {
+    this.properties = properties;
+    this.pgcrRepository = pgcrRepository;
+    this.terms = new ConcurrentSkipListMap<>();
+    this.players = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxIndexedPlayers())
+        .executor(Runnable::run)
+        .<String, Entry>evictionListener((value, entry, cause) -> unindex(entry))
+        .build();
+  }
+
+  /**
+   * Seeds the index with the participants of the latest stored raids once the application is
+   * ready, autocomplete falls back to Bungie until then
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (Boolean.TRUE.equals(properties.getLoadOnStartup())) {
+      pgcrRepository.findLatestParticipants(properties.getStartupReports())
+          .doOnNext(this::addParticipants)
+          .count()
+          .subscribe(
+              reports -> log.info("Indexed the players of [{}] Post Game Carnage Reports", reports),
+              error -> log.error("Unable to index the players of stored raids", error));
+    }
+  }
+
+  /**
+   * Add or refresh a player in the index. A player that is added without a clan keeps the clan it
+   * was indexed with before.
+   *
+   * @param entry The player to add
+   * @return The player as it is indexed
+   */
+  public Entry add(Entry entry) {
+    return players.asMap().compute(entry.value(), (value, indexed) -> {
+      Entry merged = indexed == null || entry.clanName() != null ? entry :
+          new Entry(entry.bungieName(), indexed.clanName(), entry.membershipType(),
+              entry.membershipId());
+      if (indexed != null) {
+        unindex(indexed);
+      }
+      terms(merged).forEach(term -> terms.put(term, merged));
+      return merged;
+    });
+  }
+
+  /**
+   * Add every participant of a raid to the index
+   *
+   * @param report The Post Game Carnage Report of the raid
+   */
+  public void addParticipants(PGCRDetails report) {
+    if (CollectionUtils.isEmpty(report.getPlayers())) {
+      return;
+    }
+    for (PlayerEntryDetails player : report.getPlayers()) {
+      if (player.getPlayerName() != null && player.getPlayerTag() != null
+          && player.getMembershipType() != null && player.getMembershipId() != null) {
+        add(new Entry(UNIQUE_NAME_FORMAT.formatted(player.getPlayerName(), player.getPlayerTag()),
+            null, player.getMembershipType(), String.valueOf(player.getMembershipId())));
+      }
+    }
+  }
+
+  /**
+   * Find the players whose Bungie name or clan name start with the given prefix, ignoring case
+   *
+   * @param prefix The prefix to look for
+   * @param limit  The maximum amount of players to return
+   * @return The players sorted by the term that matched
+   */
+  public List<Entry> search(String prefix, int limit) {
+    String from = normalize(prefix);
+    return terms.subMap(from, from + Character.MAX_VALUE).values().stream()
+        .distinct()
+        .limit(limit)
+        .toList();
+  }
+
+  private void unindex(Entry entry) {
+    terms(entry).forEach(term -> terms.remove(term, entry));
+  }
+
+  private static Stream<String> terms(Entry entry) {
+    return Stream.of(entry.bungieName(), entry.clanName())
+        .filter(Objects::nonNull)
+        .map(term -> normalize(term) + TERM_SEPARATOR + entry.value());
+  }
+
+  private static String normalize(String term) {
+    return term.strip().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * A player in the index
+   *
+   * @param bungieName     The unique Bungie name of the player, e.g., Deaht#8080
+   * @param clanName       The name of the player's clan, null if unknown
+   * @param membershipType The membership type of the player
+   * @param membershipId   The membership ID of the player
+   */
+  public record Entry(String bungieName, String clanName, Integer membershipType,
+                      String membershipId) {
+
+    /**
+     * The value of the autocomplete choice for this player, e.g., 3:4611686018467284386
+     *
+     * @return The membership type and ID of the player
+     */
+    public String value() {
+      return VALUE_FORMAT.formatted(membershipType, membershipId);
+    }
+  }
+}
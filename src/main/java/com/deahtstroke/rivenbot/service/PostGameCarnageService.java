@@ -1,26 +1,22 @@
 package com.deahtstroke.rivenbot.service;
 
-import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
-import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import com.deahtstroke.rivenbot.client.CallCoalescer;
+import com.deahtstroke.rivenbot.client.ClientInstrumentation;
+import com.deahtstroke.rivenbot.codec.PostGameCarnageReportParser;
 import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
 import com.deahtstroke.rivenbot.mapper.PGCRMapper;
 import com.deahtstroke.rivenbot.repository.PGCRRepository;
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
-import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
-import io.netty.handler.codec.DecoderException;
-import java.time.Duration;
-import java.util.concurrent.atomic.AtomicInteger;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.ResolvableType;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferUtils;
-import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClient.Builder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -29,23 +25,32 @@ import reactor.core.publisher.Mono;
 public class PostGameCarnageService {
 
   private static final String PGCR_ENDPOINT_URL = "/Destiny2/Stats/PostGameCarnageReport/{activityId}/";
-  private static final RateLimiter PGCR_RATE_LIMITER = RateLimiter.of("pgcr-rate-limiter",
-      RateLimiterConfig.custom()
-          .limitForPeriod(23)
-          .limitRefreshPeriod(Duration.ofMillis(1500))
-          .timeoutDuration(Duration.ofSeconds(30))
-          .build());
+  private static final Integer DATABASE_LOOKUP_CHUNK_SIZE = 100;
+  private static final Integer MAX_CONCURRENT_BUNGIE_CALLS = 8;
+  private static final String PGCR_CLIENT_NAME = "bungie-stats";
+  private static final String PGCR_METHOD_NAME = "getPostGameCarnageReport";
+  private static final String PGCR_COALESCER_NAME = "pgcr";
 
-  private final WebClient.Builder builder;
+  private final WebClient pgcrWebClient;
   private final PGCRMapper pgcrMapper;
   private final PGCRRepository pgcrRepository;
+  private final PostGameCarnageReportParser pgcrParser;
+  private final PlayerNameIndex playerNameIndex;
+  private final ClientInstrumentation clientInstrumentation;
+  private final CallCoalescer callCoalescer;
 
   public PostGameCarnageService(
-      Builder builder, PGCRMapper pgcrMapper,
-      PGCRRepository pgcrRepository) {
-    this.builder = builder;
+      WebClient pgcrWebClient, PGCRMapper pgcrMapper,
+      PGCRRepository pgcrRepository, PostGameCarnageReportParser pgcrParser,
+      PlayerNameIndex playerNameIndex, ClientInstrumentation clientInstrumentation,
+      MeterRegistry meterRegistry) {
+    this.pgcrWebClient = pgcrWebClient;
     this.pgcrMapper = pgcrMapper;
     this.pgcrRepository = pgcrRepository;
+    this.pgcrParser = pgcrParser;
+    this.playerNameIndex = playerNameIndex;
+    this.clientInstrumentation = clientInstrumentation;
+    this.callCoalescer = new CallCoalescer(meterRegistry, PGCR_COALESCER_NAME);
   }
 
   /**
@@ -54,49 +59,85 @@ public class PostGameCarnageService {
    *
    * @param activityInstanceId the activity instanceId
    * @return {@link PGCRDetails}
-   * @noinspection unchecked
    */
   public Mono<PGCRDetails> retrievePGCR(Long activityInstanceId) {
-    WebClient webClient = builder.build();
-
-    Flux<DataBuffer> dataChunks = webClient.get()
-        .uri(PGCR_ENDPOINT_URL, activityInstanceId)
-        .exchangeToFlux(clientResponse -> clientResponse.body(BodyExtractors.toDataBuffers())
-            .concatMap(dataBuffer -> {
-              AtomicInteger currentSize = new AtomicInteger(0);
-              int chunkSize = dataBuffer.readableByteCount();
-              if (chunkSize + currentSize.get() > 16_000) {
-                return Mono.empty();
-              } else {
-                currentSize.addAndGet(chunkSize);
-                return Mono.just(dataBuffer);
-              }
-            }))
-        .transformDeferred(RateLimiterOperator.of(PGCR_RATE_LIMITER));
+    return retrievePGCRs(Flux.just(activityInstanceId)).next();
+  }
 
-    ParameterizedTypeReference<BungieResponse<PostGameCarnageReport>> typeReference =
-        new ParameterizedTypeReference<>() {
-        };
-    var remotePGCR = DataBufferUtils.join(dataChunks)
-        .mapNotNull(dataBuffer -> {
-          Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
-          if (decoder.canDecode(ResolvableType.forType(typeReference), null)) {
-            return (BungieResponse<PostGameCarnageReport>) decoder.decode(dataBuffer,
-                ResolvableType.forType(typeReference), null, null);
-          } else {
-            throw new DecoderException(
-                "Unable to decode Post Game Carnage Report to their respective object");
-          }
-        })
-        .map(BungieResponse::getResponse)
-        .flatMap(
-            response -> pgcrRepository.save(pgcrMapper.dtoToEntity(response, activityInstanceId)))
-        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+  /**
+   * Return the Post Game Carnage Reports of a batch of activities. Instance IDs are deduplicated
+   * and looked up in the database in chunks, only the reports that are missing are requested from
+   * Bungie and every chunk of new reports is written back in a single bulk write. Reports are not
+   * emitted in the same order as the instance IDs. The participants of every report are added to
+   * the {@link PlayerNameIndex} for autocomplete. Reports found in the database and fetched from
+   * Bungie are counted in the {@link SyncStats} of the sync this runs in, if any. If a report of a
+   * chunk can't be fetched from Bungie the rest of the chunk is still stored and an
+   * {@link InternalServerException} is emitted, so the sync fails before moving its cursors and
+   * the missing reports are requested again by the next sync.
+   *
+   * @param activityInstanceIds the activity instanceIds
+   * @return Flux of {@link PGCRDetails}
+   */
+  public Flux<PGCRDetails> retrievePGCRs(Flux<Long> activityInstanceIds) {
+    return Flux.deferContextual(context -> {
+      SyncStats stats = SyncStats.from(context);
+      return activityInstanceIds
+          .distinct()
+          .buffer(DATABASE_LOOKUP_CHUNK_SIZE)
+          .concatMap(instanceIds -> pgcrRepository.findAllById(instanceIds)
+              .collectList()
+              .flatMapMany(storedReports -> {
+                stats.reportsStored(storedReports.size());
+                List<Long> failedIds = new CopyOnWriteArrayList<>();
+                Set<Long> storedIds = storedReports.stream()
+                    .map(PGCRDetails::getInstanceId)
+                    .collect(Collectors.toSet());
+                Flux<PGCRDetails> newReports = Flux.fromIterable(instanceIds)
+                    .filter(instanceId -> !storedIds.contains(instanceId))
+                    .flatMap(instanceId -> fetchPGCR(instanceId)
+                        .onErrorResume(error -> {
+                          // The other reports of the chunk are still fetched and stored, so
+                          // they are not requested again when the sync is retried
+                          log.warn("Unable to retrieve Post Game Carnage Report [{}]",
+                              instanceId, error);
+                          failedIds.add(instanceId);
+                          return Mono.empty();
+                        }), MAX_CONCURRENT_BUNGIE_CALLS)
+                    .collectList()
+                    .doOnNext(reports -> stats.reportsFetched(reports.size()))
+                    .flatMapMany(reports -> pgcrRepository.insertAll(reports)
+                        .then(Mono.defer(() -> failedIds.isEmpty() ? Mono.<Void>empty() :
+                            Mono.error(new InternalServerException(
+                                "Unable to retrieve Post Game Carnage Reports %s".formatted(
+                                    failedIds), HttpStatus.INTERNAL_SERVER_ERROR))))
+                        .thenMany(Flux.fromIterable(reports)));
+                return Flux.concat(Flux.fromIterable(storedReports), newReports);
+              }))
+          .doOnNext(playerNameIndex::addParticipants);
+    });
+  }
 
-    Mono<PGCRDetails> cachedPGCR = pgcrRepository.findById(activityInstanceId);
+  /**
+   * Retrieve a Post Game Carnage Report from Bungie without storing it. The response body is
+   * decoded as it streams in and only the fields that are stored are extracted. The call is
+   * measured like the calls of the instrumented Bungie clients. Raids are shared by the members of
+   * a fireteam, so syncs that need the same report at the same time share one call to Bungie.
+   *
+   * @param activityInstanceId the activity instanceId
+   * @return {@link PGCRDetails}
+   */
+  private Mono<PGCRDetails> fetchPGCR(Long activityInstanceId) {
+    return callCoalescer.coalesce(PGCR_METHOD_NAME, () -> requestPGCR(activityInstanceId),
+        activityInstanceId);
+  }
 
-    return pgcrRepository.existsById(activityInstanceId)
-        .flatMap(existsById -> existsById ? cachedPGCR : remotePGCR);
+  private Mono<PGCRDetails> requestPGCR(Long activityInstanceId) {
+    return clientInstrumentation.measure(PGCR_CLIENT_NAME, PGCR_METHOD_NAME, pgcrWebClient.get()
+            .uri(PGCR_ENDPOINT_URL, activityInstanceId)
+            .exchangeToMono(clientResponse -> clientResponse.statusCode().is2xxSuccessful() ?
+                pgcrParser.parse(clientResponse.body(BodyExtractors.toDataBuffers())) :
+                clientResponse.createError()))
+        .map(response -> pgcrMapper.dtoToEntity(response, activityInstanceId));
   }
 
 }
@@ -0,0 +1,152 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.config.CacheConfiguration;
+import com.deahtstroke.rivenbot.dto.CachedRaidStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Redis cache of computed raid stats responses keyed by the unique Bungie name of the user, which
+ * is case-insensitive. Cached responses are served as soon as they are found, when they are older
+ * than the soft TTL they are also recomputed in the background so that the next lookup sees fresh
+ * data. Only a miss waits for the statistics to be computed. Background recomputations are jobs of
+ * the {@link DeferredInteractionExecutor}, so they share its concurrency limit with the
+ * interactions and are skipped when its queue is full.
+ * <br>
+ * Every response is also reachable by the membership of the user, so lookups coming from the
+ * autocomplete options don't need to resolve the unique name through Bungie first. Redis errors
+ * are treated as misses.
+ */
+@Slf4j
+@Service
+public class RaidStatsCache {
+
+  private static final String USER_KEY = "raid-stats:user:%s";
+  private static final String MEMBERSHIP_KEY = "raid-stats:membership:%s:%s";
+  private static final String REFRESH_JOB = "raid_stats_refresh";
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final CacheConfiguration.RaidStatsCacheSpec properties;
+  private final DeferredInteractionExecutor deferredInteractionExecutor;
+  private final Set<String> refreshing;
+
+  public RaidStatsCache(ReactiveStringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+      CacheConfiguration cacheConfiguration,
+      DeferredInteractionExecutor deferredInteractionExecutor) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.properties = cacheConfiguration.getRaidStats();
+    this.deferredInteractionExecutor = deferredInteractionExecutor;
+    this.refreshing = ConcurrentHashMap.newKeySet();
+  }
+
+  private static String userKey(String uniqueName) {
+    return USER_KEY.formatted(uniqueName.toLowerCase(Locale.ROOT));
+  }
+
+  private static String membershipKey(Integer membershipType, String membershipId) {
+    return MEMBERSHIP_KEY.formatted(membershipType, membershipId);
+  }
+
+  /**
+   * Get the raid stats of a user by its unique name
+   *
+   * @param uniqueName The unique Bungie name of the user, e.g., Deaht#8080
+   * @param loader     Computes the raid stats when they are not cached or are stale
+   * @return {@link CachedRaidStats}
+   */
+  public Mono<CachedRaidStats> getByUniqueName(String uniqueName,
+      Supplier<Mono<CachedRaidStats>> loader) {
+    return read(userKey(uniqueName))
+        .map(cached -> revalidateIfStale(cached, loader))
+        .switchIfEmpty(Mono.defer(() -> load(loader)));
+  }
+
+  /**
+   * Get the raid stats of a user by its Destiny 2 membership
+   *
+   * @param membershipType The membershipType of the user
+   * @param membershipId   The membershipId of the user
+   * @param loader         Computes the raid stats when they are not cached or are stale
+   * @return {@link CachedRaidStats}
+   */
+  public Mono<CachedRaidStats> getByMembership(Integer membershipType, String membershipId,
+      Supplier<Mono<CachedRaidStats>> loader) {
+    return redisTemplate.opsForValue().get(membershipKey(membershipType, membershipId))
+        .onErrorResume(error -> {
+          log.warn("Unable to read raid stats key for membership [{}:{}]", membershipType,
+              membershipId, error);
+          return Mono.empty();
+        })
+        .flatMap(uniqueName -> read(userKey(uniqueName)))
+        .map(cached -> revalidateIfStale(cached, loader))
+        .switchIfEmpty(Mono.defer(() -> load(loader)));
+  }
+
+  private CachedRaidStats revalidateIfStale(CachedRaidStats cached,
+      Supplier<Mono<CachedRaidStats>> loader) {
+    Duration age = Duration.between(cached.getComputedAt(), Instant.now());
+    String uniqueName = cached.getUniqueName();
+    String key = userKey(uniqueName);
+    if (age.compareTo(properties.getSoftTtl()) <= 0 || !refreshing.add(key)) {
+      return cached;
+    }
+    Mono<Void> refresh = Mono.defer(() -> load(loader))
+        .doOnNext(refreshed -> log.debug("Refreshed cached raid stats for user [{}]", uniqueName))
+        .doFinally(signal -> refreshing.remove(key))
+        .then();
+    boolean submitted = deferredInteractionExecutor.submit(REFRESH_JOB, refresh, error -> {
+      log.warn("Unable to refresh cached raid stats for user [{}]", uniqueName, error);
+      return Mono.empty();
+    });
+    if (!submitted) {
+      refreshing.remove(key);
+    }
+    return cached;
+  }
+
+  private Mono<CachedRaidStats> load(Supplier<Mono<CachedRaidStats>> loader) {
+    return loader.get()
+        .flatMap(computed -> write(computed).thenReturn(computed));
+  }
+
+  private Mono<CachedRaidStats> read(String key) {
+    return redisTemplate.opsForValue().get(key)
+        .map(json -> {
+          try {
+            return objectMapper.readValue(json, CachedRaidStats.class);
+          } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted cached raid stats", e);
+          }
+        })
+        .onErrorResume(error -> {
+          log.warn("Unable to read cached raid stats [{}]", key, error);
+          return Mono.empty();
+        });
+  }
+
+  private Mono<Void> write(CachedRaidStats computed) {
+    return Mono.fromCallable(() -> objectMapper.writeValueAsString(computed))
+        .flatMap(json -> redisTemplate.opsForValue()
+            .set(userKey(computed.getUniqueName()), json, properties.getTtl()))
+        .then(redisTemplate.opsForValue().set(
+            membershipKey(computed.getMembershipType(), computed.getMembershipId()),
+            computed.getUniqueName(), properties.getTtl()))
+        .then()
+        .onErrorResume(error -> {
+          log.warn("Unable to cache raid stats for user [{}]", computed.getUniqueName(), error);
+          return Mono.empty();
+        });
+  }
+}
@@ -0,0 +1,94 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.service.SyncStats.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Reports the {@link SyncStats} of every sync of a user's raid history, both as metrics tagged
+ * with the type of sync and as a single summary log line per sync. The summary is written as
+ * key=value pairs so it can be parsed with Loki's logfmt parser.
+ */
+@Slf4j
+@Component
+public class RaidSyncMetrics {
+
+  private static final String TYPE = "type";
+  private static final String SOURCE = "source";
+
+  private final MeterRegistry meterRegistry;
+
+  public RaidSyncMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Record a sync that terminated
+   *
+   * @param syncType       The type of sync, e.g., create or update
+   * @param uniqueUsername The user that was synced, only logged and never used as a tag
+   * @param stats          The stats of the sync
+   * @param signal         The signal the sync terminated with
+   * @param total          The wall time of the whole sync
+   */
+  public void record(String syncType, String uniqueUsername, SyncStats stats, SignalType signal,
+      Duration total) {
+    String outcome = outcome(signal);
+    Timer.builder("raid.sync")
+        .description("Wall time of syncs of a user's raid history")
+        .tags(TYPE, syncType, "outcome", outcome)
+        .register(meterRegistry)
+        .record(total);
+    for (Stage stage : Stage.values()) {
+      Timer.builder("raid.sync.stage")
+          .description("Time spent in every stage of syncs of a user's raid history")
+          .tags(TYPE, syncType, "stage", stage.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry)
+          .record(stats.getStageTime(stage));
+    }
+    DistributionSummary.builder("raid.sync.pages")
+        .description("Activity history pages fetched per sync")
+        .tags(TYPE, syncType)
+        .register(meterRegistry)
+        .record(stats.getPagesFetched());
+    DistributionSummary.builder("raid.sync.activities")
+        .description("Activities scanned per sync")
+        .tags(TYPE, syncType)
+        .register(meterRegistry)
+        .record(stats.getActivitiesScanned());
+    counter("raid.sync.manifest.lookups", syncType, "catalog").increment(stats.getCatalogHits());
+    counter("raid.sync.manifest.lookups", syncType, "bungie").increment(stats.getManifestLookups());
+    counter("raid.sync.reports", syncType, "database").increment(stats.getStoredReports());
+    counter("raid.sync.reports", syncType, "bungie").increment(stats.getFetchedReports());
+
+    log.info("Raid sync summary type={} user=[{}] outcome={} totalMs={} historyMs={} reportsMs={}"
+             + " writeMs={} pages={} activities={} catalogHits={} manifestLookups={}"
+             + " storedReports={} fetchedReports={}",
+        syncType, uniqueUsername, outcome, total.toMillis(),
+        stats.getStageTime(Stage.HISTORY).toMillis(), stats.getStageTime(Stage.REPORTS).toMillis(),
+        stats.getStageTime(Stage.WRITE).toMillis(), stats.getPagesFetched(),
+        stats.getActivitiesScanned(), stats.getCatalogHits(), stats.getManifestLookups(),
+        stats.getStoredReports(), stats.getFetchedReports());
+  }
+
+  private Counter counter(String name, String syncType, String source) {
+    return Counter.builder(name)
+        .tags(TYPE, syncType, SOURCE, source)
+        .register(meterRegistry);
+  }
+
+  private static String outcome(SignalType signal) {
+    return switch (signal) {
+      case ON_ERROR -> "error";
+      case CANCEL -> "cancelled";
+      default -> "success";
+    };
+  }
+}
@@ -0,0 +1,187 @@
+package com.deahtstroke.rivenbot.service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Progress of a single sync of a user's raid history and where its time and calls went. Every sync
+ * gets its own instance in the Reactor Context, see {@link UserSyncCoordinator}, and updates it as
+ * the activity history of every character is scanned. The progress is reported to the user while
+ * the sync runs and the rest is reported through {@link RaidSyncMetrics} once the sync
+ * terminates.
+ * <br>
+ * Requests keep an instance that follows the one of the sync they run or attach to, so they can
+ * report its progress.
+ */
+public class SyncStats {
+
+  /**
+   * Named stages of a sync, stages of a sync run one after the other
+   */
+  public enum Stage {
+    /**
+     * Reading the characters and their activity history and building their raid details
+     */
+    HISTORY,
+    /**
+     * Retrieving the Post Game Carnage Reports of the new raids
+     */
+    REPORTS,
+    /**
+     * Writing the raids and the user to the database
+     */
+    WRITE
+  }
+
+  private final AtomicInteger totalCharacters = new AtomicInteger(0);
+  private final AtomicInteger syncedCharacters = new AtomicInteger(0);
+  private final AtomicLong pagesFetched = new AtomicLong(0);
+  private final AtomicLong activitiesScanned = new AtomicLong(0);
+  private final AtomicLong catalogHits = new AtomicLong(0);
+  private final AtomicLong manifestLookups = new AtomicLong(0);
+  private final AtomicLong storedReports = new AtomicLong(0);
+  private final AtomicLong fetchedReports = new AtomicLong(0);
+  private final Map<Stage, AtomicLong> stageNanos = new EnumMap<>(Stage.class);
+  private final AtomicReference<SyncStats> followed = new AtomicReference<>();
+
+  public SyncStats() {
+    for (Stage stage : Stage.values()) {
+      stageNanos.put(stage, new AtomicLong(0));
+    }
+  }
+
+  /**
+   * Context that makes a sync record its progress and stats to the given instance
+   *
+   * @param stats The stats to record to
+   * @return {@link Context}
+   */
+  public static Context with(SyncStats stats) {
+    return Context.of(SyncStats.class, stats);
+  }
+
+  /**
+   * The stats of the sync running with the given context, work done outside a sync gets an
+   * instance that is never read
+   *
+   * @param context The context of the sync
+   * @return {@link SyncStats}
+   */
+  public static SyncStats from(ContextView context) {
+    return context.getOrDefault(SyncStats.class, new SyncStats());
+  }
+
+  /**
+   * Add the time between the subscription to the given Mono and its termination to a stage
+   *
+   * @param stage The stage the Mono belongs to
+   * @param mono  The work of the stage
+   * @param <T>   The type of the Mono
+   * @return The same Mono, timed
+   */
+  public <T> Mono<T> time(Stage stage, Mono<T> mono) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return mono.doFinally(signal -> stageNanos.get(stage).addAndGet(System.nanoTime() - start));
+    });
+  }
+
+  /**
+   * Report the progress of another instance from now on instead of this one's
+   *
+   * @param stats The instance to follow
+   */
+  public void follow(SyncStats stats) {
+    if (stats != this) {
+      followed.set(stats);
+    }
+  }
+
+  public void charactersFound(int characters) {
+    totalCharacters.addAndGet(characters);
+  }
+
+  public void characterSynced() {
+    syncedCharacters.incrementAndGet();
+  }
+
+  public void pageFetched() {
+    pagesFetched.incrementAndGet();
+  }
+
+  public void activityScanned() {
+    activitiesScanned.incrementAndGet();
+  }
+
+  public void catalogHit() {
+    catalogHits.incrementAndGet();
+  }
+
+  public void manifestLookup() {
+    manifestLookups.incrementAndGet();
+  }
+
+  public void reportsStored(int reports) {
+    storedReports.addAndGet(reports);
+  }
+
+  public void reportsFetched(int reports) {
+    fetchedReports.addAndGet(reports);
+  }
+
+  public long getPagesFetched() {
+    return pagesFetched.get();
+  }
+
+  public long getActivitiesScanned() {
+    return activitiesScanned.get();
+  }
+
+  public long getCatalogHits() {
+    return catalogHits.get();
+  }
+
+  public long getManifestLookups() {
+    return manifestLookups.get();
+  }
+
+  public long getStoredReports() {
+    return storedReports.get();
+  }
+
+  public long getFetchedReports() {
+    return fetchedReports.get();
+  }
+
+  public Duration getStageTime(Stage stage) {
+    return Duration.ofNanos(stageNanos.get(stage).get());
+  }
+
+  public Progress progress() {
+    SyncStats stats = followed.get();
+    if (Objects.nonNull(stats)) {
+      return stats.progress();
+    }
+    return new Progress(activitiesScanned.get(), syncedCharacters.get(), totalCharacters.get());
+  }
+
+  public record Progress(long scannedActivities, int syncedCharacters, int totalCharacters) {
+
+    /**
+     * Whether the sync got far enough to have something to report
+     *
+     * @return True once the characters of the user are known
+     */
+    public boolean hasStarted() {
+      return totalCharacters > 0;
+    }
+  }
+}
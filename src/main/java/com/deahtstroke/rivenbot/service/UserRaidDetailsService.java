@@ -4,21 +4,31 @@ import com.deahtstroke.rivenbot.dto.destiny.ActivitiesResponse;
 import com.deahtstroke.rivenbot.dto.destiny.Activity;
 import com.deahtstroke.rivenbot.dto.destiny.Basic;
 import com.deahtstroke.rivenbot.dto.destiny.ValueEntry;
+import com.deahtstroke.rivenbot.entity.CharacterSyncCursor;
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
 import com.deahtstroke.rivenbot.entity.UserDetails;
 import com.deahtstroke.rivenbot.entity.UserRaidDetails;
 import com.deahtstroke.rivenbot.enums.ManifestEntity;
-import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import com.deahtstroke.rivenbot.manifest.RaidCatalog;
+import com.deahtstroke.rivenbot.manifest.RaidCatalog.RaidActivity;
+import com.deahtstroke.rivenbot.repository.RaidStatisticsRepository;
 import com.deahtstroke.rivenbot.repository.UserDetailsRepository;
+import com.deahtstroke.rivenbot.repository.UserRaidDetailsRepository;
+import com.deahtstroke.rivenbot.service.SyncStats.Stage;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 @Service
 @Slf4j
@@ -27,21 +37,36 @@ public class UserRaidDetailsService {
   private static final Integer MAX_SANE_AMOUNT_OF_RAID_PAGES = 50;
   private static final Integer MAX_PAGE_COUNT = 250;
   private static final String EMPTY_RAID_NAME = "empty_name";
+  private static final String CREATE_SYNC = "create";
+  private static final String UPDATE_SYNC = "update";
 
   private static final Integer MAX_MANIFEST_CONCURRENT_CALLS = 2;
-  private static final Integer MAX_CONCURRENT_ACTIVITY_HISTORY_CALLS = 3;
+  // Largest probe window, at most this many calls minus one go past the end of a history
+  private static final Integer MAX_ACTIVITY_HISTORY_WINDOW = 4;
 
   private final UserDetailsRepository userDetailsRepository;
+  private final UserRaidDetailsRepository userRaidDetailsRepository;
+  private final RaidStatisticsRepository raidStatisticsRepository;
   private final PostGameCarnageService postGameCarnageService;
   private final BungieAPIService bungieAPIService;
+  private final ManifestService manifestService;
+  private final RaidSyncMetrics raidSyncMetrics;
 
   public UserRaidDetailsService(
       UserDetailsRepository userDetailsRepository,
+      UserRaidDetailsRepository userRaidDetailsRepository,
+      RaidStatisticsRepository raidStatisticsRepository,
       PostGameCarnageService postGameCarnageService,
-      BungieAPIService bungieAPIService) {
+      BungieAPIService bungieAPIService,
+      ManifestService manifestService,
+      RaidSyncMetrics raidSyncMetrics) {
     this.userDetailsRepository = userDetailsRepository;
+    this.userRaidDetailsRepository = userRaidDetailsRepository;
+    this.raidStatisticsRepository = raidStatisticsRepository;
     this.postGameCarnageService = postGameCarnageService;
     this.bungieAPIService = bungieAPIService;
+    this.manifestService = manifestService;
+    this.raidSyncMetrics = raidSyncMetrics;
   }
 
   /**
@@ -55,7 +80,11 @@ public class UserRaidDetailsService {
   }
 
   /**
-   * Creates user details for a new user that hasn't been seen yet
+   * Creates user details for a new user that hasn't been seen yet. Raid entries are written to
+   * their own collection before the user is saved, so a user only exists once all of its raids
+   * were stored, and its raid statistics are built from every stored raid, so a creation that is
+   * retried after stopping midway doesn't miss any. The newest raid of every character becomes its
+   * sync cursor. The stages of the creation are reported through {@link RaidSyncMetrics}
    *
    * @param creationInstant The instant this creation action was fired
    * @param membershipId    The membershipId of the newly created user
@@ -65,21 +94,35 @@ public class UserRaidDetailsService {
    */
   public Mono<UserDetails> createUserDetails(Instant creationInstant, String uniqueUsername,
       String membershipId, Integer membershipType) {
-    return bungieAPIService.getUserCharacters(membershipType, membershipId)
-        .flatMapMany(characters -> Flux.fromIterable(characters.keySet()))
-        .flatMap(characterId -> getActivitiesAll(membershipType, membershipId, characterId))
-        .flatMap(this::buildRaidDetails, MAX_MANIFEST_CONCURRENT_CALLS)
-        .flatMap(this::addPGCRDetails)
-        .collectList()
-        .flatMap(raidDetails -> {
-          UserDetails newEntry = new UserDetails(uniqueUsername, null, creationInstant,
-              raidDetails);
-          return userDetailsRepository.save(newEntry);
-        });
+    return instrumentSync(CREATE_SYNC, uniqueUsername, stats -> Mono.defer(() -> {
+      Map<String, CharacterSyncCursor> syncCursors = new ConcurrentHashMap<>();
+      Mono<List<UserRaidDetails>> history = bungieAPIService.getUserCharacters(membershipType,
+              membershipId)
+          .doOnNext(characters -> stats.charactersFound(characters.size()))
+          .flatMapMany(characters -> Flux.fromIterable(characters.keySet()))
+          .flatMap(characterId -> trackCharacterSync(characterId,
+              getActivitiesAll(membershipType, membershipId, characterId), syncCursors, stats))
+          .flatMap(activity -> buildRaidDetails(activity, stats), MAX_MANIFEST_CONCURRENT_CALLS)
+          .collectList();
+      return stats.time(Stage.HISTORY, history)
+          .flatMap(raidDetails -> stats.time(Stage.REPORTS, addPGCRDetails(raidDetails)))
+          .flatMap(raidDetails -> stats.time(Stage.WRITE,
+              saveRaidDetailsAndRebuild(uniqueUsername, raidDetails)))
+          .then(Mono.defer(() -> stats.time(Stage.WRITE,
+                  userDetailsRepository.saveSyncState(uniqueUsername, creationInstant,
+                      syncCursors))
+              .thenReturn(new UserDetails(uniqueUsername, null, creationInstant,
+                  syncCursors, true))));
+    }));
   }
 
   /**
-   * Updates user details for a user that has already been seen by the bot
+   * Updates user details for a user that has already been seen by the bot. Every character's
+   * history is read up to its sync cursor, or up to the last request for characters without one,
+   * and only those raids are written and added to the user's statistics, or the statistics are
+   * rebuilt if they are not up-to-date. The cursors and the last request timestamp are moved
+   * forward once the raids are stored, without rewriting the rest of the user's document. The
+   * stages of the update are reported through {@link RaidSyncMetrics}
    *
    * @param updateTimestamp The timestamp when this update action was fired
    * @param membershipId    The membershipId of the newly created user
@@ -89,33 +132,82 @@ public class UserRaidDetailsService {
    */
   public Mono<UserDetails> updateUserDetails(Instant updateTimestamp, String uniqueUsername,
       String membershipId, Integer membershipType) {
-    return userDetailsRepository.findById(uniqueUsername)
-        .flatMap(userDetails -> bungieAPIService.getUserCharacters(membershipType, membershipId)
-            .flatMapIterable(Map::keySet)
-            .flatMap(characterId -> getActivitiesUntil(membershipType, membershipId,
-                characterId, userDetails.getLastRequestDateTime())
-                .flatMap(this::buildRaidDetails, MAX_MANIFEST_CONCURRENT_CALLS)
-                .flatMap(this::addPGCRDetails))
-            .collectList()
-            .flatMap(raidDetails -> {
-              userDetails.setLastRequestDateTime(updateTimestamp);
-              if (CollectionUtils.isEmpty(raidDetails)) {
-                log.warn(
-                    "No new raid encounters were found for user [{}]. Last time requested set to: [{}]",
-                    uniqueUsername, updateTimestamp);
-              } else {
-                log.info(
-                    "Adding [{}] new raid encounters for user [{}]. Last time requested set to: [{}]",
-                    raidDetails.size(), uniqueUsername, updateTimestamp);
-                userDetails.getUserRaidDetails().addAll(raidDetails);
-              }
-              return userDetailsRepository.save(userDetails);
-            }));
+    return instrumentSync(UPDATE_SYNC, uniqueUsername, stats -> userDetailsRepository
+        .findById(uniqueUsername)
+        .flatMap(userDetails -> Mono.defer(() -> {
+          Map<String, CharacterSyncCursor> syncCursors = new ConcurrentHashMap<>(
+              Objects.requireNonNullElse(userDetails.getSyncCursors(), Map.of()));
+          Mono<List<UserRaidDetails>> history = bungieAPIService.getUserCharacters(
+                  membershipType, membershipId)
+              .doOnNext(characters -> stats.charactersFound(characters.size()))
+              .flatMapIterable(Map::keySet)
+              .flatMap(characterId -> {
+                CharacterSyncCursor cursor = syncCursors.get(characterId);
+                Flux<Activity> newActivities = Objects.isNull(cursor) ?
+                    getActivitiesUntil(membershipType, membershipId, characterId,
+                        userDetails.getLastRequestDateTime()) :
+                    getActivitiesSince(membershipType, membershipId, characterId, cursor);
+                return trackCharacterSync(characterId, newActivities, syncCursors, stats)
+                    .flatMap(activity -> buildRaidDetails(activity, stats),
+                        MAX_MANIFEST_CONCURRENT_CALLS);
+              })
+              .collectList();
+          return stats.time(Stage.HISTORY, history)
+              .flatMap(raidDetails -> stats.time(Stage.REPORTS, addPGCRDetails(raidDetails)))
+              .flatMap(raidDetails -> {
+                if (CollectionUtils.isEmpty(raidDetails)) {
+                  log.warn(
+                      "No new raid encounters were found for user [{}]. Last time requested set to: [{}]",
+                      uniqueUsername, updateTimestamp);
+                } else {
+                  log.info(
+                      "Adding [{}] new raid encounters for user [{}]. Last time requested set to: [{}]",
+                      raidDetails.size(), uniqueUsername, updateTimestamp);
+                }
+                boolean statisticsUpToDate =
+                    Boolean.TRUE.equals(userDetails.getStatisticsUpToDate());
+                return stats.time(Stage.WRITE, statisticsUpToDate ?
+                    saveRaidDetails(uniqueUsername, raidDetails) :
+                    saveRaidDetailsAndRebuild(uniqueUsername, raidDetails));
+              })
+              .then(Mono.defer(() -> stats.time(Stage.WRITE,
+                      userDetailsRepository.saveSyncState(uniqueUsername, updateTimestamp,
+                          syncCursors))
+                  .then(Mono.fromSupplier(() -> {
+                    userDetails.setLastRequestDateTime(updateTimestamp);
+                    userDetails.setSyncCursors(syncCursors);
+                    userDetails.setStatisticsUpToDate(true);
+                    return userDetails;
+                  }))));
+        })));
+  }
+
+  private <T> Mono<T> instrumentSync(String syncType, String uniqueUsername,
+      Function<SyncStats, Mono<T>> sync) {
+    return Mono.deferContextual(context -> {
+      SyncStats stats = SyncStats.from(context);
+      long start = System.nanoTime();
+      return sync.apply(stats)
+          .doFinally(signal -> recordSync(syncType, uniqueUsername, stats, signal, start))
+          .contextWrite(SyncStats.with(stats));
+    });
+  }
+
+  private void recordSync(String syncType, String uniqueUsername, SyncStats stats,
+      SignalType signal, long start) {
+    raidSyncMetrics.record(syncType, uniqueUsername, stats, signal,
+        Duration.ofNanos(System.nanoTime() - start));
   }
 
   /**
    * Get activities from the user's character activity history. This is an exhaustive operation and
-   * won't finish until all activities are retrieved
+   * won't finish until all activities are retrieved.
+   * <br>
+   * The length of the history is not known upfront, so it is probed in growing windows: the first
+   * page is fetched alone and every following window fetches as many pages as were already fetched,
+   * in parallel, up to four pages per window. Probing stops with the window that contains the first
+   * short page, so no more than three calls go past the end of the history and a 40 page history is
+   * retrieved in twelve round trips
    *
    * @param membershipType The membershipType of the user
    * @param membershipId   The membershipId of the user
@@ -124,22 +216,44 @@ public class UserRaidDetailsService {
    */
   public Flux<Activity> getActivitiesAll(Integer membershipType, String membershipId,
       String characterId) {
-    return Flux.range(0, MAX_SANE_AMOUNT_OF_RAID_PAGES)
-        .flatMapSequential(pageNumber ->
-            bungieAPIService.getRaidActivities(membershipType, membershipId,
-                characterId, pageNumber), MAX_CONCURRENT_ACTIVITY_HISTORY_CALLS)
-        .takeUntil(response ->
-            CollectionUtils.isEmpty(response.getActivities()) ||
-            response.getActivities().size() < MAX_PAGE_COUNT)
+    return getHistoryPages(membershipType, membershipId, characterId, 0)
         .filter(response -> Objects.nonNull(response.getActivities()))
-        .flatMapIterable(ActivitiesResponse::getActivities)
-        .switchIfEmpty(Flux.empty());
+        .flatMapIterable(ActivitiesResponse::getActivities);
+  }
+
+  private Flux<ActivitiesResponse> getHistoryPages(Integer membershipType, String membershipId,
+      String characterId, int firstPage) {
+    int windowSize = Math.min(Math.max(1, firstPage), MAX_ACTIVITY_HISTORY_WINDOW);
+    int windowEnd = Math.min(firstPage + windowSize, MAX_SANE_AMOUNT_OF_RAID_PAGES);
+    return Flux.range(firstPage, windowEnd - firstPage)
+        .flatMapSequential(pageNumber -> getHistoryPage(membershipType, membershipId,
+            characterId, pageNumber), MAX_ACTIVITY_HISTORY_WINDOW)
+        .collectList()
+        .flatMapMany(window -> {
+          boolean historyEnded = window.stream().anyMatch(this::isLastHistoryPage) ||
+                                 windowEnd >= MAX_SANE_AMOUNT_OF_RAID_PAGES;
+          Flux<ActivitiesResponse> pages = Flux.fromIterable(window)
+              .takeUntil(this::isLastHistoryPage);
+          return historyEnded ? pages : pages.concatWith(
+              getHistoryPages(membershipType, membershipId, characterId, windowEnd));
+        });
+  }
+
+  private Mono<ActivitiesResponse> getHistoryPage(Integer membershipType, String membershipId,
+      String characterId, Integer pageNumber) {
+    return Mono.deferContextual(context -> bungieAPIService.getRaidActivities(membershipType,
+            membershipId, characterId, pageNumber)
+        .doOnNext(page -> SyncStats.from(context).pageFetched()));
+  }
+
+  private boolean isLastHistoryPage(ActivitiesResponse response) {
+    return CollectionUtils.isEmpty(response.getActivities()) ||
+           response.getActivities().size() < MAX_PAGE_COUNT;
   }
 
   /**
    * Gets all the activities from the user's character activity history until an instant in time.
-   * Like {@link #getActivitiesAll} this operation is exhaustive and won't stop until the predicate
-   * is true.
+   * Used for characters that were synced before sync cursors were stored
    *
    * @param membershipType The membershipType of the user
    * @param membershipId   The membershipId of the user
@@ -149,80 +263,130 @@ public class UserRaidDetailsService {
    */
   public Flux<Activity> getActivitiesUntil(Integer membershipType, String membershipId,
       String characterId, Instant until) {
+    return getActivitiesSince(membershipType, membershipId, characterId,
+        new CharacterSyncCursor(null, until));
+  }
+
+  /**
+   * Gets the activities from the user's character activity history that are newer than its sync
+   * cursor. The history is ordered from newest to oldest, so pages are fetched one at a time and
+   * paging stops at the first activity that was already synced. A character without new raids
+   * costs a single call
+   *
+   * @param membershipType The membershipType of the user
+   * @param membershipId   The membershipId of the user
+   * @param characterId    The characterId of the user
+   * @param cursor         The newest activity synced for the character
+   * @return Flux of the activities that were not synced yet, newest first
+   */
+  public Flux<Activity> getActivitiesSince(Integer membershipType, String membershipId,
+      String characterId, CharacterSyncCursor cursor) {
     return Flux.range(0, MAX_SANE_AMOUNT_OF_RAID_PAGES)
-        .flatMapSequential(pageNumber ->
-            bungieAPIService.getRaidActivities(membershipType, membershipId, characterId,
-                pageNumber), MAX_CONCURRENT_ACTIVITY_HISTORY_CALLS)
-        .filter(response -> Objects.nonNull(response) && Objects.nonNull(response.getActivities()))
-        .takeUntil(response -> {
-          boolean nullResponse = Objects.isNull(response);
-          boolean emptyActivities = CollectionUtils.isEmpty(response.getActivities());
-
-          List<Activity> activities = response.getActivities();
-          long newRaidCount = activities.stream()
-              .filter(activity -> activity.getPeriod().isAfter(until))
-              .count();
-          boolean noMoreNewDataAvailable = newRaidCount < MAX_PAGE_COUNT;
-          return nullResponse || emptyActivities || noMoreNewDataAvailable;
-        })
+        .concatMap(pageNumber -> getHistoryPage(membershipType, membershipId, characterId,
+            pageNumber))
+        .takeUntil(this::isLastHistoryPage)
+        .filter(response -> Objects.nonNull(response.getActivities()))
         .flatMapIterable(ActivitiesResponse::getActivities)
-        .filter(activity -> activity.getPeriod().isAfter(until))
-        .switchIfEmpty(Flux.empty());
+        .takeWhile(activity -> isNewerThan(activity, cursor));
+  }
+
+  private Flux<Activity> trackCharacterSync(String characterId, Flux<Activity> activities,
+      Map<String, CharacterSyncCursor> syncCursors, SyncStats stats) {
+    // Activities come newest first, so the first one is the new cursor of the character. They are
+    // passed on as they arrive, so their raid details are built while the history is still read
+    return Flux.defer(() -> {
+      AtomicBoolean newestTracked = new AtomicBoolean(false);
+      return activities
+          .doOnNext(activity -> {
+            stats.activityScanned();
+            if (newestTracked.compareAndSet(false, true)) {
+              syncCursors.put(characterId, new CharacterSyncCursor(
+                  activity.getActivityDetails().getInstanceId(), activity.getPeriod()));
+            }
+          })
+          .doOnComplete(stats::characterSynced);
+    });
   }
 
-  private Mono<UserRaidDetails> addPGCRDetails(UserRaidDetails userRaidDetails) {
-    return postGameCarnageService.retrievePGCR(userRaidDetails.getInstanceId())
-        .map(report -> {
-          userRaidDetails.setFromBeginning(report.getFromBeginning());
+  private Mono<Void> saveRaidDetails(String userIdentifier, List<UserRaidDetails> raidDetails) {
+    if (raidDetails.isEmpty()) {
+      return Mono.empty();
+    }
+    raidDetails.forEach(raid -> raid.setUserIdentifier(userIdentifier));
+    // The statistics stay marked as stale until the sync state is saved, so a sync that stops
+    // between storing the raids and adding them up is followed by a rebuild
+    return userDetailsRepository.markStatisticsStale(userIdentifier)
+        .then(userRaidDetailsRepository.upsertAll(raidDetails))
+        .flatMap(raidStatisticsRepository::incrementAll);
+  }
+
+  private Mono<Void> saveRaidDetailsAndRebuild(String userIdentifier,
+      List<UserRaidDetails> raidDetails) {
+    raidDetails.forEach(raid -> raid.setUserIdentifier(userIdentifier));
+    return userRaidDetailsRepository.upsertAll(raidDetails)
+        .thenMany(Flux.defer(() -> raidStatisticsRepository.rebuild(userIdentifier)))
+        .then();
+  }
+
+  private Mono<List<UserRaidDetails>> addPGCRDetails(List<UserRaidDetails> userRaidDetails) {
+    Flux<Long> instanceIds = Flux.fromIterable(userRaidDetails)
+        .map(UserRaidDetails::getInstanceId);
+    return postGameCarnageService.retrievePGCRs(instanceIds)
+        .filter(report -> Objects.nonNull(report.getFromBeginning()))
+        .collectMap(PGCRDetails::getInstanceId, PGCRDetails::getFromBeginning)
+        .map(fromBeginning -> {
+          userRaidDetails.forEach(raidDetails -> raidDetails.setFromBeginning(
+              fromBeginning.get(raidDetails.getInstanceId())));
           return userRaidDetails;
         });
   }
 
-  private Mono<UserRaidDetails> buildRaidDetails(Activity activity) {
-    return bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION,
-            activity.getActivityDetails().getDirectorActivityHash())
+  private Mono<UserRaidDetails> buildRaidDetails(Activity activity, SyncStats stats) {
+    Long activityHash = activity.getActivityDetails().getDirectorActivityHash();
+    RaidActivity raidActivity = Objects.isNull(activityHash) ? null :
+        manifestService.getRaidCatalog().find(activityHash);
+    if (Objects.nonNull(raidActivity)) {
+      stats.catalogHit();
+      return Mono.just(toRaidDetails(activity, raidActivity));
+    }
+    stats.manifestLookup();
+    // The activity is not in the catalog, either the manifest is not loaded yet or Bungie
+    // released new content since the last version check
+    return bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, activityHash)
         .map(entity -> {
-              boolean emptyRaidDetails =
-                  entity.getDisplayProperties() == null ||
-                  entity.getDisplayProperties().getName() == null;
-
-              String raidName = emptyRaidDetails ? EMPTY_RAID_NAME :
-                  resolveRaidName(entity.getDisplayProperties().getName());
-              RaidDifficulty raidDifficulty = emptyRaidDetails ? null :
-                  resolveRaidDifficult(entity.getDisplayProperties().getName());
-
-              var valuesMap = activity.getValues();
-              var instanceId = activity.getActivityDetails().getInstanceId();
-              Function<String, Double> retrieveByKey = key -> valuesMap.getOrDefault(
-                  key, new ValueEntry(null, new Basic(0.0, "0.0"))).getBasic().getValue();
-              return UserRaidDetails.builder()
-                  .raidName(raidName)
-                  .instanceId(instanceId)
-                  .raidDifficulty(raidDifficulty)
-                  .totalDeaths(retrieveByKey.apply("deaths").intValue())
-                  .totalKills(retrieveByKey.apply("kills").intValue())
-                  .kda(retrieveByKey.apply("killsDeathsAssists"))
-                  .durationSeconds(retrieveByKey.apply("activityDurationSeconds").intValue())
-                  .isCompleted(retrieveByKey.apply("completed") != 0)
-                  .build();
-            }
-        );
+          boolean emptyRaidDetails =
+              entity.getDisplayProperties() == null ||
+              entity.getDisplayProperties().getName() == null;
+          if (emptyRaidDetails) {
+            return toRaidDetails(activity, new RaidActivity(EMPTY_RAID_NAME, null, false));
+          }
+          String displayName = entity.getDisplayProperties().getName();
+          return toRaidDetails(activity, new RaidActivity(
+              RaidCatalog.resolveRaidName(displayName),
+              RaidCatalog.resolveRaidDifficulty(displayName), false));
+        });
   }
 
-  private RaidDifficulty resolveRaidDifficult(String raidName) {
-    String[] tokens = raidName.split(":");
-    if (tokens.length > 1) {
-      return switch (tokens[1].trim()) {
-        case "Normal", "normal" -> RaidDifficulty.NORMAL;
-        case "Master", "master" -> RaidDifficulty.MASTER;
-        default -> null;
-      };
-    }
-    return null;
+  private UserRaidDetails toRaidDetails(Activity activity, RaidActivity raidActivity) {
+    var valuesMap = activity.getValues();
+    var instanceId = activity.getActivityDetails().getInstanceId();
+    Function<String, Double> retrieveByKey = key -> valuesMap.getOrDefault(
+        key, new ValueEntry(null, new Basic(0.0, "0.0"))).getBasic().getValue();
+    return UserRaidDetails.builder()
+        .raidName(raidActivity.raidName())
+        .instanceId(instanceId)
+        .raidDifficulty(raidActivity.raidDifficulty())
+        .totalDeaths(retrieveByKey.apply("deaths").intValue())
+        .totalKills(retrieveByKey.apply("kills").intValue())
+        .kda(retrieveByKey.apply("killsDeathsAssists"))
+        .durationSeconds(retrieveByKey.apply("activityDurationSeconds").intValue())
+        .isCompleted(retrieveByKey.apply("completed") != 0)
+        .build();
   }
 
-  private String resolveRaidName(String name) {
-    String[] tokens = name.split(":");
-    return tokens[0].trim();
+  private static boolean isNewerThan(Activity activity, CharacterSyncCursor cursor) {
+    boolean alreadySeen = Objects.equals(activity.getActivityDetails().getInstanceId(),
+        cursor.getInstanceId());
+    return !alreadySeen && activity.getPeriod().isAfter(cursor.getPeriod());
   }
 }
@@ -0,0 +1,187 @@
+package com.deahtstroke.rivenbot.service;
+
+import com.deahtstroke.rivenbot.config.SyncConfiguration;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Makes sure that only one sync of a user's raid history runs at a time across every replica of
+ * the bot. Requests for a user that is already being synced attach to the running sync and
+ * complete when it does, instead of starting another one.
+ * <br>
+ * Within a replica, concurrent requests share the same subscription. Across replicas, the sync is
+ * guarded by a lease in Redis that is renewed while the sync runs and marked as completed once it
+ * finishes, so replicas that were waiting on it, or that ask shortly after, don't sync again. When
+ * Redis is unavailable the sync only runs under the local guard. Replicas give up waiting on a sync
+ * that takes longer than the configured maximum wait, e.g., because its owner hangs while its lease
+ * keeps being renewed.
+ * <br>
+ * Every sync records its progress and stats to its own {@link SyncStats}, requests that put an
+ * instance in their Reactor Context follow the progress of the sync they run or attach to.
+ */
+@Slf4j
+@Service
+public class UserSyncCoordinator {
+
+  private static final String LEASE_KEY = "raid-stats:sync:%s";
+  private static final String COMPLETED = "completed";
+
+  private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of("""
+      if redis.call('get', KEYS[1]) == ARGV[1] then
+        return redis.call('pexpire', KEYS[1], ARGV[2])
+      end
+      return 0
+      """, Long.class);
+
+  private static final RedisScript<Long> COMPLETE_SCRIPT = RedisScript.of("""
+      if redis.call('get', KEYS[1]) == ARGV[1] then
+        redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3])
+        return 1
+      end
+      return 0
+      """, Long.class);
+
+  private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+      if redis.call('get', KEYS[1]) == ARGV[1] then
+        return redis.call('del', KEYS[1])
+      end
+      return 0
+      """, Long.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final SyncConfiguration properties;
+  private final Map<String, InFlightSync> inFlightSyncs;
+
+  public UserSyncCoordinator(ReactiveStringRedisTemplate redisTemplate,
+      SyncConfiguration properties) {
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+    this.inFlightSyncs = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Run the sync of a user unless one is already running, in which case the returned Mono
+   * completes when the running sync does. The {@link SyncStats} in the context of the request, if
+   * any, follow the progress of that sync
+   *
+   * @param userIdentifier The identifier of the user, e.g., Deaht#8080
+   * @param sync           Supplier of the sync, only called when this request runs it
+   * @return Mono that completes once the user is synced
+   */
+  public Mono<Void> sync(String userIdentifier, Supplier<Mono<Void>> sync) {
+    return Mono.deferContextual(context -> {
+      InFlightSync inFlightSync = inFlightSyncs.computeIfAbsent(userIdentifier, key -> {
+        SyncStats stats = new SyncStats();
+        return new InFlightSync(stats, acquireOrAttach(key, sync)
+            .contextWrite(SyncStats.with(stats))
+            .doFinally(signal -> inFlightSyncs.remove(key))
+            .cache());
+      });
+      context.<SyncStats>getOrEmpty(SyncStats.class)
+          .ifPresent(stats -> stats.follow(inFlightSync.stats()));
+      return inFlightSync.completion();
+    });
+  }
+
+  private Mono<Void> acquireOrAttach(String userIdentifier, Supplier<Mono<Void>> sync) {
+    String leaseKey = LEASE_KEY.formatted(userIdentifier);
+    String token = UUID.randomUUID().toString();
+    return redisTemplate.opsForValue().setIfAbsent(leaseKey, token, properties.getLeaseTtl())
+        .map(acquired -> Boolean.TRUE.equals(acquired) ? LeaseState.ACQUIRED : LeaseState.HELD)
+        .onErrorResume(error -> {
+          log.warn("Sync lease for user [{}] is unavailable, syncing without it", userIdentifier,
+              error);
+          return Mono.just(LeaseState.UNAVAILABLE);
+        })
+        .flatMap(state -> switch (state) {
+          case ACQUIRED -> runWithLease(leaseKey, token, sync);
+          case UNAVAILABLE -> sync.get();
+          default -> awaitLease(leaseKey, userIdentifier, sync, maxPolls());
+        });
+  }
+
+  private long maxPolls() {
+    long pollInterval = properties.getPollInterval().toMillis();
+    return Math.max(1, properties.getMaxWait().toMillis() / Math.max(1, pollInterval));
+  }
+
+  private Mono<Void> runWithLease(String leaseKey, String token, Supplier<Mono<Void>> sync) {
+    return Mono.usingWhen(
+        Mono.fromSupplier(() -> renewLease(leaseKey, token)),
+        renewal -> sync.get(),
+        renewal -> {
+          renewal.dispose();
+          return runScript(COMPLETE_SCRIPT, leaseKey, token, COMPLETED,
+              String.valueOf(properties.getCompletedTtl().toMillis()));
+        },
+        (renewal, error) -> {
+          renewal.dispose();
+          return runScript(RELEASE_SCRIPT, leaseKey, token);
+        },
+        renewal -> {
+          renewal.dispose();
+          return runScript(RELEASE_SCRIPT, leaseKey, token);
+        });
+  }
+
+  private Mono<Void> awaitLease(String leaseKey, String userIdentifier,
+      Supplier<Mono<Void>> sync, long pollsLeft) {
+    return redisTemplate.opsForValue().get(leaseKey)
+        .map(value -> COMPLETED.equals(value) ? LeaseState.COMPLETED : LeaseState.HELD)
+        .defaultIfEmpty(LeaseState.EXPIRED)
+        .onErrorResume(error -> {
+          log.warn("Lost track of the sync lease for user [{}], syncing without it",
+              userIdentifier, error);
+          return Mono.just(LeaseState.UNAVAILABLE);
+        })
+        .flatMap(state -> switch (state) {
+          case COMPLETED -> Mono.<Void>empty();
+          case UNAVAILABLE -> sync.get();
+          // The lease expired before its owner completed the sync, try to take over
+          case EXPIRED, ACQUIRED -> acquireOrAttach(userIdentifier, sync);
+          case HELD -> pollsLeft > 0 ?
+              Mono.delay(properties.getPollInterval())
+                  .then(Mono.defer(() -> awaitLease(leaseKey, userIdentifier, sync,
+                      pollsLeft - 1))) :
+              Mono.error(new InternalServerException(
+                  "Gave up waiting on the sync of user [%s] after [%s]".formatted(userIdentifier,
+                      properties.getMaxWait()), HttpStatus.SERVICE_UNAVAILABLE));
+        });
+  }
+
+  private Disposable renewLease(String leaseKey, String token) {
+    String leaseTtl = String.valueOf(properties.getLeaseTtl().toMillis());
+    return Flux.interval(properties.getLeaseTtl().dividedBy(3))
+        .concatMap(tick -> runScript(RENEW_SCRIPT, leaseKey, token, leaseTtl))
+        .subscribe();
+  }
+
+  private Mono<Void> runScript(RedisScript<Long> script, String leaseKey, String... args) {
+    return redisTemplate.execute(script, List.of(leaseKey), List.of((Object[]) args))
+        .then()
+        .onErrorResume(error -> {
+          log.warn("Unable to update sync lease [{}]", leaseKey, error);
+          return Mono.empty();
+        });
+  }
+
+  private record InFlightSync(SyncStats stats, Mono<Void> completion) {
+
+  }
+
+  private enum LeaseState {
+    ACQUIRED, HELD, COMPLETED, EXPIRED, UNAVAILABLE
+  }
+}
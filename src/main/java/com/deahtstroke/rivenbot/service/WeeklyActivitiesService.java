@@ -1,38 +1,118 @@
 package com.deahtstroke.rivenbot.service;
 
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
 import com.deahtstroke.rivenbot.dto.MilestoneResponse;
 import com.deahtstroke.rivenbot.dto.WeeklyActivity;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
 import com.deahtstroke.rivenbot.dto.destiny.milestone.ActivitiesDto;
 import com.deahtstroke.rivenbot.dto.destiny.milestone.MilestoneEntry;
 import com.deahtstroke.rivenbot.enums.ActivityMode;
-import com.deahtstroke.rivenbot.exception.ResourceNotFoundException;
 import com.deahtstroke.rivenbot.enums.ManifestEntity;
+import com.deahtstroke.rivenbot.exception.ResourceNotFoundException;
+import com.deahtstroke.rivenbot.util.MessageUtils;
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+/**
+ * Finds the weekly activities of Destiny 2. The weekly raid and dungeon only change on the weekly
+ * reset, so they are computed once right after it and kept in memory until they end. Requests only
+ * go to Bungie while that precomputed activity is missing or outdated.
+ */
 @Service
 @Slf4j
 public class WeeklyActivitiesService {
 
+  private static final List<ActivityMode> PRECOMPUTED_MODES = List.of(ActivityMode.RAID,
+      ActivityMode.DUNGEON);
+  private static final Integer MAX_PRECOMPUTE_RETRIES = 10;
+  private static final Duration PRECOMPUTE_MIN_BACKOFF = Duration.ofSeconds(30);
+  private static final Duration PRECOMPUTE_MAX_BACKOFF = Duration.ofMinutes(10);
+
   private final BungieAPIService bungieAPIService;
+  private final BungieConfiguration.WeeklyActivities properties;
+  private final Map<ActivityMode, WeeklyActivity> precomputedActivities;
 
-  public WeeklyActivitiesService(BungieAPIService bungieAPIService) {
+  public WeeklyActivitiesService(BungieAPIService bungieAPIService,
+      BungieConfiguration bungieConfiguration) {
     this.bungieAPIService = bungieAPIService;
+    this.properties = bungieConfiguration.getWeeklyActivities();
+    this.precomputedActivities = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Precomputes the weekly raid and dungeon once the application is ready to take requests, until
+   * then they are fetched from Bungie on demand
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void precomputeOnStartup() {
+    if (Boolean.TRUE.equals(properties.getPrecomputeOnStartup())) {
+      precomputeOnReset();
+    }
+  }
+
+  /**
+   * Precomputes the weekly raid and dungeon after every weekly reset
+   */
+  @Scheduled(cron = "${bungie.api.weeklyResetCron:0 0 9 * * TUE}", zone = "America/Los_Angeles")
+  public void precomputeOnReset() {
+    precomputeWeeklyActivities().subscribe(
+        activity -> log.info("Precomputed weekly activity [{}]", activity.getName()),
+        error -> log.error("Unable to precompute the weekly activities", error));
+  }
+
+  /**
+   * Computes the weekly raid and dungeon and keeps them in memory. Bungie can take a while to
+   * rotate the milestones after the reset, so an activity that already ended, or that could not be
+   * retrieved, is retried with backoff until the new one shows up.
+   *
+   * @return Flux of the precomputed {@link WeeklyActivity}
+   */
+  public Flux<WeeklyActivity> precomputeWeeklyActivities() {
+    return Flux.fromIterable(PRECOMPUTED_MODES)
+        .flatMap(activityMode -> Mono.defer(() -> fetchWeeklyActivity(activityMode))
+            .filter(WeeklyActivitiesService::isCurrent)
+            .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                "Weekly activity for activity type [%s] has not rotated yet".formatted(
+                    activityMode))))
+            .retryWhen(Retry.backoff(MAX_PRECOMPUTE_RETRIES, PRECOMPUTE_MIN_BACKOFF)
+                .maxBackoff(PRECOMPUTE_MAX_BACKOFF))
+            .doOnNext(activity -> precomputedActivities.put(activityMode, activity)));
   }
 
   /**
-   * Fetches a weekly activity based on the activity mode
+   * Fetches a weekly activity based on the activity mode, the precomputed activity is returned if
+   * it hasn't ended yet. Otherwise it's fetched from Bungie and, if it's current, kept in place of
+   * the outdated one
    *
    * @param activityMode The type of the weekly activity (see {@link ActivityMode})
    * @return {@link MilestoneResponse}
    */
   public Mono<WeeklyActivity> getWeeklyActivity(ActivityMode activityMode) {
+    WeeklyActivity precomputed = precomputedActivities.get(activityMode);
+    if (precomputed != null && isCurrent(precomputed)) {
+      return Mono.just(precomputed);
+    }
+    return fetchWeeklyActivity(activityMode)
+        .doOnNext(activity -> {
+          if (isCurrent(activity)) {
+            precomputedActivities.put(activityMode, activity);
+          }
+        });
+  }
+
+  private Mono<WeeklyActivity> fetchWeeklyActivity(ActivityMode activityMode) {
     return bungieAPIService.getPublicMilestones()
         .flatMapIterable(Map::values)
         .filter(this::hasWeeklyObjectives)
@@ -82,4 +162,10 @@ public class WeeklyActivitiesService {
         .flatMap(List::stream)
         .findAny().isPresent();
   }
+
+  private static boolean isCurrent(WeeklyActivity activity) {
+    ZonedDateTime endDate = activity.getEndDate() != null ? activity.getEndDate() :
+        MessageUtils.nextWeeklyReset();
+    return endDate.isAfter(ZonedDateTime.now());
+  }
 }
@@ -3,6 +3,7 @@ package com.deahtstroke.rivenbot.util;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.deahtstroke.rivenbot.exception.InvalidSignatureException;
+import java.security.PublicKey;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import software.pando.crypto.nacl.Crypto;
@@ -24,15 +25,60 @@ public class CryptoUtils {
   public static boolean validateSignature(
       byte[] bytes, String signature,
       String publicKey, String timestamp) {
-    String rawBody = new String(bytes, UTF_8);
+    return validateSignature(bytes, signature, decodePublicKey(publicKey), timestamp);
+  }
+
+  /**
+   * Validates if the signature that comes from the interaction is valid. The signed message is the
+   * timestamp followed by the raw body, it is assembled from bytes so the body is never decoded
+   *
+   * @param bytes     The raw body of the interaction
+   * @param signature The passed signature from Discord
+   * @param publicKey The decoded public key of the bot, see {@link #decodePublicKey(String)}
+   * @param timestamp The passed timestamp from Discord
+   * @return False if the signature is invalid, else True
+   */
+  public static boolean validateSignature(
+      byte[] bytes, String signature,
+      PublicKey publicKey, String timestamp) {
+    byte[] timestampBytes = String.valueOf(timestamp).getBytes(UTF_8);
+    byte[] message = new byte[timestampBytes.length + bytes.length];
+    System.arraycopy(timestampBytes, 0, message, 0, timestampBytes.length);
+    System.arraycopy(bytes, 0, message, timestampBytes.length, bytes.length);
+    return validateSignature(message, signature, publicKey);
+  }
+
+  /**
+   * Validates the signature of a message that was already assembled as the timestamp followed by
+   * the raw body
+   *
+   * @param signedMessage The timestamp and raw body of the interaction
+   * @param signature     The passed signature from Discord
+   * @param publicKey     The decoded public key of the bot
+   * @return False if the signature is invalid, else True
+   */
+  public static boolean validateSignature(byte[] signedMessage, String signature,
+      PublicKey publicKey) {
     try {
-      return Crypto.signVerify(
-          Crypto.signingPublicKey(Hex.decodeHex(publicKey.toCharArray())),
-          (timestamp + rawBody).getBytes(UTF_8),
-          Hex.decodeHex(signature.toCharArray()));
+      return Crypto.signVerify(publicKey, signedMessage, Hex.decodeHex(signature.toCharArray()));
     } catch (DecoderException de) {
       throw new InvalidSignatureException(
           "Something wrong happened while decoding the request body");
     }
   }
+
+  /**
+   * Decodes the hex-encoded Ed25519 public key of the bot
+   *
+   * @param publicKey The hex-encoded public key
+   * @return {@link PublicKey}
+   */
+  public static PublicKey decodePublicKey(String publicKey) {
+    try {
+      return Crypto.signingPublicKey(Hex.decodeHex(publicKey.toCharArray()));
+    } catch (DecoderException de) {
+      throw new InvalidSignatureException(
+          "Something wrong happened while decoding the public key");
+    }
+  }
 }
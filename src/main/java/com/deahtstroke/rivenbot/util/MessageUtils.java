@@ -1,6 +1,7 @@
 package com.deahtstroke.rivenbot.util;
 
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -14,12 +15,6 @@ public class MessageUtils {
   private static final LocalTime DESTINY_2_STANDARD_RESET_TIME = LocalTime.of(9, 0);
   private static final ZoneId STANDARD_TIMEZONE = ZoneId.of("America/Los_Angeles");
   public static final Integer EPHEMERAL_BYTE = 1000000;
-  public static final ZonedDateTime NEXT_TUESDAY = ZonedDateTime.of(
-          LocalDate.now(STANDARD_TIMEZONE), DESTINY_2_STANDARD_RESET_TIME, STANDARD_TIMEZONE)
-      .with(TemporalAdjusters.next(DayOfWeek.TUESDAY));
-  public static final ZonedDateTime PREVIOUS_TUESDAY = ZonedDateTime.of(
-          LocalDate.now(STANDARD_TIMEZONE), DESTINY_2_STANDARD_RESET_TIME, STANDARD_TIMEZONE)
-      .with(TemporalAdjusters.previous(DayOfWeek.TUESDAY));
   /**
    * Formatter used to format the date for a message Example: the LocalDate object with date
    * 2023-01-01 would be formatted to "Sunday 1st, January 2023"
@@ -30,6 +25,48 @@ public class MessageUtils {
   private MessageUtils() {
   }
 
+  /**
+   * The next weekly reset of Destiny 2, every Tuesday at 9:00 AM Pacific Time
+   *
+   * @param now The instant to compute the reset from
+   * @return The first weekly reset strictly after the given instant
+   */
+  public static ZonedDateTime nextWeeklyReset(Instant now) {
+    ZonedDateTime current = now.atZone(STANDARD_TIMEZONE);
+    ZonedDateTime reset = ZonedDateTime.of(current.toLocalDate(), DESTINY_2_STANDARD_RESET_TIME,
+            STANDARD_TIMEZONE)
+        .with(TemporalAdjusters.nextOrSame(DayOfWeek.TUESDAY));
+    return reset.isAfter(current) ? reset : reset.plusWeeks(1);
+  }
+
+  /**
+   * The next weekly reset of Destiny 2 from now
+   *
+   * @return The first weekly reset in the future
+   */
+  public static ZonedDateTime nextWeeklyReset() {
+    return nextWeeklyReset(Instant.now());
+  }
+
+  /**
+   * The weekly reset of Destiny 2 that started the current week
+   *
+   * @param now The instant to compute the reset from
+   * @return The last weekly reset at or before the given instant
+   */
+  public static ZonedDateTime previousWeeklyReset(Instant now) {
+    return nextWeeklyReset(now).minusWeeks(1);
+  }
+
+  /**
+   * The weekly reset of Destiny 2 that started the current week from now
+   *
+   * @return The last weekly reset
+   */
+  public static ZonedDateTime previousWeeklyReset() {
+    return previousWeeklyReset(Instant.now());
+  }
+
   /**
    * Format the given local date using the class formatter, it also includes the correct suffix for
    * a date
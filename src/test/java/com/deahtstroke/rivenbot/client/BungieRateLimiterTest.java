@@ -0,0 +1,107 @@
+package com.deahtstroke.rivenbot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class BungieRateLimiterTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private BungieRateLimiter sut;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    sut = new BungieRateLimiter(configuration(Duration.ofSeconds(1)), meterRegistry);
+  }
+
+  private static BungieConfiguration configuration(Duration limitRefreshPeriod) {
+    BungieConfiguration configuration = new BungieConfiguration();
+    BungieConfiguration.RateLimit rateLimit = configuration.getRateLimit();
+    rateLimit.setInitialLimitForPeriod(10);
+    rateLimit.setMinLimitForPeriod(2);
+    rateLimit.setMaxLimitForPeriod(12);
+    rateLimit.setMultiplicativeDecrease(0.5);
+    rateLimit.setDefaultThrottlePause(Duration.ofMillis(100));
+    rateLimit.setLimitRefreshPeriod(limitRefreshPeriod);
+    return configuration;
+  }
+
+  @Test
+  @DisplayName("A full period of successful calls increases the limit")
+  public void successfulCallsIncreaseTheLimit() {
+    // given: ten successful calls, one full period at the initial limit
+    for (int i = 0; i < 10; i++) {
+      sut.onSuccess();
+    }
+
+    // then: the limit was increased by one permit
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(11.0);
+  }
+
+  @Test
+  @DisplayName("The limit never goes above the configured maximum")
+  public void limitIsCappedAtTheMaximum() {
+    // given: a lot of successful calls
+    for (int i = 0; i < 1000; i++) {
+      sut.onSuccess();
+    }
+
+    // then: the limit stays at the maximum
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(12.0);
+  }
+
+  @Test
+  @DisplayName("Throttle responses within one refresh period decrease the limit only once")
+  public void throttleResponsesDecreaseTheLimitOncePerPeriod() {
+    // when: three calls that were in flight together are throttled
+    sut.onThrottle(null);
+    sut.onThrottle(null);
+    sut.onThrottle(null);
+
+    // then: the limit is halved once
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(5.0);
+
+    // and: every throttle response is counted
+    assertThat(meterRegistry.get("bungie.ratelimiter.throttled").counter().count()).isEqualTo(3.0);
+  }
+
+  @Test
+  @DisplayName("Throttle responses in different periods decrease the limit down to the minimum")
+  public void throttleResponsesDecreaseTheLimitDownToTheMinimum() {
+    // given: a rate limiter whose every throttle response falls in a new refresh period
+    meterRegistry = new SimpleMeterRegistry();
+    sut = new BungieRateLimiter(configuration(Duration.ofNanos(1)), meterRegistry);
+
+    // when: Bungie keeps throttling the application
+    sut.onThrottle(null);
+    sut.onThrottle(null);
+    sut.onThrottle(null);
+
+    // then: the limit does not go below the minimum
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(2.0);
+  }
+
+  @Test
+  @DisplayName("Calls made during a throttle pause wait until the pause is over")
+  public void callsWaitForThrottlePause() {
+    // given: Bungie throttled the application
+    sut.onThrottle(null);
+
+    // when: a call is made right after
+    // then: the call is held until the pause of 100 milliseconds is over
+    StepVerifier.withVirtualTime(() -> sut.limit(Mono.just("response")))
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(50))
+        .thenAwait(Duration.ofMillis(50))
+        .expectNext("response")
+        .verifyComplete();
+  }
+}
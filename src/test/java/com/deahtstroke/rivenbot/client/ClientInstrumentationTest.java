@@ -0,0 +1,125 @@
+package com.deahtstroke.rivenbot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.filter.ClientMetricsFilterFunction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.function.client.support.WebClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ClientInstrumentationTest {
+
+  private static final String MEMBERSHIP_RESPONSE = """
+      {"Response":{}}""";
+  private static final String THROTTLED_RESPONSE = """
+      {"Response":{},"ErrorCode":36,"ThrottleSeconds":2,\
+      "ErrorStatus":"ThrottleLimitExceededMomentarily","Message":"Slow down"}""";
+  private static final String ERROR_RESPONSE = """
+      {"ErrorCode":5,"ErrorStatus":"SystemDisabled","Message":"Down for maintenance."}""";
+
+  private SimpleMeterRegistry meterRegistry;
+  private Deque<ClientResponse> responses;
+  private BungieClient sut;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    responses = new ArrayDeque<>();
+    WebClient webClient = WebClient.builder()
+        .filter(new ClientMetricsFilterFunction(new ObjectMapper()))
+        .exchangeFunction(request -> Mono.just(responses.pop()))
+        .build();
+    BungieClient client = HttpServiceProxyFactory.builder()
+        .exchangeAdapter(WebClientAdapter.create(webClient))
+        .build()
+        .createClient(BungieClient.class);
+    sut = new ClientInstrumentation(meterRegistry)
+        .instrument(BungieClient.class, client, "bungie");
+  }
+
+  private static ClientResponse response(HttpStatus status, String body) {
+    return ClientResponse.create(status)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .body(body)
+        .build();
+  }
+
+  @Test
+  @DisplayName("Calls are timed and tagged with the method of the client")
+  public void callsAreTaggedWithTheMethod() {
+    // given: Bungie answers the call successfully
+    responses.add(response(HttpStatus.OK, MEMBERSHIP_RESPONSE));
+
+    // when: the call is made
+    StepVerifier.create(sut.getMembershipInfoById("4611686018467284386", 3))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    // then: the call is timed with its method and status but none of its arguments
+    assertThat(meterRegistry.get("client.calls")
+        .tag("client", "bungie")
+        .tag("method", "getMembershipInfoById")
+        .tag("status", "200")
+        .tag("errorCode", "NONE")
+        .timer().count()).isEqualTo(1);
+
+    // and: the size of the response and the lack of retries are recorded
+    assertThat(meterRegistry.get("client.response.size").summary().totalAmount())
+        .isEqualTo(MEMBERSHIP_RESPONSE.getBytes(StandardCharsets.UTF_8).length);
+    assertThat(meterRegistry.get("client.retries").summary().totalAmount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Failed calls are tagged with the status and the error code from Bungie")
+  public void failedCallsAreTaggedWithTheErrorCode() {
+    // given: Bungie is down for maintenance
+    responses.add(response(HttpStatus.SERVICE_UNAVAILABLE, ERROR_RESPONSE));
+
+    // when: the call is made
+    StepVerifier.create(sut.getPublicMilestones())
+
+        // then: the error reaches the caller
+        .verifyError(WebClientResponseException.ServiceUnavailable.class);
+
+    // and: the call is tagged with the status code and Bungie's error code
+    assertThat(meterRegistry.get("client.calls")
+        .tag("method", "getPublicMilestones")
+        .tag("status", "503")
+        .tag("errorCode", "5")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Successful calls are tagged with the error code Bungie sent in the body")
+  public void successfulCallsAreTaggedWithTheErrorCode() {
+    // given: Bungie answers with a 200 that asks the application to slow down
+    responses.add(response(HttpStatus.OK, THROTTLED_RESPONSE));
+
+    // when: the call is made
+    StepVerifier.create(sut.getMembershipInfoById("4611686018467284386", 3))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    // then: the call is tagged with the status code and Bungie's error code
+    assertThat(meterRegistry.get("client.calls")
+        .tag("method", "getMembershipInfoById")
+        .tag("status", "200")
+        .tag("errorCode", "36")
+        .timer().count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,93 @@
+package com.deahtstroke.rivenbot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class CoalescingBungieClientTest {
+
+  @Mock
+  private BungieClient delegate;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CoalescingBungieClient sut;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    sut = new CoalescingBungieClient(delegate, meterRegistry, "test");
+  }
+
+  @Test
+  @DisplayName("Concurrent calls with the same arguments share one upstream call")
+  public void concurrentCallsAreCoalesced() {
+    // given: an upstream call that is still in-flight
+    Long activityId = 1L;
+    AtomicInteger subscriptions = new AtomicInteger(0);
+    Sinks.One<BungieResponse<PostGameCarnageReport>> upstream = Sinks.one();
+    when(delegate.getPostGameCarnageReport(activityId))
+        .thenReturn(upstream.asMono().doOnSubscribe(s -> subscriptions.incrementAndGet()));
+
+    // when: two callers ask for the same report at the same time
+    var first = sut.getPostGameCarnageReport(activityId);
+    var second = sut.getPostGameCarnageReport(activityId);
+
+    BungieResponse<PostGameCarnageReport> response = new BungieResponse<>(
+        new PostGameCarnageReport());
+    StepVerifier.create(Mono.zip(first, second))
+        .then(() -> upstream.tryEmitValue(response))
+        .assertNext(tuple -> {
+          assertThat(tuple.getT1()).isSameAs(response);
+          assertThat(tuple.getT2()).isSameAs(response);
+        })
+        .verifyComplete();
+
+    // then: Bungie was only called once and the shared call was counted as a hit
+    verify(delegate, times(1)).getPostGameCarnageReport(activityId);
+    assertThat(subscriptions.get()).isEqualTo(1);
+    assertThat(meterRegistry.get("bungie.client.coalesced")
+        .tag("method", "getPostGameCarnageReport")
+        .tag("outcome", "hit")
+        .counter().count()).isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Calls made after the in-flight call terminated are not coalesced")
+  public void sequentialCallsAreNotCoalesced() {
+    // given: an upstream call that completes right away
+    Long activityId = 1L;
+    when(delegate.getPostGameCarnageReport(activityId))
+        .thenReturn(Mono.just(new BungieResponse<>(new PostGameCarnageReport())));
+
+    // when: the same report is requested twice one after the other
+    StepVerifier.create(sut.getPostGameCarnageReport(activityId))
+        .expectNextCount(1)
+        .verifyComplete();
+    StepVerifier.create(sut.getPostGameCarnageReport(activityId))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    // then: Bungie was called for each one of them
+    verify(delegate, times(2)).getPostGameCarnageReport(activityId);
+    assertThat(meterRegistry.get("bungie.client.coalesced")
+        .tag("method", "getPostGameCarnageReport")
+        .tag("outcome", "miss")
+        .counter().count()).isEqualTo(2.0);
+  }
+}
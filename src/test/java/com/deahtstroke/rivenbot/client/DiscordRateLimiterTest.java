@@ -0,0 +1,96 @@
+package com.deahtstroke.rivenbot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class DiscordRateLimiterTest {
+
+  private static final String ROUTE =
+      "PATCH /webhooks/1175145224318459965/token/messages/@original";
+  private static final Duration RESET_AFTER = Duration.ofSeconds(1);
+
+  private List<String> calls;
+  private List<Long> callTimes;
+  private DiscordRateLimiter sut;
+
+  @BeforeEach
+  public void setup() {
+    calls = new CopyOnWriteArrayList<>();
+    callTimes = new CopyOnWriteArrayList<>();
+    sut = new DiscordRateLimiter(new DiscordConfiguration(), new SimpleMeterRegistry());
+  }
+
+  /**
+   * Headers of a response that used up a bucket that allows a single call per second
+   */
+  private static HttpHeaders exhaustedBucket() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add("X-RateLimit-Bucket", "abcd1234");
+    headers.add("X-RateLimit-Limit", "1");
+    headers.add("X-RateLimit-Remaining", "0");
+    headers.add("X-RateLimit-Reset-After", "1");
+    return headers;
+  }
+
+  private Mono<String> call(String name) {
+    return sut.limit(ROUTE, Mono.fromSupplier(() -> {
+      calls.add(name);
+      callTimes.add(Schedulers.parallel().now(TimeUnit.MILLISECONDS));
+      return name;
+    }));
+  }
+
+  @Test
+  @DisplayName("Calls held by a bucket go out in the order they were made")
+  public void heldCallsGoOutInOrder() {
+    // given: a bucket that was just used up
+    StepVerifier.withVirtualTime(() -> {
+          sut.onResponse(ROUTE, exhaustedBucket());
+
+          // when: a call is made right when the bucket resets, after two calls started waiting
+          return Flux.merge(Mono.delay(RESET_AFTER).then(call("late")), call("first"),
+              call("second"));
+        })
+        .thenAwait(Duration.ofSeconds(5))
+        .expectNextCount(3)
+        .verifyComplete();
+
+    // then: the waiting calls went out first, one per reset of the bucket
+    assertThat(calls).containsExactly("first", "second", "late");
+    assertThat(callTimes).containsExactly(1_000L, 2_000L, 3_000L);
+  }
+
+  @Test
+  @DisplayName("Calls that stop waiting give their turn to the next call")
+  public void cancelledCallsGiveUpTheirTurn() {
+    // given: a bucket that was just used up
+    StepVerifier.withVirtualTime(() -> {
+          sut.onResponse(ROUTE, exhaustedBucket());
+
+          // when: the first of two waiting calls is cancelled before the bucket resets
+          return Flux.merge(call("first").timeout(Duration.ofMillis(500), Mono.empty()),
+              call("second"));
+        })
+        .thenAwait(Duration.ofSeconds(5))
+        .expectNext("second")
+        .verifyComplete();
+
+    // then: the second call went out on the first reset of the bucket
+    assertThat(calls).containsExactly("second");
+    assertThat(callTimes).containsExactly(1_000L);
+  }
+}
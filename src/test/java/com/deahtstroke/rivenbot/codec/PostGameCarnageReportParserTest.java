@@ -0,0 +1,142 @@
+package com.deahtstroke.rivenbot.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.dto.destiny.DestinyUserInfo;
+import com.deahtstroke.rivenbot.dto.destiny.PGCREntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+public class PostGameCarnageReportParserTest {
+
+  private static final String PGCR_RESPONSE = "__files/bungie/pgcr-response.json";
+
+  private PostGameCarnageReportParser sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = new PostGameCarnageReportParser(new ObjectMapper());
+  }
+
+  private static Flux<DataBuffer> chunked(byte[] content, int chunkSize) {
+    List<DataBuffer> chunks = new ArrayList<>();
+    for (int i = 0; i < content.length; i += chunkSize) {
+      chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(
+          Arrays.copyOfRange(content, i, Math.min(content.length, i + chunkSize))));
+    }
+    return Flux.fromIterable(chunks);
+  }
+
+  @Test
+  @DisplayName("Report fields are extracted no matter how the body is split into chunks")
+  public void reportFieldsAreExtractedFromChunks() throws IOException {
+    // given: a report split in small chunks
+    byte[] content = new ClassPathResource(PGCR_RESPONSE).getContentAsByteArray();
+
+    // when: the report is parsed
+    StepVerifier.create(sut.parse(chunked(content, 7)))
+
+        // then: the period, the start and every entry's identity and stats are extracted
+        .assertNext(report -> {
+          assertThat(report.getPeriod()).isEqualTo(Instant.parse("2023-11-28T19:02:11Z"));
+          assertThat(report.getActivityWasStartedFromBeginning()).isTrue();
+          assertThat(report.getEntries()).hasSize(2);
+
+          PGCREntry first = report.getEntries().get(0);
+          DestinyUserInfo userInfo = first.getPlayer().getDestinyUserInfo();
+          assertThat(userInfo.getMembershipId()).isEqualTo(4611686018467284386L);
+          assertThat(userInfo.getMembershipType()).isEqualTo(3);
+          assertThat(userInfo.getBungieGlobalDisplayName()).isEqualTo("Deaht");
+          assertThat(userInfo.getBungieGlobalDisplayNameCode()).isEqualTo(8080);
+          assertThat(userInfo.getIconPath())
+              .isEqualTo("/img/theme/bungienet/icons/steamLogo.png");
+          assertThat(first.getValues().get("kills").getBasic().getValue()).isEqualTo(312.0);
+          assertThat(first.getValues().get("deaths").getBasic().getValue()).isEqualTo(2.0);
+          assertThat(first.getValues()).doesNotContainKey("assists");
+
+          PGCREntry second = report.getEntries().get(1);
+          assertThat(second.getPlayer().getDestinyUserInfo().getBungieGlobalDisplayName())
+              .isEqualTo("Riven");
+          assertThat(second.getValues().get("kills").getBasic().getValue()).isEqualTo(401.0);
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("Every chunk is released, including the ones after the report was parsed")
+  public void chunksAreReleased() throws IOException {
+    // given: a report split in reference counted chunks
+    byte[] content = new ClassPathResource(PGCR_RESPONSE).getContentAsByteArray();
+    NettyDataBufferFactory bufferFactory =
+        new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+    List<DataBuffer> chunks = new ArrayList<>();
+    for (int i = 0; i < content.length; i += 64) {
+      DataBuffer chunk = bufferFactory.allocateBuffer(64);
+      chunk.write(content, i, Math.min(64, content.length - i));
+      chunks.add(chunk);
+    }
+
+    // when: the report is parsed
+    AtomicBoolean cancelled = new AtomicBoolean(false);
+    StepVerifier.create(sut.parse(Flux.fromIterable(chunks)
+            .doOnCancel(() -> cancelled.set(true))))
+
+        // then: the report is emitted and no chunk is left allocated
+        .expectNextCount(1)
+        .verifyComplete();
+    assertThat(chunks).noneMatch(chunk -> ((PooledDataBuffer) chunk).isAllocated());
+
+    // and: the body was read to the end instead of being cancelled, so its connection is reused
+    assertThat(cancelled).isFalse();
+  }
+
+  @Test
+  @DisplayName("A response without a report completes empty")
+  public void responseWithoutReportIsEmpty() {
+    // given: an error response from Bungie
+    byte[] content = """
+        {"ErrorCode": 1653, "ErrorStatus": "DestinyPGCRNotFound", "Message": "Not found"}
+        """.getBytes();
+
+    // when: the response is parsed
+    StepVerifier.create(sut.parse(chunked(content, 16)))
+
+        // then: nothing is emitted
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("Reports larger than the byte limit fail instead of being buffered")
+  public void oversizedReportsFail() {
+    // given: a report with an entry list larger than the limit
+    StringBuilder content = new StringBuilder("{\"Response\": {\"entries\": [");
+    while (content.length() < 2 * 1024 * 1024) {
+      content.append("{\"standing\": 0},");
+    }
+    content.append("{}]}}");
+
+    // when: the report is parsed
+    StepVerifier.create(sut.parse(chunked(content.toString().getBytes(), 8192)))
+
+        // then: the limit is reported
+        .expectError(DataBufferLimitException.class)
+        .verify();
+  }
+}
@@ -0,0 +1,129 @@
+package com.deahtstroke.rivenbot.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.deahtstroke.rivenbot.config.CacheConfiguration.CacheSpec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy.FixedExpiration;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.metrics.cache.CaffeineCacheMeterBinderProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+public class CacheConfigurationTest {
+
+  private static final String MANIFEST_ENTITY_CACHE = "manifestEntity";
+
+  private CacheManager sut;
+
+  @BeforeEach
+  public void setup() {
+    CacheSpec manifestEntity = new CacheSpec();
+    manifestEntity.setMaxSize(2L);
+    manifestEntity.setTtl(Duration.ofHours(24));
+
+    CacheConfiguration cacheConfiguration = new CacheConfiguration();
+    cacheConfiguration.setCaches(Map.of(MANIFEST_ENTITY_CACHE, manifestEntity));
+    sut = cacheConfiguration.inMemoryCacheManager();
+  }
+
+  private CaffeineCache cache(String name) {
+    return (CaffeineCache) sut.getCache(name);
+  }
+
+  private static Cache<Object, Object> nativeCache(CaffeineCache cache) {
+    return cache.getAsyncCache().synchronous();
+  }
+
+  @Test
+  @DisplayName("Caches with their own settings are bounded by them")
+  public void cachesAreBoundedByTheirOwnSettings() {
+    // given: the cache of manifest entities
+    CaffeineCache cache = cache(MANIFEST_ENTITY_CACHE);
+    Cache<Object, Object> manifestEntity = nativeCache(cache);
+
+    // when: more entries than its maximum size are cached
+    cache.put(1L, "Garden of Salvation");
+    cache.put(2L, "King's Fall");
+    cache.put(3L, "Deep Stone Crypt");
+    manifestEntity.cleanUp();
+
+    // then: the cache is bounded by its own size and time to live
+    assertThat(manifestEntity.estimatedSize()).isEqualTo(2L);
+    assertThat(manifestEntity.policy().eviction().orElseThrow().getMaximum()).isEqualTo(2L);
+    assertThat(manifestEntity.policy().expireAfterWrite()
+        .map(FixedExpiration::getExpiresAfter)).contains(Duration.ofHours(24));
+  }
+
+  @Test
+  @DisplayName("Caches without their own settings are bounded by the defaults")
+  public void otherCachesAreBoundedByTheDefaults() {
+    // when: a cache without its own settings is used
+    Cache<Object, Object> other = nativeCache(cache("other"));
+
+    // then: it is bounded by the default size and time to live
+    assertThat(other.policy().eviction().orElseThrow().getMaximum()).isEqualTo(1_000L);
+    assertThat(other.policy().expireAfterWrite()
+        .map(FixedExpiration::getExpiresAfter)).contains(Duration.ofHours(1));
+  }
+
+  @Test
+  @DisplayName("Failed loads are not cached")
+  public void failedLoadsAreNotCached() {
+    // given: a load that fails the first time and succeeds afterwards
+    CaffeineCache cache = cache(MANIFEST_ENTITY_CACHE);
+    AtomicInteger loads = new AtomicInteger(0);
+
+    // when: the failing load is cached
+    CompletableFuture<Object> failed = cache.retrieve(1L, () -> {
+      loads.incrementAndGet();
+      return CompletableFuture.failedFuture(new IllegalStateException("Bungie is down"));
+    });
+
+    // then: the caller gets the error
+    assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+
+    // when: the same key is loaded again
+    CompletableFuture<Object> loaded = cache.retrieve(1L, () -> {
+      loads.incrementAndGet();
+      return CompletableFuture.completedFuture("Garden of Salvation");
+    });
+
+    // then: the value is loaded instead of the error being served from the cache
+    assertThat(loaded.join()).isEqualTo("Garden of Salvation");
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(cache.get(1L)).isNotNull();
+  }
+
+  @Test
+  @DisplayName("Cache stats are recorded and published as cache metrics")
+  public void cacheStatsArePublishedAsMetrics() {
+    // given: the cache of manifest entities bound the way actuator binds it
+    CaffeineCache cache = cache(MANIFEST_ENTITY_CACHE);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    new CaffeineCacheMeterBinderProvider().getMeterBinder(cache, Tags.empty())
+        .bindTo(meterRegistry);
+
+    // when: an entry is cached and then looked up once, along with a missing entry
+    cache.put(1L, "Garden of Salvation");
+    cache.get(1L);
+    cache.get(2L);
+
+    // then: the hit and the miss are published
+    assertThat(meterRegistry.get("cache.gets").tag("cache", MANIFEST_ENTITY_CACHE)
+        .tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", MANIFEST_ENTITY_CACHE)
+        .tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,94 @@
+package com.deahtstroke.rivenbot.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.client.BungieRateLimiter;
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class BungieThrottleFilterFunctionTest {
+
+  private static final String SUCCESS_RESPONSE = """
+      {"Response":{"displayName":"Deaht"},"ErrorCode":1,"ThrottleSeconds":0,\
+      "ErrorStatus":"Success","Message":"Ok","MessageData":{}}""";
+  private static final String THROTTLED_RESPONSE = """
+      {"Response":{"displayName":"Deaht"},"ErrorCode":36,"ThrottleSeconds":2,\
+      "ErrorStatus":"ThrottleLimitExceededMomentarily","Message":"Slow down","MessageData":{}}""";
+
+  private SimpleMeterRegistry meterRegistry;
+  private Deque<ClientResponse> responses;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    responses = new ArrayDeque<>();
+    BungieConfiguration configuration = new BungieConfiguration();
+    configuration.getRateLimit().setInitialLimitForPeriod(10);
+    BungieRateLimiter rateLimiter = new BungieRateLimiter(configuration, meterRegistry);
+    webClient = WebClient.builder()
+        .filter(new BungieThrottleFilterFunction(rateLimiter, new ObjectMapper()))
+        .exchangeFunction(request -> Mono.just(responses.pop()))
+        .build();
+  }
+
+  private static ClientResponse response(String body) {
+    return ClientResponse.create(HttpStatus.OK)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .body(body)
+        .build();
+  }
+
+  private Mono<String> call() {
+    return webClient.get().uri("/User/GetBungieNetUserById/1/")
+        .retrieve()
+        .bodyToMono(String.class);
+  }
+
+  @Test
+  @DisplayName("Successful responses are passed through untouched")
+  public void successfulResponsesArePassedThrough() {
+    // given: Bungie answers successfully without any throttle hint
+    responses.add(response(SUCCESS_RESPONSE));
+
+    // when: the call is made
+    StepVerifier.create(call())
+
+        // then: the caller reads the whole body
+        .expectNext(SUCCESS_RESPONSE)
+        .verifyComplete();
+
+    // and: the limit is left alone
+    assertThat(meterRegistry.get("bungie.ratelimiter.throttled").counter().count()).isZero();
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(10.0);
+  }
+
+  @Test
+  @DisplayName("Throttle hints in successful responses decrease the limit")
+  public void throttleHintsInSuccessfulResponsesAreApplied() {
+    // given: Bungie answers with a 200 that asks the application to slow down
+    responses.add(response(THROTTLED_RESPONSE));
+
+    // when: the call is made
+    StepVerifier.create(call())
+        .expectNext(THROTTLED_RESPONSE)
+        .verifyComplete();
+
+    // then: the rate limiter was told about the throttling
+    assertThat(meterRegistry.get("bungie.ratelimiter.throttled").counter().count()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("bungie.ratelimiter.limit").gauge().value()).isEqualTo(5.0);
+  }
+}
@@ -0,0 +1,110 @@
+package com.deahtstroke.rivenbot.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.client.DiscordRateLimiter;
+import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+public class DiscordRateLimitFilterFunctionTest {
+
+  private static final String WEBHOOK_URI = "/webhooks/1175145224318459965/token/messages/@original";
+
+  private SimpleMeterRegistry meterRegistry;
+  private Deque<ClientResponse> responses;
+  private List<Long> callTimes;
+  private WebClient webClient;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    responses = new ConcurrentLinkedDeque<>();
+    callTimes = new ArrayList<>();
+    DiscordConfiguration configuration = new DiscordConfiguration();
+    DiscordRateLimiter rateLimiter = new DiscordRateLimiter(configuration, meterRegistry);
+    webClient = WebClient.builder()
+        .baseUrl("http://localhost/api/v10")
+        .filter(new DiscordRateLimitFilterFunction(rateLimiter, configuration))
+        .exchangeFunction(request -> {
+          callTimes.add(Schedulers.parallel().now(TimeUnit.MILLISECONDS));
+          return Mono.just(responses.pop());
+        })
+        .build();
+  }
+
+  private static ClientResponse response(HttpStatus status, String... headers) {
+    ClientResponse.Builder builder = ClientResponse.create(status)
+        .header("X-RateLimit-Bucket", "abcd1234");
+    for (int i = 0; i < headers.length; i += 2) {
+      builder.header(headers[i], headers[i + 1]);
+    }
+    return builder.build();
+  }
+
+  private Mono<HttpStatusCode> editOriginal() {
+    return webClient.patch()
+        .uri(WEBHOOK_URI)
+        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()));
+  }
+
+  @Test
+  @DisplayName("Calls to a bucket with no calls left wait until it resets")
+  public void exhaustedBucketsHoldCalls() {
+    // given: a response that uses up the bucket for the next 300 milliseconds
+    responses.add(response(HttpStatus.OK, "X-RateLimit-Limit", "5",
+        "X-RateLimit-Remaining", "0", "X-RateLimit-Reset-After", "0.3"));
+    responses.add(response(HttpStatus.OK, "X-RateLimit-Limit", "5",
+        "X-RateLimit-Remaining", "4", "X-RateLimit-Reset-After", "1"));
+
+    // when: two edits are made one after the other
+    StepVerifier.withVirtualTime(() -> editOriginal().then(editOriginal()))
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNext(HttpStatus.OK)
+        .verifyComplete();
+
+    // then: the second edit only went out once the bucket reset
+    assertThat(callTimes).hasSize(2);
+    assertThat(callTimes.get(1) - callTimes.get(0)).isEqualTo(300L);
+    assertThat(meterRegistry.get("discord.ratelimit.wait").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Rate limited calls are retried once Retry-After passes")
+  public void rateLimitedCallsAreRetried() {
+    // given: Discord rate limits the first call for 200 milliseconds
+    responses.add(response(HttpStatus.TOO_MANY_REQUESTS, "Retry-After", "0.2",
+        "X-RateLimit-Scope", "user", "X-RateLimit-Remaining", "0",
+        "X-RateLimit-Reset-After", "0.2"));
+    responses.add(response(HttpStatus.OK, "X-RateLimit-Limit", "5",
+        "X-RateLimit-Remaining", "4", "X-RateLimit-Reset-After", "1"));
+
+    // when: an edit is made
+    StepVerifier.withVirtualTime(this::editOriginal)
+
+        // then: the edit succeeds after being retried
+        .thenAwait(Duration.ofSeconds(1))
+        .expectNext(HttpStatus.OK)
+        .verifyComplete();
+    assertThat(callTimes).hasSize(2);
+    assertThat(callTimes.get(1) - callTimes.get(0)).isEqualTo(200L);
+    assertThat(meterRegistry.get("discord.ratelimit.throttled")
+        .tag("scope", "user")
+        .counter().count()).isEqualTo(1.0);
+  }
+}
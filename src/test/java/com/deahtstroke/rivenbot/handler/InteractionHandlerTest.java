@@ -16,6 +16,7 @@ import com.deahtstroke.rivenbot.factory.ApplicationCommandFactory;
 import com.deahtstroke.rivenbot.factory.AutocompleteFactory;
 import com.deahtstroke.rivenbot.factory.MessageComponentFactory;
 import com.deahtstroke.rivenbot.util.MessageUtils;
+import io.micrometer.observation.ObservationRegistry;
 import java.time.LocalDate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -46,7 +47,8 @@ class InteractionHandlerTest {
   @BeforeEach
   public void setup() {
     InteractionHandler handler = new InteractionHandler(applicationCommandFactory,
-        autocompleteFactory, messageComponentFactory);
+        autocompleteFactory, messageComponentFactory,
+        new InteractionTracing(ObservationRegistry.NOOP));
     RouterFunction<?> route = RouterFunctions.route()
         .route(POST("/interactions"), handler::handle).build();
     webTestClient = WebTestClient.bindToRouterFunction(route).build();
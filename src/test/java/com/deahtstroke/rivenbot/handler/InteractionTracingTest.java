@@ -0,0 +1,185 @@
+package com.deahtstroke.rivenbot.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.RivenBotApplication;
+import com.deahtstroke.rivenbot.config.DeferredJobConfiguration;
+import com.deahtstroke.rivenbot.dto.discord.Interaction;
+import com.deahtstroke.rivenbot.dto.discord.InteractionData;
+import com.deahtstroke.rivenbot.enums.InteractionType;
+import com.deahtstroke.rivenbot.service.DeferredInteractionExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationHandler.FirstMatchingCompositeObservationHandler;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.handler.PropagatingSenderTracingObservationHandler;
+import io.micrometer.tracing.propagation.Propagator;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class InteractionTracingTest {
+
+  private static final String INTERACTION_ID = "1175145224318459965";
+  private static final String GUILD_ID = "1044101429236559904";
+  private static final String TRACEPARENT = "traceparent";
+
+  /**
+   * Writes the W3C trace context of a client span to the request, the way the OpenTelemetry
+   * bridge does
+   */
+  private static final Propagator TRACEPARENT_PROPAGATOR = new Propagator() {
+    @Override
+    public List<String> fields() {
+      return List.of(TRACEPARENT);
+    }
+
+    @Override
+    public <C> void inject(TraceContext context, C carrier, Setter<C> setter) {
+      setter.set(carrier, TRACEPARENT,
+          "00-%s-%s-01".formatted(context.traceId(), context.spanId()));
+    }
+
+    @Override
+    public <C> Span.Builder extract(C carrier, Getter<C> getter) {
+      throw new UnsupportedOperationException("Only outgoing calls are traced");
+    }
+  };
+
+  private SimpleTracer tracer;
+  private ObservationRegistry observationRegistry;
+  private DeferredInteractionExecutor deferredInteractionExecutor;
+  private InteractionTracing sut;
+
+  @BeforeAll
+  public static void enableContextPropagation() {
+    Hooks.enableAutomaticContextPropagation();
+  }
+
+  @AfterAll
+  public static void disableContextPropagation() {
+    Hooks.disableAutomaticContextPropagation();
+  }
+
+  @BeforeEach
+  public void setup() {
+    tracer = new SimpleTracer();
+    observationRegistry = ObservationRegistry.create();
+    observationRegistry.observationConfig()
+        .observationHandler(new FirstMatchingCompositeObservationHandler(
+            new PropagatingSenderTracingObservationHandler<>(tracer, TRACEPARENT_PROPAGATOR),
+            new DefaultTracingObservationHandler(tracer)));
+    deferredInteractionExecutor = new DeferredInteractionExecutor(new DeferredJobConfiguration(),
+        new SimpleMeterRegistry(), observationRegistry);
+    sut = new InteractionTracing(observationRegistry);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    deferredInteractionExecutor.destroy();
+  }
+
+  private SimpleSpan finishedSpan(String name) {
+    return tracer.getSpans().stream()
+        .filter(span -> name.equals(span.getName()))
+        .findFirst().orElseThrow();
+  }
+
+  private static Interaction interaction() {
+    return Interaction.builder()
+        .id(Long.valueOf(INTERACTION_ID))
+        .guildId(GUILD_ID)
+        .type(InteractionType.APPLICATION_COMMAND.getType())
+        .data(InteractionData.builder().name("raid_stats").build())
+        .build();
+  }
+
+  @Test
+  @DisplayName("Deferred work of an interaction is a span of the interaction and logs its Id")
+  public void deferredWorkIsTracedUnderTheInteraction() {
+    // given: a raid stats interaction sent from a guild
+    Interaction interaction = interaction();
+
+    // and: deferred work that records what it runs under
+    AtomicReference<String> loggedInteraction = new AtomicReference<>();
+    AtomicReference<Span> currentSpan = new AtomicReference<>();
+    Mono<Void> work = Mono.fromRunnable(() -> {
+      loggedInteraction.set(MDC.get(InteractionTraceAccessor.INTERACTION_ID_MDC));
+      currentSpan.set(tracer.currentSpan());
+    });
+
+    // when: the interaction is answered by submitting the deferred work
+    StepVerifier.create(sut.observe(interaction, InteractionType.APPLICATION_COMMAND,
+            Mono.fromSupplier(() -> deferredInteractionExecutor.submit("raid_stats", work,
+                error -> Mono.empty()))))
+        .expectNext(true)
+        .verifyComplete();
+
+    // then: the interaction span is tagged with the interaction
+    SimpleSpan interactionSpan = finishedSpan("interaction raid_stats");
+    assertThat(interactionSpan.getTags())
+        .containsEntry("interaction.id", INTERACTION_ID)
+        .containsEntry("interaction.guild", GUILD_ID)
+        .containsEntry("interaction.command", "raid_stats")
+        .containsEntry("interaction.type", "APPLICATION_COMMAND");
+
+    // and: the deferred work ran in its own span, child of the interaction span
+    SimpleSpan jobSpan = finishedSpan("deferred raid_stats");
+    assertThat(jobSpan.getParentId()).isEqualTo(interactionSpan.getSpanId());
+    assertThat(currentSpan.get()).isNotNull();
+    assertThat(currentSpan.get().context().spanId()).isEqualTo(jobSpan.getSpanId());
+
+    // and: the logs of the deferred work carried the interaction Id, and only them
+    assertThat(loggedInteraction.get()).isEqualTo(INTERACTION_ID);
+    assertThat(MDC.get(InteractionTraceAccessor.INTERACTION_ID_MDC)).isNull();
+  }
+
+  @Test
+  @DisplayName("Calls made through the application's WebClient are spans of the interaction")
+  public void webClientCallsAreTracedUnderTheInteraction() {
+    // given: a WebClient built from the application's builder
+    AtomicReference<String> traceparent = new AtomicReference<>();
+    WebClient webClient = new RivenBotApplication().webClient(observationRegistry)
+        .exchangeFunction(request -> {
+          traceparent.set(request.headers().getFirst(TRACEPARENT));
+          return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        })
+        .build();
+
+    // when: the interaction is answered by editing its original response
+    StepVerifier.create(sut.observe(interaction(), InteractionType.APPLICATION_COMMAND,
+            webClient.patch()
+                .uri("https://discord.com/api/v10/webhooks/1/token/messages/@original")
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> response.getStatusCode().value())))
+        .expectNext(HttpStatus.OK.value())
+        .verifyComplete();
+
+    // then: the call was a client span, child of the interaction span
+    SimpleSpan interactionSpan = finishedSpan("interaction raid_stats");
+    SimpleSpan clientSpan = finishedSpan("http patch");
+    assertThat(clientSpan.getKind()).isEqualTo(Span.Kind.CLIENT);
+    assertThat(clientSpan.getParentId()).isEqualTo(interactionSpan.getSpanId());
+
+    // and: the trace was sent along with the call
+    assertThat(traceparent.get()).isEqualTo("00-%s-%s-01".formatted(
+        clientSpan.getTraceId(), clientSpan.getSpanId()));
+  }
+}
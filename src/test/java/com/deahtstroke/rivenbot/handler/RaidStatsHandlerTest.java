@@ -0,0 +1,218 @@
+package com.deahtstroke.rivenbot.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.client.DiscordClient;
+import com.deahtstroke.rivenbot.config.DiscordConfiguration;
+import com.deahtstroke.rivenbot.dto.CachedRaidStats;
+import com.deahtstroke.rivenbot.dto.discord.Embedded;
+import com.deahtstroke.rivenbot.dto.discord.Interaction;
+import com.deahtstroke.rivenbot.dto.discord.InteractionData;
+import com.deahtstroke.rivenbot.dto.discord.InteractionResponse;
+import com.deahtstroke.rivenbot.dto.discord.InteractionResponseData;
+import com.deahtstroke.rivenbot.dto.discord.Option;
+import com.deahtstroke.rivenbot.enums.InteractionResponseType;
+import com.deahtstroke.rivenbot.service.DeferredInteractionExecutor;
+import com.deahtstroke.rivenbot.service.PlayerAutocompleteService;
+import com.deahtstroke.rivenbot.service.RaidStatsCache;
+import com.deahtstroke.rivenbot.service.RaidStatsService;
+import com.deahtstroke.rivenbot.service.SyncStats;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class RaidStatsHandlerTest {
+
+  private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(3);
+  private static final Duration SYNC_TIME = Duration.ofSeconds(10);
+  private static final Duration EDIT_TIME = Duration.ofSeconds(4);
+
+  @Mock
+  BungieClient defaultBungieClient;
+  @Mock
+  DiscordClient discordClient;
+  @Mock
+  RaidStatsService raidStatsService;
+  @Mock
+  RaidStatsCache raidStatsCache;
+  @Mock
+  DeferredInteractionExecutor deferredInteractionExecutor;
+  @Mock
+  PlayerAutocompleteService playerAutocompleteService;
+
+  private RaidStatsHandler sut;
+
+  @BeforeEach
+  public void setup() {
+    DiscordConfiguration discordConfiguration = new DiscordConfiguration();
+    discordConfiguration.setApplicationId(1L);
+    discordConfiguration.setProgressInterval(PROGRESS_INTERVAL);
+    sut = new RaidStatsHandler(defaultBungieClient, discordClient, raidStatsService,
+        raidStatsCache, deferredInteractionExecutor, playerAutocompleteService,
+        discordConfiguration);
+  }
+
+  private static Interaction interaction() {
+    Option membership = new Option("username", 3, "3:12345", false, null);
+    return Interaction.builder()
+        .id(1175145224318459965L)
+        .token("interaction-token")
+        .data(InteractionData.builder()
+            .name("raid_stats")
+            .options(List.of(new Option("username", 1, null, null, List.of(membership))))
+            .build())
+        .build();
+  }
+
+  private static CachedRaidStats raidStats() {
+    return CachedRaidStats.builder()
+        .uniqueName("Deaht#8080")
+        .membershipType(3)
+        .membershipId("12345")
+        .iconUrl("https://www.bungie.net/icon.png")
+        .statistics(List.of())
+        .fields(List.of())
+        .computedAt(Instant.now())
+        .build();
+  }
+
+  private static long now() {
+    return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  @DisplayName("Progress edits are throttled and the raid stats are always the last edit")
+  @SuppressWarnings("unchecked")
+  public void progressEditsAreThrottledAndFinalEmbedIsLast() {
+    // given: a sync that scans an activity every second until it's done
+    when(raidStatsCache.getByMembership(eq(3), eq("12345"), any()))
+        .thenReturn(Mono.deferContextual(context -> {
+          SyncStats stats = SyncStats.from(context);
+          stats.charactersFound(1);
+          return Flux.interval(Duration.ofSeconds(1))
+              .take(SYNC_TIME.toSeconds())
+              .doOnNext(tick -> stats.activityScanned())
+              .then(Mono.fromSupplier(RaidStatsHandlerTest::raidStats));
+        }));
+
+    // and: Discord takes longer to apply an edit than the progress interval
+    List<InteractionResponseData> edits = new CopyOnWriteArrayList<>();
+    List<Long> editStarts = new CopyOnWriteArrayList<>();
+    AtomicInteger editsInFlight = new AtomicInteger(0);
+    AtomicInteger maxEditsInFlight = new AtomicInteger(0);
+    when(discordClient.editOriginalInteraction(eq(1L), eq("interaction-token"), any()))
+        .thenAnswer(invocation -> Mono.defer(() -> {
+          edits.add(invocation.getArgument(2));
+          editStarts.add(now());
+          maxEditsInFlight.accumulateAndGet(editsInFlight.incrementAndGet(), Math::max);
+          return Mono.delay(EDIT_TIME).then();
+        }).doFinally(signal -> editsInFlight.decrementAndGet()));
+
+    ArgumentCaptor<Mono<Void>> job = ArgumentCaptor.forClass(Mono.class);
+    when(deferredInteractionExecutor.submit(eq("raid_stats"), job.capture(), any()))
+        .thenReturn(true);
+
+    // when: the interaction is answered and its deferred job runs
+    AtomicReference<InteractionResponse> response = new AtomicReference<>();
+    StepVerifier.withVirtualTime(() -> {
+          response.set(sut.createResponse(interaction()).block());
+          return job.getValue();
+        })
+        .thenAwait(Duration.ofMinutes(1))
+        .verifyComplete();
+
+    // then: the interaction was deferred
+    assertThat(response.get().getType())
+        .isEqualTo(InteractionResponseType.DEFERRED_CHANNEL_MESSAGE_WITH_SOURCE.getType());
+    verify(deferredInteractionExecutor).submit(eq("raid_stats"), any(), any());
+
+    // and: the progress was reported, one edit at a time and never faster than the interval
+    assertThat(edits).hasSizeGreaterThan(1);
+    assertThat(maxEditsInFlight.get()).isEqualTo(1);
+    for (int i = 1; i < editStarts.size(); i++) {
+      assertThat(editStarts.get(i) - editStarts.get(i - 1))
+          .isGreaterThanOrEqualTo(PROGRESS_INTERVAL.toMillis());
+    }
+
+    // and: the raid stats were the last edit, after every progress edit
+    List<String> titles = edits.stream()
+        .map(edit -> edit.getEmbeds().get(0))
+        .map(Embedded::getTitle)
+        .toList();
+    assertThat(titles.subList(0, titles.size() - 1))
+        .containsOnly("Crunching your raid history...");
+    assertThat(titles.get(titles.size() - 1)).isEqualTo("Raid Stats for Deaht#8080");
+  }
+
+  @Test
+  @DisplayName("The error embed of a failed sync is never overwritten by a progress edit")
+  @SuppressWarnings("unchecked")
+  public void errorEmbedIsTheLastEdit() {
+    // given: a sync that reports progress and fails while a progress edit is being applied
+    when(raidStatsCache.getByMembership(eq(3), eq("12345"), any()))
+        .thenReturn(Mono.deferContextual(context -> {
+          SyncStats.from(context).charactersFound(1);
+          return Mono.delay(PROGRESS_INTERVAL.plusSeconds(1))
+              .then(Mono.error(new IllegalStateException("Bungie is down")));
+        }));
+
+    // and: Discord applies every edit it was sent, even if the caller stops waiting on it
+    List<InteractionResponseData> edits = new CopyOnWriteArrayList<>();
+    AtomicInteger editsInFlight = new AtomicInteger(0);
+    AtomicInteger maxEditsInFlight = new AtomicInteger(0);
+    when(discordClient.editOriginalInteraction(eq(1L), eq("interaction-token"), any()))
+        .thenAnswer(invocation -> {
+          maxEditsInFlight.accumulateAndGet(editsInFlight.incrementAndGet(), Math::max);
+          Mono<Void> applied = Mono.delay(EDIT_TIME)
+              .doOnNext(tick -> {
+                editsInFlight.decrementAndGet();
+                edits.add(invocation.getArgument(2));
+              })
+              .then()
+              .cache();
+          applied.subscribe();
+          return applied;
+        });
+
+    ArgumentCaptor<Mono<Void>> job = ArgumentCaptor.forClass(Mono.class);
+    ArgumentCaptor<Function<Throwable, Mono<Void>>> onFailure =
+        ArgumentCaptor.forClass(Function.class);
+    when(deferredInteractionExecutor.submit(eq("raid_stats"), job.capture(),
+        onFailure.capture())).thenReturn(true);
+
+    // when: the deferred job runs and reports its failure the way the executor does
+    StepVerifier.withVirtualTime(() -> {
+          sut.createResponse(interaction()).block();
+          return job.getValue().onErrorResume(error -> onFailure.getValue().apply(error));
+        })
+        .thenAwait(Duration.ofMinutes(1))
+        .verifyComplete();
+
+    // then: the error embed was only sent once the progress edit was applied
+    assertThat(maxEditsInFlight.get()).isEqualTo(1);
+    assertThat(edits).extracting(edit -> edit.getEmbeds().get(0).getTitle())
+        .containsExactly("Crunching your raid history...", "Something went wrong");
+  }
+}
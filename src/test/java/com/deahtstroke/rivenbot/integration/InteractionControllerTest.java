@@ -79,10 +79,10 @@ public class InteractionControllerTest extends BaseIntegrationTest {
           var startDate = entry.getValue().getStartDate();
           var endDate = entry.getValue().getEndDate();
           if (Objects.nonNull(startDate)) {
-            entry.getValue().setStartDate(MessageUtils.PREVIOUS_TUESDAY);
+            entry.getValue().setStartDate(MessageUtils.previousWeeklyReset());
           }
           if (Objects.nonNull(endDate)) {
-            entry.getValue().setEndDate(MessageUtils.NEXT_TUESDAY);
+            entry.getValue().setEndDate(MessageUtils.nextWeeklyReset());
           }
         });
   }
@@ -231,7 +231,8 @@ public class InteractionControllerTest extends BaseIntegrationTest {
             """
                 This week's dungeon is: Spire of the Watcher.
                 You have until %s to complete it before the next dungeon in the rotation.
-                """.formatted(MessageUtils.formatDate(MessageUtils.NEXT_TUESDAY.toLocalDate())));
+                """.formatted(
+                MessageUtils.formatDate(MessageUtils.nextWeeklyReset().toLocalDate())));
   }
 
   @Test
@@ -296,7 +297,8 @@ public class InteractionControllerTest extends BaseIntegrationTest {
             """
                 This week's raid is: Garden of Salvation.
                 You have until %s to complete it before the next raid comes along.
-                """.formatted(MessageUtils.formatDate(MessageUtils.NEXT_TUESDAY.toLocalDate())));
+                """.formatted(
+                MessageUtils.formatDate(MessageUtils.nextWeeklyReset().toLocalDate())));
   }
 
   @Test
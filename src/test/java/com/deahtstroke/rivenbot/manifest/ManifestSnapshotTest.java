@@ -0,0 +1,99 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import reactor.core.scheduler.Schedulers;
+
+public class ManifestSnapshotTest {
+
+  private static final String ACTIVITY_DEFINITION_CONTENT =
+      "__files/bungie/manifest/DestinyActivityDefinition.json";
+  private static final String ACTIVITY_ENTITY = "DestinyActivityDefinition";
+
+  @TempDir
+  private Path directory;
+
+  private ManifestSnapshot snapshot(Map<String, ManifestStore> stores) {
+    return new ManifestSnapshot("1", directory.resolve("1"), stores, RaidCatalog.EMPTY,
+        Schedulers.immediate());
+  }
+
+  private ManifestStore store() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    Path storePath = directory.resolve("1").resolve(ACTIVITY_ENTITY + ".store");
+    Files.createDirectories(storePath.getParent());
+    try (InputStream content =
+        new ClassPathResource(ACTIVITY_DEFINITION_CONTENT).getInputStream()) {
+      new ManifestStoreWriter(objectMapper).write(content, storePath);
+    }
+    return ManifestStore.open(storePath, objectMapper);
+  }
+
+  @Test
+  @DisplayName("A retired snapshot can still be used by readers that acquired it before")
+  public void retiredSnapshotStaysUsableForInFlightReaders() {
+    // given: a snapshot with a reader that acquired it
+    ManifestSnapshot sut = snapshot(Map.of());
+    boolean acquired = sut.acquire();
+
+    // when: the owner retires the snapshot
+    sut.release();
+
+    // then: the reader still holds it, and new readers can join until the last one leaves
+    assertThat(acquired).isTrue();
+    assertThat(sut.acquire()).isTrue();
+    sut.release();
+    sut.release();
+
+    assertThat(sut.acquire()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Looking up an entity that is not part of the snapshot returns null")
+  public void unknownEntityReturnsNull() {
+    // given: an empty snapshot
+    ManifestSnapshot sut = snapshot(Map.of());
+
+    // when: an entity is looked up
+    var definition = sut.get("DestinyActivityDefinition", 1L);
+
+    // then: nothing is returned
+    assertThat(definition).isNull();
+  }
+
+  @Test
+  @DisplayName("Stores are closed and the version directory deleted once the last reader leaves")
+  public void lastReleaseClosesStoresAndDeletesDirectory() throws IOException {
+    // given: a snapshot with a store that a reader acquired
+    ManifestStore store = store();
+    ManifestSnapshot sut = snapshot(Map.of(ACTIVITY_ENTITY, store));
+    sut.acquire();
+
+    // when: the owner retires the snapshot
+    sut.release();
+
+    // then: the reader can still look up definitions
+    assertThat(sut.get(ACTIVITY_ENTITY, 2823159265L)).isNotNull();
+    assertThat(directory.resolve("1")).exists();
+
+    // when: the reader releases the snapshot
+    sut.release();
+
+    // then: the store is closed and the directory of the version is deleted
+    assertThatThrownBy(() -> store.get(2823159265L)).isInstanceOf(IllegalStateException.class);
+    assertThat(directory.resolve("1")).doesNotExist();
+  }
+}
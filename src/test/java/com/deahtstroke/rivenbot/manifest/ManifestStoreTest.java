@@ -0,0 +1,81 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+public class ManifestStoreTest {
+
+  private static final String ACTIVITY_DEFINITION_CONTENT =
+      "__files/bungie/manifest/DestinyActivityDefinition.json";
+
+  @TempDir
+  private Path directory;
+
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void setup() {
+    objectMapper = new ObjectMapper();
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @Test
+  @DisplayName("Definitions written from manifest content can be looked up by their hash")
+  public void writtenDefinitionsCanBeLookedUp() throws IOException {
+    // given: the content of a manifest entity written to a store
+    Path storePath = directory.resolve("DestinyActivityDefinition.store");
+    int written;
+    try (InputStream content = new ClassPathResource(ACTIVITY_DEFINITION_CONTENT).getInputStream()) {
+      written = new ManifestStoreWriter(objectMapper).write(content, storePath);
+    }
+
+    // when: the store is opened
+    try (ManifestStore store = ManifestStore.open(storePath, objectMapper)) {
+
+      // then: every definition is in the store with the fields the application uses
+      assertThat(written).isEqualTo(3);
+      assertThat(store.size()).isEqualTo(3);
+
+      ManifestResponseFields gardenOfSalvation = store.get(2823159265L);
+      assertThat(gardenOfSalvation).isNotNull();
+      assertThat(gardenOfSalvation.getHash()).isEqualTo(2823159265L);
+      assertThat(gardenOfSalvation.getActivityTypeHash()).isEqualTo(2043403989L);
+      assertThat(gardenOfSalvation.getDirectActivityModeType()).isEqualTo(4);
+      assertThat(gardenOfSalvation.getDisplayProperties().getName())
+          .isEqualTo("Garden of Salvation");
+
+      assertThat(store.get(910380154L).getDisplayProperties().getName())
+          .isEqualTo("Deep Stone Crypt");
+      assertThat(store.get(1374392663L).getDisplayProperties().getName())
+          .isEqualTo("King's Fall: Normal");
+    }
+  }
+
+  @Test
+  @DisplayName("Looking up a hash that is not in the store returns null")
+  public void unknownHashReturnsNull() throws IOException {
+    // given: a store written from manifest content
+    Path storePath = directory.resolve("DestinyActivityDefinition.store");
+    try (InputStream content = new ClassPathResource(ACTIVITY_DEFINITION_CONTENT).getInputStream()) {
+      new ManifestStoreWriter(objectMapper).write(content, storePath);
+    }
+
+    // when: a hash that does not exist is looked up
+    try (ManifestStore store = ManifestStore.open(storePath, objectMapper)) {
+
+      // then: nothing is returned
+      assertThat(store.get(1L)).isNull();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.deahtstroke.rivenbot.manifest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.dto.destiny.manifest.DisplayProperties;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RaidCatalogTest {
+
+  private static ManifestResponseFields activity(Long hash, Integer mode, String name) {
+    return ManifestResponseFields.builder()
+        .hash(hash)
+        .directActivityModeType(mode)
+        .displayProperties(new DisplayProperties("", name, "", "", false))
+        .build();
+  }
+
+  @Test
+  @DisplayName("Raid activities are resolved to their raid name, difficulty and master mode")
+  public void raidActivitiesAreResolved() {
+    // given: raid and non-raid activity definitions
+    var definitions = List.of(
+        activity(30L, 4, "King's Fall: Normal"),
+        activity(10L, 4, "King's Fall: Master"),
+        activity(20L, 4, "Last Wish: Level 55"),
+        activity(40L, 82, "Duality: Normal"));
+
+    // when: the catalog is built
+    RaidCatalog sut = RaidCatalog.of(definitions);
+
+    // then: only raids are in the catalog
+    assertThat(sut.size()).isEqualTo(3);
+    assertThat(sut.find(40L)).isNull();
+
+    // and: the activities are resolved
+    assertThat(sut.find(30L)).isEqualTo(
+        new RaidCatalog.RaidActivity("King's Fall", RaidDifficulty.NORMAL, true));
+    assertThat(sut.find(10L)).isEqualTo(
+        new RaidCatalog.RaidActivity("King's Fall", RaidDifficulty.MASTER, true));
+    assertThat(sut.find(20L)).isEqualTo(
+        new RaidCatalog.RaidActivity("Last Wish", null, false));
+    assertThat(sut.getRaidsWithMasterMode()).containsExactly("King's Fall");
+  }
+}
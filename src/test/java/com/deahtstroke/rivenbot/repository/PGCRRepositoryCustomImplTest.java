@@ -0,0 +1,54 @@
+package com.deahtstroke.rivenbot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PGCRRepositoryCustomImplTest {
+
+  @Mock
+  ReactiveMongoTemplate reactiveMongoTemplate;
+
+  private PGCRRepositoryCustomImpl sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = new PGCRRepositoryCustomImpl(reactiveMongoTemplate);
+  }
+
+  @Test
+  @DisplayName("Only reports keyed by their instance ID are read as the latest participants")
+  public void latestParticipantsSkipLegacyReports() {
+    // given: stored reports
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    when(reactiveMongoTemplate.find(query.capture(), eq(PGCRDetails.class)))
+        .thenReturn(Flux.empty());
+
+    // when: the participants of the latest reports are read
+    StepVerifier.create(sut.findLatestParticipants(500))
+        .verifyComplete();
+
+    // then: only reports with a numeric ID are read, newest first
+    verify(reactiveMongoTemplate).find(query.getValue(), PGCRDetails.class);
+    assertThat(query.getValue().getQueryObject().get("_id", Document.class))
+        .containsKey("$type");
+    assertThat(query.getValue().getSortObject()).containsEntry("_id", -1);
+    assertThat(query.getValue().getLimit()).isEqualTo(500);
+  }
+}
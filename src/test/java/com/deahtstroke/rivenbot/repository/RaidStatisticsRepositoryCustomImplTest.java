@@ -0,0 +1,172 @@
+package com.deahtstroke.rivenbot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.entity.RaidStatistics;
+import com.deahtstroke.rivenbot.entity.UserRaidDetails;
+import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class RaidStatisticsRepositoryCustomImplTest {
+
+  @Mock
+  ReactiveMongoTemplate reactiveMongoTemplate;
+  @Mock
+  ReactiveBulkOperations bulkOperations;
+
+  private RaidStatisticsRepositoryCustomImpl sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = new RaidStatisticsRepositoryCustomImpl(reactiveMongoTemplate);
+  }
+
+  private static UserRaidDetails raid(String raidName, RaidDifficulty difficulty,
+      boolean completed, Boolean fromBeginning, int durationSeconds) {
+    return UserRaidDetails.builder()
+        .userIdentifier("Deaht#8080")
+        .raidName(raidName)
+        .raidDifficulty(difficulty)
+        .isCompleted(completed)
+        .fromBeginning(fromBeginning)
+        .totalKills(100)
+        .totalDeaths(2)
+        .durationSeconds(durationSeconds)
+        .build();
+  }
+
+  @Test
+  @DisplayName("New raids are added to their raid's statistics with a single upsert per raid")
+  public void newRaidsAreIncrementedPerRaid() {
+    // given: new raids of two different raids
+    List<UserRaidDetails> newRaids = List.of(
+        raid("King's Fall", RaidDifficulty.NORMAL, true, true, 3600),
+        raid("King's Fall", RaidDifficulty.MASTER, true, true, 2400),
+        raid("King's Fall", RaidDifficulty.NORMAL, true, false, 1200),
+        raid("King's Fall", RaidDifficulty.NORMAL, false, true, 600),
+        raid("Last Wish", null, true, null, 5000));
+
+    when(reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, RaidStatistics.class))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+
+    // when: the raids are added to the statistics
+    StepVerifier.create(sut.incrementAll(newRaids))
+        .verifyComplete();
+
+    // then: every raid gets one upsert with the sums of its new raids
+    ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(bulkOperations, times(2)).upsert(queries.capture(), updates.capture());
+    verify(bulkOperations, times(1)).execute();
+
+    assertThat(queries.getAllValues().get(0).getQueryObject())
+        .containsEntry("userIdentifier", "Deaht#8080")
+        .containsEntry("raidName", "King's Fall");
+    Document kingsFall = updates.getAllValues().get(0).getUpdateObject();
+    assertThat(kingsFall.get("$inc", Document.class))
+        .containsEntry("totalKills", 400)
+        .containsEntry("totalDeaths", 8)
+        .containsEntry("totalClears", 3)
+        .containsEntry("fullClears", 2)
+        .containsEntry("partialClears", 1)
+        .containsEntry("normalClears", 2)
+        .containsEntry("masterClears", 1);
+    assertThat(kingsFall.get("$min", Document.class))
+        .containsEntry("fastestTime", 2400);
+
+    // and: raids that were never fully cleared don't get a fastest time
+    Document lastWish = updates.getAllValues().get(1).getUpdateObject();
+    assertThat(lastWish.get("$inc", Document.class))
+        .containsEntry("totalClears", 1)
+        .containsEntry("fullClears", 0)
+        .containsEntry("partialClears", 0);
+    assertThat(lastWish).doesNotContainKey("$min");
+  }
+
+  @Test
+  @DisplayName("No write is issued when there are no new raids")
+  public void noNewRaidsIsANoop() {
+    // when: no raids are added to the statistics
+    StepVerifier.create(sut.incrementAll(List.of()))
+        .verifyComplete();
+
+    // then: the database is not called
+    verifyNoInteractions(reactiveMongoTemplate);
+  }
+
+  @Test
+  @DisplayName("Rebuilt statistics are written over the stored ones instead of removed first")
+  public void rebuildReplacesStatisticsInPlace() {
+    // given: the stored raids of a user
+    List<UserRaidDetails> raids = List.of(
+        raid("King's Fall", RaidDifficulty.NORMAL, true, true, 3600),
+        raid("King's Fall", RaidDifficulty.NORMAL, true, false, 1200),
+        raid("Last Wish", null, false, null, 5000));
+    when(reactiveMongoTemplate.find(any(Query.class), eq(UserRaidDetails.class)))
+        .thenReturn(Flux.fromIterable(raids));
+
+    when(reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, RaidStatistics.class))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.unacknowledged()));
+    when(reactiveMongoTemplate.remove(any(Query.class), eq(RaidStatistics.class)))
+        .thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+
+    RaidStatistics kingsFall = new RaidStatistics();
+    when(reactiveMongoTemplate.find(any(Query.class), eq(RaidStatistics.class)))
+        .thenReturn(Flux.just(kingsFall));
+
+    // when: the statistics of the user are rebuilt
+    StepVerifier.create(sut.rebuild("Deaht#8080"))
+        .expectNext(kingsFall)
+        .verifyComplete();
+
+    // then: every raid's statistics are set to their new totals
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(bulkOperations, times(2)).upsert(any(Query.class), updates.capture());
+    Document kingsFallUpdate = updates.getAllValues().get(0).getUpdateObject();
+    assertThat(kingsFallUpdate.get("$set", Document.class))
+        .containsEntry("totalKills", 200)
+        .containsEntry("totalClears", 2)
+        .containsEntry("fullClears", 1)
+        .containsEntry("partialClears", 1)
+        .containsEntry("fastestTime", 3600);
+    assertThat(kingsFallUpdate).doesNotContainKey("$inc");
+
+    // and: raids that were never fully cleared lose their fastest time
+    Document lastWishUpdate = updates.getAllValues().get(1).getUpdateObject();
+    assertThat(lastWishUpdate.get("$set", Document.class)).containsEntry("totalClears", 0);
+    assertThat(lastWishUpdate.get("$unset", Document.class)).containsKey("fastestTime");
+
+    // and: only the statistics of raids missing from the history are removed
+    ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+    verify(reactiveMongoTemplate).remove(removed.capture(), eq(RaidStatistics.class));
+    assertThat(removed.getValue().getQueryObject().get("raidName", Document.class))
+        .containsKey("$nin");
+  }
+}
@@ -0,0 +1,81 @@
+package com.deahtstroke.rivenbot.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.assertArg;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.entity.CharacterSyncCursor;
+import com.deahtstroke.rivenbot.entity.UserDetails;
+import com.mongodb.client.result.UpdateResult;
+import java.time.Instant;
+import java.util.Map;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class UserDetailsRepositoryCustomImplTest {
+
+  @Mock
+  ReactiveMongoTemplate reactiveMongoTemplate;
+
+  private UserDetailsRepositoryCustomImpl sut;
+
+  @BeforeEach
+  public void setup() {
+    sut = new UserDetailsRepositoryCustomImpl(reactiveMongoTemplate);
+  }
+
+  @Test
+  @DisplayName("Saving the sync state of a user only sets the sync fields of its document")
+  public void syncStateIsSetWithoutReplacingTheDocument() {
+    // given: the state of a finished sync
+    Instant lastRequest = Instant.parse("2023-12-01T00:00:00Z");
+    Map<String, CharacterSyncCursor> syncCursors = Map.of("1",
+        new CharacterSyncCursor(5L, Instant.parse("2023-11-30T00:00:00Z")));
+
+    when(reactiveMongoTemplate.upsert(
+        assertArg(query -> assertThat(query.getQueryObject())
+            .isEqualTo(new Document("_id", "Deaht#8080"))),
+        assertArg(update -> assertThat(update.getUpdateObject())
+            .containsOnlyKeys("$set")
+            .extractingByKey("$set", InstanceOfAssertFactories.MAP)
+            .containsOnlyKeys("lastRequestDateTime", "syncCursors", "statisticsUpToDate")),
+        eq(UserDetails.class)))
+        .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    // when: the sync state is saved
+    StepVerifier.create(sut.saveSyncState("Deaht#8080", lastRequest, syncCursors))
+
+        // then: the user's document is upserted with $set, keeping every other field
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("Marking the statistics of a user as stale only updates that flag")
+  public void statisticsAreMarkedStale() {
+    // given: an existing user
+    when(reactiveMongoTemplate.updateFirst(
+        assertArg(query -> assertThat(query.getQueryObject())
+            .isEqualTo(new Document("_id", "Deaht#8080"))),
+        assertArg(update -> assertThat(update.getUpdateObject())
+            .isEqualTo(new Document("$set", new Document("statisticsUpToDate", false)))),
+        eq(UserDetails.class)))
+        .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+    // when: its statistics are marked as stale
+    StepVerifier.create(sut.markStatisticsStale("Deaht#8080"))
+
+        // then: the flag is set without touching the rest of the document
+        .verifyComplete();
+  }
+}
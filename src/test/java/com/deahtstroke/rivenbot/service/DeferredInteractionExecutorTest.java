@@ -0,0 +1,150 @@
+package com.deahtstroke.rivenbot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deahtstroke.rivenbot.config.DeferredJobConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class DeferredInteractionExecutorTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private VirtualTimeScheduler virtualTime;
+  private DeferredInteractionExecutor sut;
+
+  @BeforeEach
+  public void setup() {
+    virtualTime = VirtualTimeScheduler.getOrSet();
+    DeferredJobConfiguration configuration = new DeferredJobConfiguration();
+    configuration.setMaxConcurrency(1);
+    configuration.setQueueCapacity(1);
+    configuration.setTimeout(Duration.ofMillis(200));
+    meterRegistry = new SimpleMeterRegistry();
+    sut = new DeferredInteractionExecutor(configuration, meterRegistry,
+        ObservationRegistry.NOOP);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    sut.destroy();
+    VirtualTimeScheduler.reset();
+  }
+
+  @Test
+  @DisplayName("Jobs run once submitted and their run time is recorded")
+  public void jobsRun() {
+    // given: a job that completes right away
+    AtomicInteger runs = new AtomicInteger(0);
+    Mono<Void> job = Mono.fromRunnable(runs::incrementAndGet);
+
+    // when: the job is submitted
+    boolean accepted = sut.submit("raid_stats", job, error -> Mono.empty());
+
+    // then: the job ran successfully
+    assertThat(accepted).isTrue();
+    assertThat(runs.get()).isEqualTo(1);
+    assertThat(meterRegistry.get("interactions.deferred.run")
+        .tag("job", "raid_stats")
+        .tag("outcome", "success")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Jobs are turned down once the queue is full")
+  public void fullQueueRejectsJobs() {
+    // given: a job that takes the only slot and another one waiting in the queue
+    Sinks.Empty<Void> release = Sinks.empty();
+    assertThat(sut.submit("raid_stats", release.asMono(), error -> Mono.empty())).isTrue();
+    assertThat(sut.submit("raid_stats", Mono.empty(), error -> Mono.empty())).isTrue();
+
+    // when: one more job is submitted
+    boolean accepted = sut.submit("raid_stats", Mono.empty(), error -> Mono.empty());
+
+    // then: the job is turned down
+    assertThat(accepted).isFalse();
+    assertThat(meterRegistry.get("interactions.deferred.rejected").counter().count())
+        .isEqualTo(1.0);
+    assertThat(meterRegistry.get("interactions.deferred.queue.depth").gauge().value())
+        .isEqualTo(1.0);
+
+    // and: the queued job runs once the slot is free
+    release.tryEmitEmpty();
+    assertThat(meterRegistry.get("interactions.deferred.queue.depth").gauge().value())
+        .isZero();
+  }
+
+  @Test
+  @DisplayName("Jobs that don't finish in time report the timeout")
+  public void timedOutJobsReportTheFailure() {
+    // given: a job that never finishes
+    AtomicReference<Throwable> reported = new AtomicReference<>();
+
+    // when: the job is submitted
+    sut.submit("raid_stats", Mono.never(), error -> Mono.fromRunnable(() -> reported.set(error)));
+
+    // then: nothing is reported while the job still has time left
+    virtualTime.advanceTimeBy(Duration.ofMillis(100));
+    assertThat(reported.get()).isNull();
+
+    // and: the timeout is reported once the job runs out of time
+    virtualTime.advanceTimeBy(Duration.ofMillis(100));
+    assertThat(reported.get()).isInstanceOf(TimeoutException.class);
+    assertThat(meterRegistry.get("interactions.deferred.run")
+        .tag("outcome", "timeout")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Users of jobs cancelled by a shutdown are told about it")
+  public void shutdownReportsCancelledJobs() {
+    // given: a job that takes the only slot and another one waiting in the queue
+    List<String> reported = new CopyOnWriteArrayList<>();
+    sut.submit("running", Mono.never(), error -> Mono.fromRunnable(() -> {
+      assertThat(error).isInstanceOf(CancellationException.class);
+      reported.add("running");
+    }));
+    sut.submit("queued", Mono.never(), error -> Mono.fromRunnable(() -> {
+      assertThat(error).isInstanceOf(CancellationException.class);
+      reported.add("queued");
+    }));
+
+    // when: the application shuts down
+    sut.destroy();
+
+    // then: the users of both jobs were told
+    assertThat(reported).containsExactlyInAnyOrder("running", "queued");
+
+    // and: no more jobs are accepted
+    assertThat(sut.submit("raid_stats", Mono.empty(), error -> Mono.empty())).isFalse();
+    assertThat(meterRegistry.get("interactions.deferred.queue.depth").gauge().value())
+        .isZero();
+  }
+
+  @Test
+  @DisplayName("Jobs that finished before a shutdown are not reported as cancelled")
+  public void shutdownIgnoresFinishedJobs() {
+    // given: a job that already finished
+    AtomicReference<Throwable> reported = new AtomicReference<>();
+    sut.submit("raid_stats", Mono.empty(), error -> Mono.fromRunnable(() -> reported.set(error)));
+
+    // when: the application shuts down
+    sut.destroy();
+
+    // then: its user was not told anything
+    assertThat(reported.get()).isNull();
+  }
+}
@@ -0,0 +1,168 @@
+package com.deahtstroke.rivenbot.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.DestinyManifest;
+import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.enums.ManifestEntity;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class ManifestServiceTest {
+
+  private static final String ACTIVITY_DEFINITIONS =
+      "__files/bungie/manifest/DestinyActivityDefinition.json";
+  private static final String ACTIVITY_ENTITY = ManifestEntity.ACTIVITY_DEFINITION.getId();
+  private static final Long GARDEN_OF_SALVATION_HASH = 2823159265L;
+
+  @Mock
+  BungieClient bungieClient;
+
+  @TempDir
+  Path manifestDirectory;
+
+  private WireMockServer wireMockServer;
+  private BungieConfiguration bungieConfiguration;
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    wireMockServer = new WireMockServer(options().dynamicPort());
+    wireMockServer.start();
+    byte[] definitions = new ClassPathResource(ACTIVITY_DEFINITIONS).getContentAsByteArray();
+    for (String version : List.of("1", "2")) {
+      wireMockServer.stubFor(get(urlEqualTo(contentPath(version)))
+          .willReturn(aResponse()
+              .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+              .withBody(definitions)));
+    }
+
+    bungieConfiguration = new BungieConfiguration();
+    bungieConfiguration.getManifest().setDirectory(manifestDirectory.toString());
+    bungieConfiguration.getManifest().setEntities(List.of(ManifestEntity.ACTIVITY_DEFINITION));
+    objectMapper = new ObjectMapper();
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    wireMockServer.stop();
+  }
+
+  private ManifestService manifestService() {
+    WebClient manifestWebClient = WebClient.builder()
+        .baseUrl(wireMockServer.baseUrl())
+        .build();
+    return new ManifestService(bungieClient, manifestWebClient, bungieConfiguration,
+        objectMapper);
+  }
+
+  private static String contentPath(String version) {
+    return "/common/destiny2_content/json/en/DestinyActivityDefinition-%s.json".formatted(version);
+  }
+
+  private static Mono<BungieResponse<DestinyManifest>> manifest(String version) {
+    return Mono.just(new BungieResponse<>(new DestinyManifest(version,
+        Map.of("en", Map.of(ACTIVITY_ENTITY, contentPath(version))))));
+  }
+
+  private int downloads(String version) {
+    return wireMockServer.findAll(getRequestedFor(urlEqualTo(contentPath(version)))).size();
+  }
+
+  @Test
+  @DisplayName("A version that is already loaded is not downloaded again")
+  public void loadedVersionIsNotDownloadedAgain() {
+    // given: Bungie publishes the same manifest version every time it's asked
+    when(bungieClient.getManifest()).thenReturn(manifest("1"), manifest("1"));
+    ManifestService sut = manifestService();
+
+    // when: the manifest is refreshed twice
+    StepVerifier.create(sut.refreshManifest().then(sut.refreshManifest()))
+        .expectNext("1")
+        .verifyComplete();
+
+    // then: the content of the version was downloaded only once
+    assertThat(downloads("1")).isEqualTo(1);
+
+    // and: definitions are served from the local store
+    StepVerifier.create(sut.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION,
+            GARDEN_OF_SALVATION_HASH).map(ManifestResponseFields::getDisplayProperties))
+        .assertNext(displayProperties ->
+            assertThat(displayProperties.getName()).isEqualTo("Garden of Salvation"))
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("Stores written by a previous run are reused instead of downloaded")
+  public void storesOnDiskAreReused() {
+    // given: a previous run that already loaded the manifest version
+    when(bungieClient.getManifest()).thenReturn(manifest("1"), manifest("1"));
+    StepVerifier.create(manifestService().refreshManifest())
+        .expectNext("1")
+        .verifyComplete();
+
+    // when: a new instance loads the same version from the same directory
+    ManifestService sut = manifestService();
+    StepVerifier.create(sut.refreshManifest())
+        .expectNext("1")
+        .verifyComplete();
+
+    // then: the store on disk was opened without downloading the content again
+    assertThat(downloads("1")).isEqualTo(1);
+    assertThat(sut.getRaidCatalog().size()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("A new version is downloaded and swapped in")
+  public void newVersionIsDownloadedAndSwappedIn() {
+    // given: Bungie publishes a new manifest version after the first one was loaded
+    when(bungieClient.getManifest()).thenReturn(manifest("1"), manifest("2"));
+    ManifestService sut = manifestService();
+    StepVerifier.create(sut.refreshManifest())
+        .expectNext("1")
+        .verifyComplete();
+
+    // when: the manifest is refreshed again
+    StepVerifier.create(sut.refreshManifest())
+
+        // then: the new version is loaded
+        .expectNext("2")
+        .verifyComplete();
+
+    // and: each version was downloaded once
+    assertThat(downloads("1")).isEqualTo(1);
+    assertThat(downloads("2")).isEqualTo(1);
+    assertThat(sut.getLoadedVersion()).contains("2");
+    assertThat(manifestDirectory.resolve("2").resolve(ACTIVITY_ENTITY + ".store")).exists();
+  }
+}
@@ -0,0 +1,160 @@
+package com.deahtstroke.rivenbot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.client.BungieClient;
+import com.deahtstroke.rivenbot.config.AutocompleteConfiguration;
+import com.deahtstroke.rivenbot.dto.destiny.BungieResponse;
+import com.deahtstroke.rivenbot.dto.destiny.DestinyMembershipData;
+import com.deahtstroke.rivenbot.dto.destiny.Group;
+import com.deahtstroke.rivenbot.dto.destiny.GroupResult;
+import com.deahtstroke.rivenbot.dto.destiny.MemberGroupResponse;
+import com.deahtstroke.rivenbot.dto.destiny.SearchResult;
+import com.deahtstroke.rivenbot.dto.destiny.UserGlobalSearchBody;
+import com.deahtstroke.rivenbot.dto.destiny.UserSearchResult;
+import com.deahtstroke.rivenbot.dto.discord.Choice;
+import com.deahtstroke.rivenbot.repository.PGCRRepository;
+import com.deahtstroke.rivenbot.service.PlayerNameIndex.Entry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PlayerAutocompleteServiceTest {
+
+  @Mock
+  BungieClient bungieClient;
+  @Mock
+  PGCRRepository pgcrRepository;
+
+  private AutocompleteConfiguration configuration;
+  private PlayerNameIndex playerNameIndex;
+  private PlayerAutocompleteService sut;
+
+  @BeforeEach
+  public void setup() {
+    configuration = new AutocompleteConfiguration();
+    configuration.setClanLookupTimeout(Duration.ofMillis(100));
+    playerNameIndex = new PlayerNameIndex(configuration, pgcrRepository);
+    sut = new PlayerAutocompleteService(bungieClient, playerNameIndex, configuration);
+  }
+
+  private static UserSearchResult searchResult(String name, Integer code, String membershipId) {
+    return new UserSearchResult(name, code, null,
+        List.of(new DestinyMembershipData(3, membershipId)));
+  }
+
+  private static BungieResponse<MemberGroupResponse> clan(String clanName) {
+    return new BungieResponse<>(new MemberGroupResponse(
+        List.of(new GroupResult(new Group("881267", clanName)))));
+  }
+
+  @Test
+  @DisplayName("Choices are answered from the index when it knows enough players")
+  public void choicesAreAnsweredFromTheIndex() {
+    // given: an index that knows more players for the prefix than fit in the choices
+    for (int i = 0; i < 30; i++) {
+      playerNameIndex.add(new Entry("Deaht#%04d".formatted(i), null, 3, String.valueOf(i)));
+    }
+
+    // when: the prefix is autocompleted
+    StepVerifier.create(sut.autocomplete("Deaht"))
+
+        // then: every choice comes from the index and Bungie is not searched
+        .assertNext(choices -> {
+          assertThat(choices).hasSize(25);
+          assertThat(choices.getFirst().getName()).isEqualTo("Deaht#0000");
+          assertThat(choices.getFirst().getValue()).isEqualTo("3:0");
+        })
+        .verifyComplete();
+    verifyNoInteractions(bungieClient);
+  }
+
+  @Test
+  @DisplayName("Players whose clan isn't found in time are suggested without it")
+  public void slowClanLookupsReturnPartialChoices() {
+    // given: two players where the clan lookup of one of them never finishes
+    when(bungieClient.searchByGlobalName(new UserGlobalSearchBody("deaht"), 0))
+        .thenReturn(Mono.just(new BungieResponse<>(new SearchResult(List.of(
+            searchResult("Deaht", 8080, "4611686018467284386"),
+            searchResult("Deahtly", 1234, "4611686018467284387")), 0, false))));
+    when(bungieClient.getGroupsForMember(eq(3), eq("4611686018467284386"), any(), any()))
+        .thenReturn(Mono.just(clan("Riven of a Thousand Servers")));
+    when(bungieClient.getGroupsForMember(eq(3), eq("4611686018467284387"), any(), any()))
+        .thenReturn(Mono.never());
+
+    // when: the prefix is autocompleted
+    StepVerifier.create(sut.autocomplete("Deaht"))
+
+        // then: both players are suggested and only the one with a known clan shows it
+        .assertNext(choices -> assertThat(choices).extracting(Choice::getName)
+            .containsExactly("Deaht#8080[Riven of a Thousand Servers]", "Deahtly#1234"))
+        .verifyComplete();
+
+    // and: the players can be found by their clan afterward
+    assertThat(playerNameIndex.search("riven", 25)).extracting(Entry::bungieName)
+        .containsExactly("Deaht#8080");
+
+    // and: the choices for the prefix are reused
+    StepVerifier.create(sut.autocomplete("deaht "))
+        .assertNext(choices -> assertThat(choices).hasSize(2))
+        .verifyComplete();
+    verify(bungieClient, times(1)).searchByGlobalName(any(), any());
+  }
+
+  @Test
+  @DisplayName("Indexed players are still suggested when Bungie fails")
+  public void bungieErrorsFallBackToTheIndex() {
+    // given: an indexed player and a Bungie search that fails
+    playerNameIndex.add(new Entry("Deaht#8080", "Riven of a Thousand Servers", 3,
+        "4611686018467284386"));
+    when(bungieClient.searchByGlobalName(new UserGlobalSearchBody("deaht"), 0))
+        .thenReturn(Mono.error(new IllegalStateException("Bungie is down")));
+
+    // when: the prefix is autocompleted
+    StepVerifier.create(sut.autocomplete("Deaht"))
+
+        // then: the indexed player is suggested
+        .assertNext(choices -> assertThat(choices).containsExactly(
+            new Choice("Deaht#8080[Riven of a Thousand Servers]", "3:4611686018467284386")))
+        .verifyComplete();
+  }
+
+  @Test
+  @DisplayName("Choices cut short by the deadline are not reused")
+  public void truncatedChoicesAreNotReused() {
+    // given: an indexed player and a Bungie search that doesn't finish by the deadline
+    playerNameIndex.add(new Entry("Deaht#8080", null, 3, "4611686018467284386"));
+    when(bungieClient.searchByGlobalName(new UserGlobalSearchBody("deaht"), 0))
+        .thenReturn(Mono.never());
+
+    // when: the prefix is autocompleted
+    StepVerifier.withVirtualTime(() -> sut.autocomplete("Deaht"))
+        .thenAwait(configuration.getDeadline())
+
+        // then: the players found by the deadline are suggested
+        .assertNext(choices -> assertThat(choices).extracting(Choice::getName)
+            .containsExactly("Deaht#8080"))
+        .verifyComplete();
+
+    // and: the next request for the prefix searches Bungie again
+    StepVerifier.withVirtualTime(() -> sut.autocomplete("Deaht"))
+        .thenAwait(configuration.getDeadline())
+        .expectNextCount(1)
+        .verifyComplete();
+    verify(bungieClient, times(2)).searchByGlobalName(any(), any());
+  }
+}
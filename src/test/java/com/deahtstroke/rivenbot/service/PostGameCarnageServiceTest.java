@@ -0,0 +1,174 @@
+package com.deahtstroke.rivenbot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.assertArg;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.client.ClientInstrumentation;
+import com.deahtstroke.rivenbot.codec.PostGameCarnageReportParser;
+import com.deahtstroke.rivenbot.dto.destiny.PostGameCarnageReport;
+import com.deahtstroke.rivenbot.entity.PGCRDetails;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
+import com.deahtstroke.rivenbot.filter.ClientMetricsFilterFunction;
+import com.deahtstroke.rivenbot.mapper.PGCRMapper;
+import com.deahtstroke.rivenbot.repository.PGCRRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PostGameCarnageServiceTest {
+
+  private static final String PGCR_RESPONSE = """
+      {
+        "Response": {
+          "period": "2023-12-01T00:00:00Z",
+          "activityWasStartedFromBeginning": true,
+          "entries": []
+        },
+        "ErrorCode": 1
+      }
+      """;
+
+  private static final Long FAILING_INSTANCE_ID = 3L;
+
+  @Mock
+  PGCRMapper pgcrMapper;
+  @Mock
+  PGCRRepository pgcrRepository;
+  @Mock
+  PlayerNameIndex playerNameIndex;
+
+  private AtomicInteger bungieCalls;
+  private Duration bungieLatency;
+  private SimpleMeterRegistry meterRegistry;
+  private PostGameCarnageService sut;
+
+  @BeforeEach
+  public void setup() {
+    bungieCalls = new AtomicInteger(0);
+    bungieLatency = Duration.ZERO;
+    meterRegistry = new SimpleMeterRegistry();
+    WebClient pgcrWebClient = WebClient.builder()
+        .filter(new ClientMetricsFilterFunction(new ObjectMapper()))
+        .exchangeFunction(request -> {
+          bungieCalls.incrementAndGet();
+          if (request.url().getPath().endsWith("/%s/".formatted(FAILING_INSTANCE_ID))) {
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+          }
+          return Mono.delay(bungieLatency)
+              .map(tick -> ClientResponse.create(HttpStatus.OK)
+                  .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                  .body(PGCR_RESPONSE)
+                  .build());
+        })
+        .build();
+    sut = new PostGameCarnageService(pgcrWebClient, pgcrMapper, pgcrRepository,
+        new PostGameCarnageReportParser(new ObjectMapper()), playerNameIndex,
+        new ClientInstrumentation(meterRegistry), meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Only the reports missing from the database are requested from Bungie")
+  public void onlyMissingReportsAreRequested() {
+    // given: instance IDs where one report was already stored and one is repeated
+    Flux<Long> instanceIds = Flux.just(1L, 2L, 1L);
+
+    PGCRDetails storedReport = new PGCRDetails(1L, false, null);
+    when(pgcrRepository.findAllById(List.of(1L, 2L))).thenReturn(Flux.just(storedReport));
+
+    PGCRDetails newReport = new PGCRDetails(2L, true, null);
+    when(pgcrMapper.dtoToEntity(any(PostGameCarnageReport.class), eq(2L))).thenReturn(newReport);
+
+    when(pgcrRepository.insertAll(assertArg(reports ->
+        assertThat(reports).containsExactly(newReport)))).thenReturn(Mono.empty());
+
+    // when: the reports are retrieved
+    var response = StepVerifier.create(sut.retrievePGCRs(instanceIds));
+
+    // then: the stored report and the new report are returned
+    response.expectNext(storedReport)
+        .expectNext(newReport)
+        .verifyComplete();
+
+    // and: Bungie was only called for the missing report
+    assertThat(bungieCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Reports that can't be fetched fail the retrieval once the others are stored")
+  public void failedReportsFailTheRetrieval() {
+    // given: two reports missing from the database, one of which Bungie fails to return
+    Flux<Long> instanceIds = Flux.just(2L, FAILING_INSTANCE_ID);
+    when(pgcrRepository.findAllById(List.of(2L, FAILING_INSTANCE_ID))).thenReturn(Flux.empty());
+
+    PGCRDetails newReport = new PGCRDetails(2L, true, null);
+    when(pgcrMapper.dtoToEntity(any(PostGameCarnageReport.class), eq(2L))).thenReturn(newReport);
+
+    when(pgcrRepository.insertAll(assertArg(reports ->
+        assertThat(reports).containsExactly(newReport)))).thenReturn(Mono.empty());
+
+    // when: the reports are retrieved
+    var response = StepVerifier.create(sut.retrievePGCRs(instanceIds));
+
+    // then: the report that was fetched is stored and the retrieval fails, so the failed report is
+    // requested again by the next sync
+    response.expectError(InternalServerException.class)
+        .verify();
+
+    // and: both reports were requested from Bungie
+    assertThat(bungieCalls.get()).isEqualTo(2);
+
+    // and: both calls were measured along with their status
+    assertThat(meterRegistry.get("client.calls").tag("client", "bungie-stats")
+        .tag("method", "getPostGameCarnageReport").tag("status", "200").timer().count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.get("client.calls").tag("client", "bungie-stats")
+        .tag("method", "getPostGameCarnageReport").tag("status", "503").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Reports needed by concurrent syncs are requested from Bungie only once")
+  public void concurrentRequestsForTheSameReportAreCoalesced() {
+    // given: a report missing from the database that Bungie takes a second to return
+    bungieLatency = Duration.ofSeconds(1);
+    when(pgcrRepository.findAllById(List.of(2L))).thenReturn(Flux.empty());
+
+    PGCRDetails newReport = new PGCRDetails(2L, true, null);
+    when(pgcrMapper.dtoToEntity(any(PostGameCarnageReport.class), eq(2L))).thenReturn(newReport);
+    when(pgcrRepository.insertAll(any())).thenReturn(Mono.empty());
+
+    // when: the syncs of two members of the fireteam retrieve the report at the same time
+    StepVerifier.withVirtualTime(() -> Flux.merge(sut.retrievePGCRs(Flux.just(2L)),
+            sut.retrievePGCRs(Flux.just(2L))))
+        .thenAwait(Duration.ofSeconds(2))
+
+        // then: both syncs get the report
+        .expectNext(newReport, newReport)
+        .verifyComplete();
+
+    // and: Bungie was called once, the second sync attached to the call of the first one
+    assertThat(bungieCalls.get()).isEqualTo(1);
+    assertThat(meterRegistry.get("bungie.client.coalesced").tag("client", "pgcr")
+        .tag("outcome", "hit").counter().count()).isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,227 @@
+package com.deahtstroke.rivenbot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.config.CacheConfiguration;
+import com.deahtstroke.rivenbot.config.DeferredJobConfiguration;
+import com.deahtstroke.rivenbot.dto.CachedRaidStats;
+import com.deahtstroke.rivenbot.dto.discord.EmbeddedField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class RaidStatsCacheTest {
+
+  private static final String USER_KEY = "raid-stats:user:deaht#8080";
+  private static final String MEMBERSHIP_KEY = "raid-stats:membership:3:12345";
+
+  @Mock
+  ReactiveStringRedisTemplate redisTemplate;
+  @Mock
+  ReactiveValueOperations<String, String> valueOperations;
+
+  private ObjectMapper objectMapper;
+  private AtomicInteger loads;
+  private DeferredJobConfiguration deferredJobConfiguration;
+  private DeferredInteractionExecutor deferredInteractionExecutor;
+  private RaidStatsCache sut;
+
+  @BeforeEach
+  public void setup() {
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    loads = new AtomicInteger(0);
+    CacheConfiguration cacheConfiguration = new CacheConfiguration();
+    cacheConfiguration.getRaidStats().setSoftTtl(Duration.ofMinutes(15));
+    cacheConfiguration.getRaidStats().setTtl(Duration.ofDays(7));
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    deferredJobConfiguration = new DeferredJobConfiguration();
+    deferredInteractionExecutor = new DeferredInteractionExecutor(deferredJobConfiguration,
+        new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+    sut = new RaidStatsCache(redisTemplate, objectMapper, cacheConfiguration,
+        deferredInteractionExecutor);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    deferredInteractionExecutor.destroy();
+  }
+
+  private static CachedRaidStats raidStats(Instant computedAt) {
+    return CachedRaidStats.builder()
+        .uniqueName("Deaht#8080")
+        .membershipType(3)
+        .membershipId("12345")
+        .iconUrl("https://www.bungie.net/icon.png")
+        .statistics(List.of())
+        .fields(List.of(new EmbeddedField("Last Wish", ":bar_chart: Total Clears: 3", true)))
+        .computedAt(computedAt)
+        .build();
+  }
+
+  private Supplier<Mono<CachedRaidStats>> loader() {
+    return () -> Mono.fromSupplier(() -> {
+      loads.incrementAndGet();
+      return raidStats(Instant.now());
+    });
+  }
+
+  @Test
+  @DisplayName("Fresh cached raid stats are served without computing them")
+  public void freshEntriesAreServed() throws Exception {
+    // given: raid stats computed a minute ago
+    CachedRaidStats cached = raidStats(Instant.now().minusSeconds(60));
+    when(valueOperations.get(USER_KEY))
+        .thenReturn(Mono.just(objectMapper.writeValueAsString(cached)));
+
+    // when: the raid stats are requested
+    StepVerifier.create(sut.getByUniqueName("Deaht#8080", loader()))
+
+        // then: the cached raid stats are returned
+        .assertNext(raidStats -> {
+          assertThat(raidStats.getComputedAt()).isEqualTo(cached.getComputedAt());
+          assertThat(raidStats.getFields()).extracting(EmbeddedField::getName)
+              .containsExactly("Last Wish");
+        })
+        .verifyComplete();
+
+    // and: nothing was computed nor written
+    assertThat(loads.get()).isZero();
+    verify(valueOperations, never()).set(anyString(), anyString(), eq(Duration.ofDays(7)));
+  }
+
+  @Test
+  @DisplayName("Stale cached raid stats are served and refreshed in the background")
+  public void staleEntriesAreServedAndRefreshed() throws Exception {
+    // given: raid stats computed an hour ago
+    CachedRaidStats cached = raidStats(Instant.now().minus(Duration.ofHours(1)));
+    when(valueOperations.get(USER_KEY))
+        .thenReturn(Mono.just(objectMapper.writeValueAsString(cached)));
+    when(valueOperations.set(anyString(), anyString(), eq(Duration.ofDays(7))))
+        .thenReturn(Mono.just(true));
+
+    // when: the raid stats are requested
+    StepVerifier.create(sut.getByUniqueName("Deaht#8080", loader()))
+
+        // then: the stale raid stats are returned right away
+        .assertNext(raidStats ->
+            assertThat(raidStats.getComputedAt()).isEqualTo(cached.getComputedAt()))
+        .verifyComplete();
+
+    // and: they were recomputed and written back under both keys
+    assertThat(loads.get()).isEqualTo(1);
+    verify(valueOperations, times(1)).set(eq(USER_KEY), anyString(), eq(Duration.ofDays(7)));
+    verify(valueOperations, times(1))
+        .set(MEMBERSHIP_KEY, "Deaht#8080", Duration.ofDays(7));
+  }
+
+  @Test
+  @DisplayName("Missing raid stats are computed and cached")
+  public void missingEntriesAreComputed() {
+    // given: no cached raid stats for the membership
+    when(valueOperations.get(MEMBERSHIP_KEY)).thenReturn(Mono.empty());
+    when(valueOperations.set(anyString(), anyString(), eq(Duration.ofDays(7))))
+        .thenReturn(Mono.just(true));
+
+    // when: the raid stats are requested
+    StepVerifier.create(sut.getByMembership(3, "12345", loader()))
+
+        // then: the computed raid stats are returned
+        .assertNext(raidStats -> assertThat(raidStats.getUniqueName()).isEqualTo("Deaht#8080"))
+        .verifyComplete();
+
+    // and: they were written to the cache
+    assertThat(loads.get()).isEqualTo(1);
+    verify(valueOperations, times(1)).set(eq(USER_KEY), anyString(), eq(Duration.ofDays(7)));
+  }
+
+  @Test
+  @DisplayName("Raid stats are computed when Redis is unavailable")
+  public void redisErrorsAreMisses() {
+    // given: Redis fails on every command
+    when(valueOperations.get(USER_KEY))
+        .thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+    when(valueOperations.set(anyString(), anyString(), eq(Duration.ofDays(7))))
+        .thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+    // when: the raid stats are requested
+    StepVerifier.create(sut.getByUniqueName("Deaht#8080", loader()))
+
+        // then: the raid stats are computed anyway
+        .expectNextCount(1)
+        .verifyComplete();
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Raid stats are found whatever the capitalization of the unique name")
+  public void uniqueNamesAreCaseInsensitive() throws Exception {
+    // given: raid stats cached under the unique name Bungie returned
+    CachedRaidStats cached = raidStats(Instant.now().minusSeconds(60));
+    when(valueOperations.get(USER_KEY))
+        .thenReturn(Mono.just(objectMapper.writeValueAsString(cached)));
+
+    // when: the raid stats are requested with a different capitalization
+    StepVerifier.create(sut.getByUniqueName("DEAHT#8080", loader()))
+
+        // then: the cached raid stats are returned
+        .assertNext(raidStats -> assertThat(raidStats.getUniqueName()).isEqualTo("Deaht#8080"))
+        .verifyComplete();
+
+    // and: nothing was computed
+    assertThat(loads.get()).isZero();
+  }
+
+  @Test
+  @DisplayName("Stale raid stats are not refreshed when the deferred job queue is full")
+  public void refreshesAreBoundedByTheDeferredJobQueue() throws Exception {
+    // given: a deferred job queue that is full of jobs that never finish
+    deferredInteractionExecutor.destroy();
+    deferredJobConfiguration.setMaxConcurrency(1);
+    deferredJobConfiguration.setQueueCapacity(1);
+    deferredInteractionExecutor = new DeferredInteractionExecutor(deferredJobConfiguration,
+        new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+    deferredInteractionExecutor.submit("raid_stats", Mono.never(), error -> Mono.empty());
+    deferredInteractionExecutor.submit("raid_stats", Mono.never(), error -> Mono.empty());
+    sut = new RaidStatsCache(redisTemplate, objectMapper, new CacheConfiguration(),
+        deferredInteractionExecutor);
+
+    // and: raid stats computed a day ago
+    CachedRaidStats cached = raidStats(Instant.now().minus(Duration.ofDays(1)));
+    when(valueOperations.get(USER_KEY))
+        .thenReturn(Mono.just(objectMapper.writeValueAsString(cached)));
+
+    // when: the raid stats are requested
+    StepVerifier.create(sut.getByUniqueName("Deaht#8080", loader()))
+
+        // then: the stale raid stats are returned right away
+        .expectNextCount(1)
+        .verifyComplete();
+
+    // and: they were not recomputed
+    assertThat(loads.get()).isZero();
+  }
+}
@@ -4,7 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.assertArg;
-import static org.mockito.Mockito.atMost;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -17,12 +18,18 @@ import com.deahtstroke.rivenbot.dto.destiny.ValueEntry;
 import com.deahtstroke.rivenbot.dto.destiny.characters.UserCharacter;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.DisplayProperties;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
+import com.deahtstroke.rivenbot.entity.CharacterSyncCursor;
 import com.deahtstroke.rivenbot.entity.PGCRDetails;
 import com.deahtstroke.rivenbot.entity.UserDetails;
 import com.deahtstroke.rivenbot.entity.UserRaidDetails;
 import com.deahtstroke.rivenbot.enums.ManifestEntity;
 import com.deahtstroke.rivenbot.enums.RaidDifficulty;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
+import com.deahtstroke.rivenbot.manifest.RaidCatalog;
+import com.deahtstroke.rivenbot.repository.RaidStatisticsRepository;
 import com.deahtstroke.rivenbot.repository.UserDetailsRepository;
+import com.deahtstroke.rivenbot.repository.UserRaidDetailsRepository;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
@@ -36,7 +43,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,7 +57,15 @@ public class UserRaidDetailsServiceTest {
   @Mock
   UserDetailsRepository userDetailsRepository;
   @Mock
+  UserRaidDetailsRepository userRaidDetailsRepository;
+  @Mock
+  RaidStatisticsRepository raidStatisticsRepository;
+  @Mock
   PostGameCarnageService postGameCarnageService;
+  @Mock
+  ManifestService manifestService;
+  @Mock
+  RaidSyncMetrics raidSyncMetrics;
 
   @InjectMocks
   UserRaidDetailsService sut;
@@ -153,6 +171,88 @@ public class UserRaidDetailsServiceTest {
         .getRaidActivities(membershipType, membershipId, characterId, 2);
   }
 
+  @Test
+  @DisplayName("Get all activities probes long histories in windows that double in size")
+  public void getUserActivitiesProbesHistoryInDoublingWindows() {
+    // given: a character with five full pages and a sixth partial page
+    Integer membershipType = 3;
+    String membershipId = "1389012";
+    String characterId = "1";
+
+    List<Activity> fullPage = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      fullPage.add(new Activity(Instant.now(), new ActivityDetails(1L, (long) i, 4),
+          Collections.emptyMap()));
+    }
+    for (int page = 0; page < 5; page++) {
+      when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, page))
+          .thenReturn(Mono.just(new ActivitiesResponse(fullPage)));
+    }
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, 5))
+        .thenReturn(Mono.just(new ActivitiesResponse(fullPage.subList(0, 10))));
+
+    // and: the rest of the last probe window is past the end of the history
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, 6))
+        .thenReturn(Mono.just(new ActivitiesResponse()));
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, 7))
+        .thenReturn(Mono.just(new ActivitiesResponse()));
+
+    // when: getActivitiesAll is called
+    var response = sut.getActivitiesAll(membershipType, membershipId, characterId);
+
+    // then: every activity of the history is returned
+    StepVerifier.create(response.count())
+        .expectNext(1260L)
+        .verifyComplete();
+
+    // and: probing stopped with the window that contained the end of the history
+    verify(bungieAPIService, times(1))
+        .getRaidActivities(membershipType, membershipId, characterId, 7);
+    verify(bungieAPIService, never())
+        .getRaidActivities(membershipType, membershipId, characterId, 8);
+  }
+
+  @Test
+  @DisplayName("Get all activities stops growing the probe windows at four pages")
+  public void getUserActivitiesCapsProbeWindows() {
+    // given: a character with nine full pages and a tenth partial page
+    Integer membershipType = 3;
+    String membershipId = "1389012";
+    String characterId = "1";
+
+    List<Activity> fullPage = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      fullPage.add(new Activity(Instant.now(), new ActivityDetails(1L, (long) i, 4),
+          Collections.emptyMap()));
+    }
+    for (int page = 0; page < 9; page++) {
+      when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, page))
+          .thenReturn(Mono.just(new ActivitiesResponse(fullPage)));
+    }
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, 9))
+        .thenReturn(Mono.just(new ActivitiesResponse(fullPage.subList(0, 10))));
+
+    // and: the rest of the last probe window is past the end of the history
+    for (int page = 10; page < 12; page++) {
+      when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, page))
+          .thenReturn(Mono.just(new ActivitiesResponse()));
+    }
+
+    // when: getActivitiesAll is called
+    var response = sut.getActivitiesAll(membershipType, membershipId, characterId);
+
+    // then: every activity of the history is returned
+    StepVerifier.create(response.count())
+        .expectNext(2260L)
+        .verifyComplete();
+
+    // and: only the two pages that completed the last four page window went past the history
+    verify(bungieAPIService, times(1))
+        .getRaidActivities(membershipType, membershipId, characterId, 11);
+    verify(bungieAPIService, never())
+        .getRaidActivities(membershipType, membershipId, characterId, 12);
+  }
+
   @Test
   @DisplayName("Get all activities returns an empty list for characters with no raids")
   public void getUserActivitiesEmptyActivityHistorySuccess() {
@@ -212,6 +312,8 @@ public class UserRaidDetailsServiceTest {
     when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
         .thenReturn(Mono.just(activitiesResponse));
 
+    when(manifestService.getRaidCatalog()).thenReturn(RaidCatalog.EMPTY);
+
     ManifestResponseFields firstActivity = ManifestResponseFields.builder()
         .displayProperties(new DisplayProperties("", "Last Wish: 50", "", "", false))
         .build();
@@ -224,22 +326,20 @@ public class UserRaidDetailsServiceTest {
     when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 2L))
         .thenReturn(Mono.just(secondActivity));
 
-    PGCRDetails pgcr = new PGCRDetails(null, true, null);
-    when(postGameCarnageService.retrievePGCR(any(Long.class)))
-        .thenReturn(Mono.just((pgcr)));
+    when(postGameCarnageService.retrievePGCRs(any()))
+        .thenAnswer(invocation -> invocation.<Flux<Long>>getArgument(0)
+            .map(instanceId -> new PGCRDetails(instanceId, true, null)));
 
-    when(userDetailsRepository.save(assertArg(ud -> {
-      UserRaidDetails lastWish = ud.getUserRaidDetails().stream()
+    when(userRaidDetailsRepository.upsertAll(assertArg(raids -> {
+      UserRaidDetails lastWish = raids.stream()
           .filter(raid -> raid.getInstanceId() == 789120L)
           .findFirst().orElse(null);
 
-      UserRaidDetails kingsFall = ud.getUserRaidDetails().stream()
+      UserRaidDetails kingsFall = raids.stream()
           .filter(raid -> raid.getInstanceId() == 789124L)
           .findFirst().orElse(null);
 
-      assertThat(ud.getUserIdentifier()).isEqualTo(userId);
-      assertThat(ud.getLastRequestDateTime()).isEqualTo(creationInstant);
-      assertThat(ud.getUserRaidDetails().size()).isEqualTo(5);
+      assertThat(raids).hasSize(5);
       assertThat(lastWish.getRaidName()).isEqualTo("Last Wish");
       assertThat(lastWish.getRaidDifficulty()).isNull();
       assertThat(lastWish.getIsCompleted()).isTrue();
@@ -248,20 +348,45 @@ public class UserRaidDetailsServiceTest {
       assertThat(lastWish.getDurationSeconds()).isEqualTo(3600);
       assertThat(kingsFall.getRaidName()).isEqualTo("King's Fall");
       assertThat(kingsFall.getRaidDifficulty()).isEqualTo(RaidDifficulty.MASTER);
+      assertThat(raids)
+          .extracting(UserRaidDetails::getUserIdentifier)
+          .containsOnly(userId);
     }))).thenReturn(Mono.empty());
+    when(raidStatisticsRepository.rebuild(userId)).thenReturn(Flux.empty());
 
-    // when: create user details is called
+    when(userDetailsRepository.saveSyncState(eq(userId), eq(creationInstant), any()))
+        .thenReturn(Mono.empty());
+
+    // when: create user details is called by a request that follows its progress
+    SyncStats syncStats = new SyncStats();
     var response = StepVerifier.create(
-        sut.createUserDetails(creationInstant, userId, membershipId, membershipType));
+        sut.createUserDetails(creationInstant, userId, membershipId, membershipType)
+            .contextWrite(SyncStats.with(syncStats)));
 
-    // then: the saved entity is saved correctly
-    response.verifyComplete();
+    // then: the created user is returned
+    response.assertNext(userDetails -> {
+          assertThat(userDetails.getUserIdentifier()).isEqualTo(userId);
+          assertThat(userDetails.getLastRequestDateTime()).isEqualTo(creationInstant);
+        })
+        .verifyComplete();
 
     // and: the correct interactions occur
     verify(bungieAPIService, times(1)).getUserCharacters(membershipType, membershipId);
     verify(bungieAPIService, times(5)).getManifestEntity(any(), anyLong());
-    verify(postGameCarnageService, atMost(5)).retrievePGCR(anyLong());
-    verify(userDetailsRepository, times(1)).save(any());
+    verify(postGameCarnageService, times(1)).retrievePGCRs(any());
+    verify(userDetailsRepository, times(1)).saveSyncState(any(), any(), any());
+    verify(raidStatisticsRepository, times(1)).rebuild(userId);
+
+    // and: the progress of the sync was reported
+    assertThat(syncStats.progress()).isEqualTo(new SyncStats.Progress(5, 1, 1));
+
+    // and: the stats of every stage of the sync were recorded
+    verify(raidSyncMetrics, times(1)).record(eq("create"), eq(userId), assertArg(stats -> {
+      assertThat(stats.getPagesFetched()).isEqualTo(1);
+      assertThat(stats.getActivitiesScanned()).isEqualTo(5);
+      assertThat(stats.getCatalogHits()).isZero();
+      assertThat(stats.getManifestLookups()).isEqualTo(5);
+    }), eq(SignalType.ON_COMPLETE), any());
   }
 
   @Test
@@ -290,6 +415,8 @@ public class UserRaidDetailsServiceTest {
     when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
         .thenReturn(Mono.just(activitiesResponse));
 
+    when(manifestService.getRaidCatalog()).thenReturn(RaidCatalog.EMPTY);
+
     ManifestResponseFields firstActivity = ManifestResponseFields.builder()
         .displayProperties(new DisplayProperties("", "Last Wish: 50", "", "", false))
         .build();
@@ -302,22 +429,20 @@ public class UserRaidDetailsServiceTest {
     when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 2L))
         .thenReturn(Mono.just(secondActivity));
 
-    PGCRDetails pgcr = new PGCRDetails(null, true, null);
-    when(postGameCarnageService.retrievePGCR(any(Long.class)))
-        .thenReturn(Mono.just((pgcr)));
+    when(postGameCarnageService.retrievePGCRs(any()))
+        .thenAnswer(invocation -> invocation.<Flux<Long>>getArgument(0)
+            .map(instanceId -> new PGCRDetails(instanceId, true, null)));
 
-    when(userDetailsRepository.save(assertArg(ud -> {
-      UserRaidDetails lastWish = ud.getUserRaidDetails().stream()
+    when(userRaidDetailsRepository.upsertAll(assertArg(raids -> {
+      UserRaidDetails lastWish = raids.stream()
           .filter(raid -> raid.getInstanceId() == 789120L)
           .findFirst().orElse(null);
 
-      UserRaidDetails kingsFall = ud.getUserRaidDetails().stream()
+      UserRaidDetails kingsFall = raids.stream()
           .filter(raid -> raid.getInstanceId() == 789124L)
           .findFirst().orElse(null);
 
-      assertThat(ud.getUserIdentifier()).isEqualTo(userId);
-      assertThat(ud.getLastRequestDateTime()).isEqualTo(creationInstant);
-      assertThat(ud.getUserRaidDetails().size()).isEqualTo(5);
+      assertThat(raids).hasSize(5);
       assertThat(lastWish.getRaidName()).isEqualTo("Last Wish");
       assertThat(lastWish.getRaidDifficulty()).isNull();
       assertThat(lastWish.getIsCompleted()).isFalse();
@@ -326,20 +451,31 @@ public class UserRaidDetailsServiceTest {
       assertThat(lastWish.getDurationSeconds()).isEqualTo(0);
       assertThat(kingsFall.getRaidName()).isEqualTo("King's Fall");
       assertThat(kingsFall.getRaidDifficulty()).isEqualTo(RaidDifficulty.MASTER);
+      assertThat(raids)
+          .extracting(UserRaidDetails::getUserIdentifier)
+          .containsOnly(userId);
     }))).thenReturn(Mono.empty());
+    when(raidStatisticsRepository.rebuild(userId)).thenReturn(Flux.empty());
+
+    when(userDetailsRepository.saveSyncState(eq(userId), eq(creationInstant), any()))
+        .thenReturn(Mono.empty());
 
     // when: create user details is called
     var response = StepVerifier.create(
         sut.createUserDetails(creationInstant, userId, membershipId, membershipType));
 
-    // then: the saved entity is saved correctly
-    response.verifyComplete();
+    // then: the created user is returned
+    response.assertNext(userDetails -> {
+          assertThat(userDetails.getUserIdentifier()).isEqualTo(userId);
+          assertThat(userDetails.getLastRequestDateTime()).isEqualTo(creationInstant);
+        })
+        .verifyComplete();
 
     // and: the correct interactions occur
     verify(bungieAPIService, times(1)).getUserCharacters(membershipType, membershipId);
     verify(bungieAPIService, times(5)).getManifestEntity(any(), anyLong());
-    verify(postGameCarnageService, atMost(5)).retrievePGCR(anyLong());
-    verify(userDetailsRepository, times(1)).save(any());
+    verify(postGameCarnageService, times(1)).retrievePGCRs(any());
+    verify(userDetailsRepository, times(1)).saveSyncState(any(), any(), any());
   }
 
   @Test
@@ -487,6 +623,48 @@ public class UserRaidDetailsServiceTest {
         .getRaidActivities(membershipType, membershipId, characterId, 1);
   }
 
+  @Test
+  @DisplayName("Get activities since a sync cursor stops at the first activity already synced")
+  public void getCharacterActivitiesSinceCursor() {
+    // given: membershipType, membershipId, characterId, and the cursor of the character
+    Integer membershipType = 3;
+    String membershipId = "SomeId";
+    String characterId = "1893";
+
+    ArrayList<Activity> firstPageActivities = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      ActivityDetails details = new ActivityDetails(1L, (long) 1000 - i, 4);
+      Instant completionDate = LocalDate.now().minusDays(i).atStartOfDay()
+          .toInstant(ZoneOffset.UTC);
+      firstPageActivities.add(new Activity(completionDate, details, Collections.emptyMap()));
+    }
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, characterId, 0))
+        .thenReturn(Mono.just(new ActivitiesResponse(firstPageActivities)));
+
+    // the newest synced activity is the tenth one of the page
+    Activity lastSynced = firstPageActivities.get(10);
+    CharacterSyncCursor cursor = new CharacterSyncCursor(
+        lastSynced.getActivityDetails().getInstanceId(), lastSynced.getPeriod());
+
+    // when: getting activities since the cursor
+    var response = sut.getActivitiesSince(membershipType, membershipId, characterId, cursor);
+
+    // then: only the activities newer than the cursor are returned
+    StepVerifier.create(response.collectList())
+        .assertNext(list -> assertThat(list)
+            .extracting(activity -> activity.getActivityDetails().getInstanceId())
+            .hasSize(10)
+            .startsWith(1000L)
+            .doesNotContain(990L))
+        .verifyComplete();
+
+    // and: the page after the cursor was never requested even though the page was full
+    verify(bungieAPIService, times(1))
+        .getRaidActivities(membershipType, membershipId, characterId, 0);
+    verify(bungieAPIService, never())
+        .getRaidActivities(membershipType, membershipId, characterId, 1);
+  }
+
   @Test
   @DisplayName("Update action is successful for updating user raids with latest information")
   public void updateActionSuccessful() {
@@ -500,21 +678,9 @@ public class UserRaidDetailsServiceTest {
     var updatedInstant = Instant.now();
 
     var threeDaysAgo = LocalDate.now().minusDays(3).atStartOfDay().toInstant(ZoneOffset.UTC);
-    List<UserRaidDetails> existingData = new ArrayList<>();
-    existingData.add(new UserRaidDetails("Last Wish", null, null, true, 1000, 3, 34.0,
-        3600, true, 1L));
-    existingData.add(
-        new UserRaidDetails("King's Fall", RaidDifficulty.NORMAL, null, true, 1000, 3, 34.0,
-            3600, true, 2L));
-    existingData.add(
-        new UserRaidDetails("King's Fall", RaidDifficulty.MASTER, null, true, 1000, 3, 34.0,
-            3600, true, 3L));
-    existingData.add(
-        new UserRaidDetails("Vow of the Disciple", RaidDifficulty.NORMAL, null, false, 0, 0, 31.1,
-            333, true, 4L));
 
     // Last time this user was searched for was three days ago
-    UserDetails existingUser = new UserDetails(userId, clanName, threeDaysAgo, existingData);
+    UserDetails existingUser = new UserDetails(userId, clanName, threeDaysAgo, null, true);
     when(userDetailsRepository.findById(userId)).thenReturn(Mono.just(existingUser));
 
     Map<String, UserCharacter> data = Map.of("1", new UserCharacter());
@@ -541,44 +707,216 @@ public class UserRaidDetailsServiceTest {
     when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
         .thenReturn(Mono.just(activitiesResponse));
 
+    when(manifestService.getRaidCatalog()).thenReturn(RaidCatalog.EMPTY);
+
     ManifestResponseFields firstActivity = ManifestResponseFields.builder()
         .displayProperties(new DisplayProperties("", "Last Wish: 50", "", "", false))
         .build();
     when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 1L))
         .thenReturn(Mono.just(firstActivity));
 
-    PGCRDetails pgcr = new PGCRDetails(null, true, null);
-    when(postGameCarnageService.retrievePGCR(any(Long.class)))
-        .thenReturn(Mono.just((pgcr)));
+    when(postGameCarnageService.retrievePGCRs(any()))
+        .thenAnswer(invocation -> invocation.<Flux<Long>>getArgument(0)
+            .map(instanceId -> new PGCRDetails(instanceId, true, null)));
 
-    when(userDetailsRepository.save(assertArg(ud -> {
-      UserRaidDetails lastWish = ud.getUserRaidDetails().stream()
+    when(userRaidDetailsRepository.upsertAll(assertArg(raids -> {
+      UserRaidDetails lastWish = raids.stream()
           .filter(raid -> raid.getInstanceId() == 5L)
           .findFirst().orElse(null);
 
-      assertThat(ud.getUserIdentifier()).isEqualTo(userId);
-      assertThat(ud.getLastRequestDateTime()).isEqualTo(updatedInstant);
-      assertThat(ud.getDestinyClanName()).isEqualTo(clanName);
-      assertThat(ud.getUserRaidDetails().size()).isEqualTo(5);
+      // only the raid played since the last request is written
+      assertThat(raids).hasSize(1);
       assertThat(lastWish.getRaidName()).isEqualTo("Last Wish");
       assertThat(lastWish.getRaidDifficulty()).isNull();
       assertThat(lastWish.getIsCompleted()).isTrue();
       assertThat(lastWish.getTotalKills()).isEqualTo(134);
       assertThat(lastWish.getTotalDeaths()).isEqualTo(0);
       assertThat(lastWish.getDurationSeconds()).isEqualTo(3600);
-    }))).thenReturn(Mono.empty());
+      assertThat(raids)
+          .extracting(UserRaidDetails::getUserIdentifier)
+          .containsOnly(userId);
+    }))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    when(userDetailsRepository.markStatisticsStale(userId)).thenReturn(Mono.empty());
+    when(raidStatisticsRepository.incrementAll(assertArg(newRaids ->
+        assertThat(newRaids).extracting(UserRaidDetails::getInstanceId).containsExactly(5L))))
+        .thenReturn(Mono.empty());
+
+    // only the sync state is written, the rest of the user's document is left untouched
+    when(userDetailsRepository.saveSyncState(eq(userId), eq(updatedInstant),
+        assertArg(cursors -> assertThat(cursors.get("1"))
+            .isEqualTo(new CharacterSyncCursor(5L, today))))).thenReturn(Mono.empty());
 
     // when: create user details is called
     var response = StepVerifier.create(
         sut.updateUserDetails(updatedInstant, userId, membershipId, membershipType));
 
-    // then: the saved entity is saved correctly
-    response.verifyComplete();
+    // then: the updated user is returned
+    response.assertNext(userDetails -> {
+          assertThat(userDetails.getUserIdentifier()).isEqualTo(userId);
+          assertThat(userDetails.getLastRequestDateTime()).isEqualTo(updatedInstant);
+          assertThat(userDetails.getDestinyClanName()).isEqualTo(clanName);
+        })
+        .verifyComplete();
 
     // and: the correct interactions occur
     verify(bungieAPIService, times(1)).getUserCharacters(membershipType, membershipId);
     verify(bungieAPIService, times(1)).getManifestEntity(any(), anyLong());
-    verify(postGameCarnageService, atMost(1)).retrievePGCR(anyLong());
-    verify(userDetailsRepository, times(1)).save(any());
+    verify(postGameCarnageService, times(1)).retrievePGCRs(any());
+    verify(userDetailsRepository, times(1)).saveSyncState(any(), any(), any());
+    verify(userRaidDetailsRepository, times(1)).upsertAll(any());
+    verify(raidStatisticsRepository, times(1)).incrementAll(any());
+  }
+
+  @Test
+  @DisplayName("Users whose statistics are not up-to-date get them rebuilt by their next update")
+  public void staleStatisticsAreRebuiltByTheUpdate() {
+    // given: a user whose raids were stored before statistics were materialized
+    String membershipId = "12345";
+    Integer membershipType = 3;
+    String userId = "Deaht#8080";
+    Instant updatedInstant = Instant.now();
+    Instant lastRequest = LocalDate.now().minusDays(3).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+    UserDetails existingUser = new UserDetails(userId, null, lastRequest, null, null);
+    when(userDetailsRepository.findById(userId)).thenReturn(Mono.just(existingUser));
+
+    // and: no raids were played since the last request
+    when(bungieAPIService.getUserCharacters(membershipType, membershipId))
+        .thenReturn(Mono.just(Map.of("1", new UserCharacter())));
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
+        .thenReturn(Mono.just(new ActivitiesResponse(List.of(new Activity(
+            lastRequest.minus(Duration.ofDays(1)), new ActivityDetails(1L, 1L, 4),
+            Collections.emptyMap())))));
+    when(postGameCarnageService.retrievePGCRs(any())).thenReturn(Flux.empty());
+
+    when(userRaidDetailsRepository.upsertAll(List.of())).thenReturn(Mono.just(List.of()));
+    when(raidStatisticsRepository.rebuild(userId)).thenReturn(Flux.empty());
+    when(userDetailsRepository.saveSyncState(eq(userId), eq(updatedInstant), any()))
+        .thenReturn(Mono.empty());
+
+    // when: the user is updated
+    var response = StepVerifier.create(
+        sut.updateUserDetails(updatedInstant, userId, membershipId, membershipType));
+
+    // then: the user's statistics are up-to-date
+    response.assertNext(userDetails -> assertThat(userDetails.getStatisticsUpToDate()).isTrue())
+        .verifyComplete();
+
+    // and: they were rebuilt from the stored raids instead of incremented
+    verify(raidStatisticsRepository, times(1)).rebuild(userId);
+    verify(raidStatisticsRepository, never()).incrementAll(any());
+    verify(userDetailsRepository, never()).markStatisticsStale(any());
+  }
+
+  @Test
+  @DisplayName("Updates fail without moving the sync cursors when reports can't be retrieved")
+  public void missingReportsFailTheUpdate() {
+    // given: a user that played a raid since the last request
+    String membershipId = "12345";
+    Integer membershipType = 3;
+    String userId = "Deaht#8080";
+    Instant updatedInstant = Instant.now();
+    Instant lastRequest = LocalDate.now().minusDays(3).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+    UserDetails existingUser = new UserDetails(userId, null, lastRequest, null, true);
+    when(userDetailsRepository.findById(userId)).thenReturn(Mono.just(existingUser));
+
+    when(bungieAPIService.getUserCharacters(membershipType, membershipId))
+        .thenReturn(Mono.just(Map.of("1", new UserCharacter())));
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
+        .thenReturn(Mono.just(new ActivitiesResponse(List.of(
+            new Activity(updatedInstant, new ActivityDetails(1L, 5L, 4),
+                Collections.emptyMap()),
+            new Activity(lastRequest.minus(Duration.ofDays(1)), new ActivityDetails(1L, 1L, 4),
+                Collections.emptyMap())))));
+
+    when(manifestService.getRaidCatalog()).thenReturn(RaidCatalog.EMPTY);
+    when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 1L))
+        .thenReturn(Mono.just(ManifestResponseFields.builder()
+            .displayProperties(new DisplayProperties("", "Last Wish", "", "", false))
+            .build()));
+
+    // and: the report of the new raid can't be retrieved from Bungie
+    when(postGameCarnageService.retrievePGCRs(any())).thenReturn(Flux.error(
+        new InternalServerException("Unable to retrieve Post Game Carnage Reports [5]",
+            HttpStatus.INTERNAL_SERVER_ERROR)));
+
+    // when: the user is updated
+    var response = StepVerifier.create(
+        sut.updateUserDetails(updatedInstant, userId, membershipId, membershipType));
+
+    // then: the update fails
+    response.expectError(InternalServerException.class)
+        .verify();
+
+    // and: neither the raid nor the sync cursors were written, so the next update retries it
+    verify(userRaidDetailsRepository, never()).upsertAll(any());
+    verify(raidStatisticsRepository, never()).incrementAll(any());
+    verify(userDetailsRepository, never()).saveSyncState(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Raid activities found in the raid catalog are resolved without calling the manifest")
+  public void raidActivitiesAreResolvedFromTheCatalog() {
+    // given: parsed data for user details
+    String membershipId = "12345";
+    Integer membershipType = 3;
+    String userId = "Deaht#8080";
+    Instant creationInstant = Instant.now();
+
+    Map<String, UserCharacter> data = Map.of("1", new UserCharacter());
+    when(bungieAPIService.getUserCharacters(membershipType, membershipId))
+        .thenReturn(Mono.just(data));
+
+    List<Activity> activities = List.of(
+        new Activity(Instant.now(), new ActivityDetails(1L, 789120L, 4), Collections.emptyMap()),
+        new Activity(Instant.now(), new ActivityDetails(2L, 789121L, 4), Collections.emptyMap())
+    );
+    when(bungieAPIService.getRaidActivities(membershipType, membershipId, "1", 0))
+        .thenReturn(Mono.just(new ActivitiesResponse(activities)));
+
+    // and: a raid catalog built from the manifest
+    RaidCatalog raidCatalog = RaidCatalog.of(List.of(
+        ManifestResponseFields.builder()
+            .hash(1L)
+            .directActivityModeType(4)
+            .displayProperties(new DisplayProperties("", "Vault of Glass: Normal", "", "", false))
+            .build(),
+        ManifestResponseFields.builder()
+            .hash(2L)
+            .directActivityModeType(4)
+            .displayProperties(new DisplayProperties("", "Vault of Glass: Master", "", "", false))
+            .build()));
+    when(manifestService.getRaidCatalog()).thenReturn(raidCatalog);
+
+    when(postGameCarnageService.retrievePGCRs(any()))
+        .thenAnswer(invocation -> invocation.<Flux<Long>>getArgument(0)
+            .map(instanceId -> new PGCRDetails(instanceId, true, null)));
+
+    when(userRaidDetailsRepository.upsertAll(assertArg(raids -> {
+      assertThat(raids).hasSize(2);
+      assertThat(raids)
+          .extracting(UserRaidDetails::getRaidName)
+          .containsOnly("Vault of Glass");
+      assertThat(raids)
+          .extracting(UserRaidDetails::getRaidDifficulty)
+          .containsExactlyInAnyOrder(RaidDifficulty.NORMAL, RaidDifficulty.MASTER);
+      assertThat(raids)
+          .extracting(UserRaidDetails::getUserIdentifier)
+          .containsOnly(userId);
+    }))).thenReturn(Mono.empty());
+    when(raidStatisticsRepository.rebuild(userId)).thenReturn(Flux.empty());
+    when(userDetailsRepository.saveSyncState(any(), any(), any())).thenReturn(Mono.empty());
+
+    // when: create user details is called
+    var response = StepVerifier.create(
+        sut.createUserDetails(creationInstant, userId, membershipId, membershipType));
+
+    // then: the user is created
+    response.expectNextCount(1)
+        .verifyComplete();
+
+    // and: the manifest was never called
+    verify(bungieAPIService, never()).getManifestEntity(any(), anyLong());
   }
 }
@@ -0,0 +1,179 @@
+package com.deahtstroke.rivenbot.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deahtstroke.rivenbot.config.SyncConfiguration;
+import com.deahtstroke.rivenbot.exception.InternalServerException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class UserSyncCoordinatorTest {
+
+  private static final String LEASE_KEY = "raid-stats:sync:Deaht#8080";
+
+  @Mock
+  ReactiveStringRedisTemplate redisTemplate;
+  @Mock
+  ReactiveValueOperations<String, String> valueOperations;
+
+  private AtomicInteger syncs;
+  private UserSyncCoordinator sut;
+
+  @BeforeEach
+  public void setup() {
+    syncs = new AtomicInteger(0);
+    SyncConfiguration syncConfiguration = new SyncConfiguration();
+    syncConfiguration.setPollInterval(Duration.ofMillis(10));
+    syncConfiguration.setMaxWait(Duration.ofMillis(30));
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    sut = new UserSyncCoordinator(redisTemplate, syncConfiguration);
+  }
+
+  private Supplier<Mono<Void>> sync(Mono<Void> completion) {
+    return () -> Mono.defer(() -> {
+      syncs.incrementAndGet();
+      return completion;
+    });
+  }
+
+  @Test
+  @DisplayName("Concurrent requests for the same user share a single sync")
+  @SuppressWarnings("unchecked")
+  public void concurrentRequestsShareOneSync() {
+    // given: a sync that stays in progress until it is released
+    Sinks.Empty<Void> release = Sinks.empty();
+    when(valueOperations.setIfAbsent(eq(LEASE_KEY), anyString(), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.just(true));
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+        .thenReturn(Flux.just(1L));
+
+    // when: two requests for the user are made while the sync runs
+    Mono<Void> first = sut.sync("Deaht#8080", sync(release.asMono()));
+    Mono<Void> second = sut.sync("Deaht#8080", sync(release.asMono()));
+
+    // then: both complete once the single sync is done
+    StepVerifier.create(Mono.when(first, second))
+        .then(release::tryEmitEmpty)
+        .verifyComplete();
+    assertThat(syncs.get()).isEqualTo(1);
+
+    // and: the lease is marked as completed for the other replicas
+    verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(List.of(LEASE_KEY)),
+        anyList());
+    verify(valueOperations, times(1)).setIfAbsent(eq(LEASE_KEY), anyString(), any());
+  }
+
+  @Test
+  @DisplayName("A request attaches to another replica's sync instead of syncing again")
+  @SuppressWarnings("unchecked")
+  public void requestsAttachToRunningSync() {
+    // given: another replica holds the lease and finishes its sync after one poll
+    when(valueOperations.setIfAbsent(eq(LEASE_KEY), anyString(), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.just(false));
+    when(valueOperations.get(LEASE_KEY))
+        .thenReturn(Mono.just("some-other-replica"), Mono.just("completed"));
+
+    // when: the user is synced
+    StepVerifier.create(sut.sync("Deaht#8080", sync(Mono.empty())))
+
+        // then: the request completes without running its own sync
+        .verifyComplete();
+    assertThat(syncs.get()).isZero();
+    verify(valueOperations, times(2)).get(LEASE_KEY);
+    verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList());
+  }
+
+  @Test
+  @DisplayName("Users are still synced when Redis is unavailable")
+  public void redisErrorsFallBackToLocalSync() {
+    // given: Redis fails on every command
+    when(valueOperations.setIfAbsent(eq(LEASE_KEY), anyString(), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+    // when: the user is synced
+    StepVerifier.create(sut.sync("Deaht#8080", sync(Mono.empty())))
+
+        // then: the sync runs anyway
+        .verifyComplete();
+    assertThat(syncs.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Requests that attach to a running sync follow its progress")
+  @SuppressWarnings("unchecked")
+  public void attachedRequestsFollowTheProgressOfTheSync() {
+    // given: a sync that finds the characters of the user and stays in progress until released
+    Sinks.Empty<Void> release = Sinks.empty();
+    when(valueOperations.setIfAbsent(eq(LEASE_KEY), anyString(), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.just(true));
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+        .thenReturn(Flux.just(1L));
+    Supplier<Mono<Void>> sync = sync(Mono.deferContextual(context -> {
+      SyncStats.from(context).charactersFound(3);
+      return release.asMono();
+    }));
+
+    // when: two requests, each with its own stats, are made while the sync runs
+    SyncStats firstStats = new SyncStats();
+    SyncStats secondStats = new SyncStats();
+    Mono<Void> first = sut.sync("Deaht#8080", sync)
+        .contextWrite(SyncStats.with(firstStats));
+    Mono<Void> second = sut.sync("Deaht#8080", sync)
+        .contextWrite(SyncStats.with(secondStats));
+
+    // then: both report the progress of the single sync
+    StepVerifier.create(Mono.when(first, second))
+        .then(() -> {
+          assertThat(firstStats.progress().totalCharacters()).isEqualTo(3);
+          assertThat(secondStats.progress().totalCharacters()).isEqualTo(3);
+        })
+        .then(release::tryEmitEmpty)
+        .verifyComplete();
+    assertThat(syncs.get()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Requests give up on another replica's sync that takes longer than the max wait")
+  public void waitingOnAnotherReplicaIsBounded() {
+    // given: another replica holds the lease and never finishes its sync
+    when(valueOperations.setIfAbsent(eq(LEASE_KEY), anyString(), eq(Duration.ofMinutes(2))))
+        .thenReturn(Mono.just(false));
+    when(valueOperations.get(LEASE_KEY)).thenReturn(Mono.just("some-other-replica"));
+
+    // when: the user is synced
+    StepVerifier.withVirtualTime(() -> sut.sync("Deaht#8080", sync(Mono.empty())))
+        .thenAwait(Duration.ofMillis(30))
+
+        // then: the request fails once the max wait is over, instead of waiting forever
+        .expectError(InternalServerException.class)
+        .verify();
+
+    // and: the lease was checked once per poll, without syncing
+    verify(valueOperations, times(4)).get(LEASE_KEY);
+    assertThat(syncs.get()).isZero();
+  }
+}
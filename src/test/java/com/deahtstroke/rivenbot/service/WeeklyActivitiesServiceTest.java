@@ -1,7 +1,13 @@
 package com.deahtstroke.rivenbot.service;
 
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.deahtstroke.rivenbot.config.BungieConfiguration;
 import com.deahtstroke.rivenbot.dto.WeeklyActivity;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.DisplayProperties;
 import com.deahtstroke.rivenbot.dto.destiny.manifest.ManifestResponseFields;
@@ -10,14 +16,15 @@ import com.deahtstroke.rivenbot.dto.destiny.milestone.MilestoneEntry;
 import com.deahtstroke.rivenbot.enums.ActivityMode;
 import com.deahtstroke.rivenbot.enums.ManifestEntity;
 import com.deahtstroke.rivenbot.exception.ResourceNotFoundException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
@@ -29,9 +36,15 @@ public class WeeklyActivitiesServiceTest {
   @Mock
   BungieAPIService bungieAPIService;
 
-  @InjectMocks
+  private BungieConfiguration bungieConfiguration;
   private WeeklyActivitiesService sut;
 
+  @BeforeEach
+  public void setup() {
+    bungieConfiguration = new BungieConfiguration();
+    sut = new WeeklyActivitiesService(bungieAPIService, bungieConfiguration);
+  }
+
   @Test
   @DisplayName("Retrieve weekly raid works successfully")
   public void retrieveWeeklyRaidWorksSuccessfully() {
@@ -179,4 +192,112 @@ public class WeeklyActivitiesServiceTest {
 
     stepVerifier.expectError(ResourceNotFoundException.class).verify();
   }
+
+  @Test
+  @DisplayName("Weekly activities are precomputed once Bungie rotates them and served from memory")
+  public void precomputedWeeklyActivitiesAreServedFromMemory() {
+    // given: Bungie still returns last week's raid right after the reset
+    var activitiesWeekly = List.of(new ActivitiesDto(2823159265L, List.of("897950155")));
+    var startTime = ZonedDateTime.now();
+    var endTime = ZonedDateTime.now().plusDays(7L);
+    var lastWeek = Map.of("3618845105", new MilestoneEntry(3618845105L,
+        startTime.minusDays(7L), startTime.minusHours(1L), activitiesWeekly));
+    var thisWeek = Map.of("3618845105", new MilestoneEntry(3618845105L,
+        startTime, endTime, activitiesWeekly));
+    when(bungieAPIService.getPublicMilestones())
+        .thenReturn(Mono.just(lastWeek), Mono.just(thisWeek));
+
+    var activityWithType = new ManifestResponseFields();
+    activityWithType.setActivityTypeHash(608898761L);
+    when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 2823159265L))
+        .thenReturn(Mono.just(activityWithType));
+
+    var raidResponseFields = new ManifestResponseFields();
+    raidResponseFields.setDisplayProperties(
+        new DisplayProperties("someDescription", "Raid", null, null, false));
+    when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_TYPE_DEFINITION,
+        608898761L))
+        .thenReturn(Mono.just(raidResponseFields));
+
+    var milestoneResponseFields = new ManifestResponseFields();
+    milestoneResponseFields.setDisplayProperties(new DisplayProperties(
+        "Delve into the Last Wish raid", "The Last Wish", null, null, false));
+    when(bungieAPIService.getManifestEntity(ManifestEntity.MILESTONE_DEFINITION, 3618845105L))
+        .thenReturn(Mono.just(milestoneResponseFields));
+
+    WeeklyActivity expectedResponse = new WeeklyActivity("The Last Wish",
+        "Delve into the Last Wish raid", startTime, endTime);
+
+    // when: the weekly activities are precomputed
+    StepVerifier.withVirtualTime(() -> sut.precomputeWeeklyActivities())
+
+        // then: the raid is retried until this week's raid shows up
+        .thenAwait(Duration.ofMinutes(1))
+        .expectNext(expectedResponse)
+        .thenCancel()
+        .verify();
+
+    // and: the weekly raid is served without calling Bungie again
+    clearInvocations(bungieAPIService);
+    StepVerifier.create(sut.getWeeklyActivity(ActivityMode.RAID))
+        .expectNext(expectedResponse)
+        .verifyComplete();
+    verify(bungieAPIService, never()).getPublicMilestones();
+  }
+
+  @Test
+  @DisplayName("Weekly activities fetched after a failed precompute are kept in memory")
+  public void fetchedWeeklyActivitiesAreKeptInMemory() {
+    // given: no precomputed raid and Bungie already returning this week's raid
+    var activitiesWeekly = List.of(new ActivitiesDto(2823159265L, List.of("897950155")));
+    var startTime = ZonedDateTime.now();
+    var endTime = ZonedDateTime.now().plusDays(7L);
+    when(bungieAPIService.getPublicMilestones()).thenReturn(Mono.just(Map.of("3618845105",
+        new MilestoneEntry(3618845105L, startTime, endTime, activitiesWeekly))));
+
+    var activityWithType = new ManifestResponseFields();
+    activityWithType.setActivityTypeHash(608898761L);
+    when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_DEFINITION, 2823159265L))
+        .thenReturn(Mono.just(activityWithType));
+
+    var raidResponseFields = new ManifestResponseFields();
+    raidResponseFields.setDisplayProperties(
+        new DisplayProperties("someDescription", "Raid", null, null, false));
+    when(bungieAPIService.getManifestEntity(ManifestEntity.ACTIVITY_TYPE_DEFINITION,
+        608898761L))
+        .thenReturn(Mono.just(raidResponseFields));
+
+    var milestoneResponseFields = new ManifestResponseFields();
+    milestoneResponseFields.setDisplayProperties(new DisplayProperties(
+        "Delve into the Last Wish raid", "The Last Wish", null, null, false));
+    when(bungieAPIService.getManifestEntity(ManifestEntity.MILESTONE_DEFINITION, 3618845105L))
+        .thenReturn(Mono.just(milestoneResponseFields));
+
+    WeeklyActivity expectedResponse = new WeeklyActivity("The Last Wish",
+        "Delve into the Last Wish raid", startTime, endTime);
+
+    // when: the weekly raid is requested twice
+    StepVerifier.create(sut.getWeeklyActivity(ActivityMode.RAID))
+        .expectNext(expectedResponse)
+        .verifyComplete();
+    StepVerifier.create(sut.getWeeklyActivity(ActivityMode.RAID))
+        .expectNext(expectedResponse)
+        .verifyComplete();
+
+    // then: Bungie was only called for the first request
+    verify(bungieAPIService, times(1)).getPublicMilestones();
+  }
+
+  @Test
+  @DisplayName("Weekly activities are not precomputed on startup when it's disabled")
+  public void precomputeOnStartupCanBeDisabled() {
+    // given: precomputing on startup is disabled
+    bungieConfiguration.getWeeklyActivities().setPrecomputeOnStartup(false);
+
+    // when: the application is ready
+    sut.precomputeOnStartup();
+
+    // then: Bungie is not called
+    verifyNoInteractions(bungieAPIService);
+  }
 }
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
+import java.security.PublicKey;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.junit.jupiter.api.DisplayName;
@@ -61,4 +62,28 @@ public class CryptoUtilTest {
     assertThat(response).isFalse();
   }
 
+  @Test
+  @DisplayName("validateSignature is successful for messages signed with the decoded public key")
+  public void validateSignatureWithDecodedPublicKey() throws DecoderException {
+    // given: a message signed together with its timestamp
+    var message = "This is some random message that should be encrypted";
+    var timestamp = "1000";
+
+    KeyPair keyPair = Crypto.seedSigningKeyPair(Hex.decodeHex(SEED.toCharArray()));
+    byte[] signedMessage = (timestamp + message).getBytes(StandardCharsets.UTF_8);
+    String signature = Hex.encodeHexString(Crypto.sign(keyPair.getPrivate(), signedMessage));
+
+    // and: the public key of the bot decoded once
+    PublicKey publicKey = CryptoUtils.decodePublicKey(
+        Hex.encodeHexString(keyPair.getPublic().getEncoded()));
+
+    // when: validateSignature is called with the body bytes and with the assembled message
+    boolean fromBody = CryptoUtils.validateSignature(message.getBytes(StandardCharsets.UTF_8),
+        signature, publicKey, timestamp);
+    boolean fromSignedMessage = CryptoUtils.validateSignature(signedMessage, signature, publicKey);
+
+    // then: both are valid
+    assertThat(fromBody).isTrue();
+    assertThat(fromSignedMessage).isTrue();
+  }
 }
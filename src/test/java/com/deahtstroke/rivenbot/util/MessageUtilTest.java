@@ -2,7 +2,9 @@ package com.deahtstroke.rivenbot.util;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.regex.Pattern;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -69,4 +71,37 @@ public class MessageUtilTest {
     // then: the formatted string is correct
     assertThat(date).matches(pattern);
   }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"2024-06-11T15:59:59Z", "2024-06-12T00:00:00Z", "2024-06-18T15:59:59Z"})
+  @DisplayName("The next weekly reset is the upcoming Tuesday at 9:00 AM Pacific Time")
+  public void nextWeeklyResetIsTheUpcomingTuesday(String now) {
+    // given: an instant before the reset of Tuesday the 18th, the first one is right before the
+    // reset of Tuesday the 11th
+    Instant instant = Instant.parse(now);
+
+    // when: the next weekly reset is computed
+    ZonedDateTime nextReset = MessageUtils.nextWeeklyReset(instant);
+
+    // then: the reset is the closest one after the instant
+    assertThat(nextReset.toInstant()).isAfter(instant);
+    assertThat(nextReset.toInstant())
+        .isEqualTo(instant.isBefore(Instant.parse("2024-06-11T16:00:00Z")) ?
+            Instant.parse("2024-06-11T16:00:00Z") : Instant.parse("2024-06-18T16:00:00Z"));
+  }
+
+  @Test
+  @DisplayName("The weekly reset happens on the reset instant itself")
+  public void weeklyResetHappensOnTheResetInstant() {
+    // given: the exact instant of a weekly reset
+    Instant reset = Instant.parse("2024-06-11T16:00:00Z");
+
+    // when: the previous and next weekly resets are computed
+    ZonedDateTime previousReset = MessageUtils.previousWeeklyReset(reset);
+    ZonedDateTime nextReset = MessageUtils.nextWeeklyReset(reset);
+
+    // then: the week that starts on the reset is the current one
+    assertThat(previousReset.toInstant()).isEqualTo(reset);
+    assertThat(nextReset.toInstant()).isEqualTo(Instant.parse("2024-06-18T16:00:00Z"));
+  }
 }